@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package grails.gorm.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.hibernate.Session
+import org.hibernate.dialect.H2Dialect
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import org.springframework.orm.hibernate5.SessionHolder
+import org.springframework.transaction.support.TransactionSynchronizationManager
+
+import grails.gorm.annotation.Entity
+
+import org.grails.orm.hibernate.HibernateDatastore
+
+/**
+ * Compares Query API queries executed as cached HQL templates with the same queries executed with the Criteria API.
+ * Run with {@code ./gradlew :grace-datastore-gorm-hibernate:jmh}
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class CriteriaTemplateBenchmark {
+
+    /**
+     * Whether queries are executed as cached HQL templates rather than with the Criteria API
+     */
+    @Param(['true', 'false'])
+    public boolean criteriaTemplates
+
+    private HibernateDatastore datastore
+
+    private Session session
+
+    @Setup
+    void setup() {
+        datastore = new HibernateDatastore([
+                'dataSource.url': 'jdbc:h2:mem:criteriaTemplateBenchmarkDB;LOCK_TIMEOUT=10000',
+                'dataSource.dbCreate': 'create-drop',
+                'dataSource.dialect': H2Dialect.name,
+                'hibernate.queryTemplates.criteria': criteriaTemplates
+        ], BenchmarkBook)
+        session = datastore.sessionFactory.openSession()
+        TransactionSynchronizationManager.bindResource(datastore.sessionFactory, new SessionHolder(session))
+        BenchmarkBook.withTransaction {
+            for (i in 1..100) {
+                new BenchmarkBook(title: "Book $i", author: "Author ${i % 10}", pages: i * 10).save()
+            }
+        }
+        session.clear()
+    }
+
+    @TearDown
+    void tearDown() {
+        TransactionSynchronizationManager.unbindResource(datastore.sessionFactory)
+        session.close()
+        datastore.close()
+    }
+
+    @Benchmark
+    List dynamicFinder() {
+        List result = BenchmarkBook.findAllByAuthorAndPagesGreaterThan('Author 3', 200)
+        session.clear()
+        return result
+    }
+
+    @Benchmark
+    List whereQuery() {
+        List result = BenchmarkBook.where { author == 'Author 3' && pages > 200 }.list(sort: 'title')
+        session.clear()
+        return result
+    }
+
+    @Benchmark
+    Number countQuery() {
+        return BenchmarkBook.where { author in ['Author 3', 'Author 4'] || pages < 100 }.count()
+    }
+}
+
+@Entity
+class BenchmarkBook {
+    String title
+    String author
+    Integer pages
+}
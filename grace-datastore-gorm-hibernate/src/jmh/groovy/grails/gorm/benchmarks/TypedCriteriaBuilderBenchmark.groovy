@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package grails.gorm.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import groovy.transform.CompileStatic
+import org.hibernate.Criteria
+import org.hibernate.Session
+import org.hibernate.dialect.H2Dialect
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import org.springframework.orm.hibernate5.SessionHolder
+import org.springframework.transaction.support.TransactionSynchronizationManager
+
+import grails.gorm.annotation.Entity
+import grails.orm.HibernateCriteriaBuilder
+
+import org.grails.orm.hibernate.HibernateDatastore
+
+/**
+ * Compares building the same Criteria from a dynamically dispatched criteria closure and from a statically compiled
+ * one that calls the typed methods of the builder. Run with {@code ./gradlew :grace-datastore-gorm-hibernate:jmh}
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class TypedCriteriaBuilderBenchmark {
+
+    private HibernateDatastore datastore
+
+    private Session session
+
+    @Setup
+    void setup() {
+        datastore = new HibernateDatastore([
+                'dataSource.url': 'jdbc:h2:mem:typedCriteriaBuilderBenchmarkDB;LOCK_TIMEOUT=10000',
+                'dataSource.dbCreate': 'create-drop',
+                'dataSource.dialect': H2Dialect.name
+        ], BenchmarkTeapot, BenchmarkTeapotShop)
+        session = datastore.sessionFactory.openSession()
+        TransactionSynchronizationManager.bindResource(datastore.sessionFactory, new SessionHolder(session))
+    }
+
+    @TearDown
+    void tearDown() {
+        TransactionSynchronizationManager.unbindResource(datastore.sessionFactory)
+        session.close()
+        datastore.close()
+    }
+
+    @Benchmark
+    Criteria dynamicClosure() {
+        return ((HibernateCriteriaBuilder) BenchmarkTeapot.createCriteria()).buildCriteria {
+            eq 'maker', 'Acme'
+            between 'cups', 2, 8
+            shop {
+                eq 'name', 'Main'
+            }
+            projections {
+                property 'cups'
+            }
+            order 'cups', 'desc'
+            maxResults 5
+        }
+    }
+
+    @Benchmark
+    Criteria typedClosure() {
+        return TypedBenchmarkQueries.byMakerAndShop((HibernateCriteriaBuilder) BenchmarkTeapot.createCriteria(), 'Acme', 'Main')
+    }
+}
+
+@CompileStatic
+class TypedBenchmarkQueries {
+
+    static Criteria byMakerAndShop(HibernateCriteriaBuilder builder, String maker, String shopName) {
+        builder.buildCriteria {
+            eq 'maker', maker
+            between 'cups', 2, 8
+            association('shop') {
+                eq 'name', shopName
+            }
+            projections {
+                property 'cups'
+            }
+            order 'cups', 'desc'
+            maxResults 5
+        }
+    }
+}
+
+@Entity
+class BenchmarkTeapot {
+    String maker
+    Integer cups
+    BenchmarkTeapotShop shop
+}
+
+@Entity
+class BenchmarkTeapotShop {
+    String name
+}
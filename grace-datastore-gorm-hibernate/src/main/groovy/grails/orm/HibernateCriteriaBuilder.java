@@ -202,6 +202,9 @@ public class HibernateCriteriaBuilder extends AbstractHibernateCriteriaBuilder {
     protected List createPagedResultList(Map args) {
         GrailsHibernateUtil.populateArgumentsForCriteria(datastore, targetClass, criteria, args, conversionService);
         GrailsHibernateTemplate ght = new GrailsHibernateTemplate(sessionFactory, (HibernateDatastore) datastore, getDefaultFlushMode());
+        if (datastore != null) {
+            return new PagedResultList(ght, criteria, datastore, createTotalCountKey());
+        }
         return new PagedResultList(ght, criteria);
     }
 
@@ -16,16 +16,27 @@
 package grails.orm;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Projections;
 import org.hibernate.internal.CriteriaImpl;
 
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.orm.hibernate.AbstractHibernateDatastore;
 import org.grails.orm.hibernate.GrailsHibernateTemplate;
+import org.grails.orm.hibernate.exceptions.GrailsQueryException;
+import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils;
 import org.grails.orm.hibernate.query.HibernateQuery;
+import org.grails.orm.hibernate.query.TotalCountCache;
 
 /**
  * A result list for Criteria list calls, which is aware of the totalCount for
@@ -43,6 +54,14 @@ public class PagedResultList extends grails.gorm.PagedResultList {
 
     private final Criteria criteria;
 
+    private transient Future<Integer> totalCountFuture;
+
+    private transient TotalCountCache totalCountCache;
+
+    private transient PersistentEntity entity;
+
+    private String totalCountKey;
+
     public PagedResultList(GrailsHibernateTemplate template, Criteria crit) {
         super(null);
         resultList = crit.list();
@@ -57,6 +76,64 @@ public class PagedResultList extends grails.gorm.PagedResultList {
         hibernateTemplate = template;
     }
 
+    /**
+     * Creates a list for the given criteria, starting the count query on a separate session before the page is queried,
+     * if configured
+     */
+    public PagedResultList(GrailsHibernateTemplate template, Criteria crit, AbstractHibernateDatastore datastore) {
+        this(template, crit, datastore, null);
+    }
+
+    /**
+     * Creates a list for the given criteria, taking the total count from the count cache of the datastore or
+     * starting the count query on a separate session before the page is queried, if configured
+     *
+     * @param template The template
+     * @param crit The criteria
+     * @param datastore The datastore
+     * @param totalCountKey The key of the total count in the count cache or null if the count must not be cached
+     */
+    public PagedResultList(GrailsHibernateTemplate template, Criteria crit, AbstractHibernateDatastore datastore, String totalCountKey) {
+        super(null);
+        criteria = crit;
+        hibernateTemplate = template;
+        PersistentEntity entity = datastore.getMappingContext().getPersistentEntity(((CriteriaImpl) crit).getEntityOrClassName());
+        // the tenant filter is only enabled on the current session
+        if (entity != null && !entity.isMultiTenant()) {
+            TotalCountCache countCache = datastore.getTotalCountCache();
+            String key = countCache != null ? totalCountKey : null;
+            Integer cachedCount = key != null ? countCache.get(entity, key) : null;
+            if (cachedCount != null) {
+                totalCount = cachedCount;
+            }
+            else {
+                if (key != null) {
+                    this.entity = entity;
+                    this.totalCountCache = countCache;
+                    this.totalCountKey = key;
+                }
+                if (datastore.isAsyncCount()) {
+                    SessionFactory sessionFactory = datastore.getSessionFactory();
+                    // the criteria are modified by the page query while the count runs, so the count uses a copy
+                    CountCriteria countCriteria = new CountCriteria((CriteriaImpl) crit);
+                    totalCountFuture = datastore.getCountExecutor().submit(() -> {
+                        Session countSession = sessionFactory.openSession();
+                        try {
+                            countSession.setDefaultReadOnly(true);
+                            return countCriteria.count(countSession, template);
+                        }
+                        finally {
+                            countSession.close();
+                        }
+                    });
+                }
+            }
+        }
+        // a page that joins a collection is listed by id, so that the joined rows are not paged
+        List page = GrailsHibernateQueryUtils.listByIdPage(entity, crit);
+        resultList = page != null ? page : crit.list();
+    }
+
     @Override
     protected void initialize() {
         // no-op, already initialized
@@ -65,33 +142,83 @@ public class PagedResultList extends grails.gorm.PagedResultList {
     @Override
     public int getTotalCount() {
         if (totalCount == Integer.MIN_VALUE) {
-            totalCount = hibernateTemplate.execute(new GrailsHibernateTemplate.HibernateCallback<Integer>() {
-                public Integer doInHibernate(Session session) throws HibernateException, SQLException {
-                    CriteriaImpl impl = (CriteriaImpl) criteria;
-                    Criteria totalCriteria = session.createCriteria(impl.getEntityOrClassName());
-                    hibernateTemplate.applySettings(totalCriteria);
-
-                    Iterator iterator = impl.iterateExpressionEntries();
-                    while (iterator.hasNext()) {
-                        CriteriaImpl.CriterionEntry entry = (CriteriaImpl.CriterionEntry) iterator.next();
-                        totalCriteria.add(entry.getCriterion());
+            if (totalCountFuture != null) {
+                totalCount = awaitTotalCount();
+            }
+            else {
+                totalCount = hibernateTemplate.execute(new GrailsHibernateTemplate.HibernateCallback<Integer>() {
+                    public Integer doInHibernate(Session session) throws HibernateException, SQLException {
+                        return new CountCriteria((CriteriaImpl) criteria).count(session, hibernateTemplate);
                     }
-                    Iterator subcriteriaIterator = impl.iterateSubcriteria();
-                    while (subcriteriaIterator.hasNext()) {
-                        CriteriaImpl.Subcriteria sub = (CriteriaImpl.Subcriteria) subcriteriaIterator.next();
-                        totalCriteria.createAlias(sub.getPath(), sub.getAlias(), sub.getJoinType(), sub.getWithClause());
-                    }
-                    totalCriteria.setProjection(impl.getProjection());
-                    totalCriteria.setProjection(Projections.rowCount());
-                    return ((Number) totalCriteria.uniqueResult()).intValue();
-                }
-            });
+                });
+            }
+            if (totalCountCache != null) {
+                totalCountCache.put(entity, totalCountKey, totalCount);
+            }
         }
         return totalCount;
     }
 
+    private int awaitTotalCount() {
+        try {
+            return totalCountFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrailsQueryException("Interrupted while waiting for the total count", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GrailsQueryException("Error counting the results", cause);
+        }
+        finally {
+            totalCountFuture = null;
+        }
+    }
+
     public void setTotalCount(int totalCount) {
         this.totalCount = totalCount;
     }
 
+    /**
+     * A copy of the restrictions and joins of a criteria, from which the count query is built
+     */
+    private static final class CountCriteria {
+
+        private final String entityOrClassName;
+
+        private final List<Criterion> restrictions = new ArrayList<>();
+
+        private final List<CriteriaImpl.Subcriteria> subcriteria = new ArrayList<>();
+
+        private CountCriteria(CriteriaImpl impl) {
+            entityOrClassName = impl.getEntityOrClassName();
+            Iterator iterator = impl.iterateExpressionEntries();
+            while (iterator.hasNext()) {
+                restrictions.add(((CriteriaImpl.CriterionEntry) iterator.next()).getCriterion());
+            }
+            Iterator subcriteriaIterator = impl.iterateSubcriteria();
+            while (subcriteriaIterator.hasNext()) {
+                subcriteria.add((CriteriaImpl.Subcriteria) subcriteriaIterator.next());
+            }
+        }
+
+        private int count(Session session, GrailsHibernateTemplate hibernateTemplate) {
+            Criteria totalCriteria = session.createCriteria(entityOrClassName);
+            hibernateTemplate.applySettings(totalCriteria);
+            for (Criterion restriction : restrictions) {
+                totalCriteria.add(restriction);
+            }
+            for (CriteriaImpl.Subcriteria sub : subcriteria) {
+                totalCriteria.createAlias(sub.getPath(), sub.getAlias(), sub.getJoinType(), sub.getWithClause());
+            }
+            totalCriteria.setProjection(Projections.rowCount());
+            return ((Number) totalCriteria.uniqueResult()).intValue();
+        }
+
+    }
+
 }
@@ -1,10 +1,15 @@
 package grails.gorm.hibernate
 
+import java.nio.channels.WritableByteChannel
+import java.util.stream.Stream
+
 import groovy.transform.CompileStatic
 
 import org.grails.datastore.gorm.GormEnhancer
 import org.grails.datastore.gorm.GormEntity
 import org.grails.orm.hibernate.AbstractHibernateGormStaticApi
+import org.grails.orm.hibernate.AsyncHibernateGormStaticApi
+import org.grails.orm.hibernate.BatchSaveResult
 
 /**
  * Extends the {@link GormEntity} trait adding additional Hibernate specific methods
@@ -40,6 +45,8 @@ trait HibernateEntity<D> extends GormEntity<D> {
      * Finds all objects for the given string-based query
      *
      * @param sql The query
+     * @param args The arguments such as resultType ('entity', 'map' or 'scalar'), max and offset.
+     * Rows are returned as maps or scalar values instead of instances with the 'map' and 'scalar' result types
      *
      * @return The object
      */
@@ -57,6 +64,243 @@ trait HibernateEntity<D> extends GormEntity<D> {
         currentHibernateStaticApi().findWithSql(sql, args)
     }
 
+    /**
+     * Streams the results of the given SQL query using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param sql The SQL query
+     * @return A stream of instances
+     */
+    static Stream<D> findAllStreamWithSql(CharSequence sql) {
+        currentHibernateStaticApi().findAllStreamWithSql(sql, Collections.emptyMap())
+    }
+
+    /**
+     * Streams the results of the given SQL query using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param sql The SQL query
+     * @param args The arguments such as resultType ('entity', 'map' or 'scalar'), fetchSize, evictEvery and clearSession
+     * @return A stream of instances, maps or scalar values depending on the result type
+     */
+    static Stream findAllStreamWithSql(CharSequence sql, Map args) {
+        currentHibernateStaticApi().findAllStreamWithSql(sql, args)
+    }
+
+    /**
+     * Streams all instances using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @return A stream of instances
+     */
+    static Stream<D> stream() {
+        currentHibernateStaticApi().stream(Collections.emptyMap())
+    }
+
+    /**
+     * Streams all instances using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param args The query arguments such as sort, order, fetchSize, evictEvery and clearSession
+     * @return A stream of instances
+     */
+    static Stream<D> stream(Map args) {
+        currentHibernateStaticApi().stream(args)
+    }
+
+    /**
+     * Streams the results of the given HQL query using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param query The query
+     * @return A stream of results
+     */
+    static Stream<D> findAllStream(CharSequence query) {
+        currentHibernateStaticApi().findAllStream(query, Collections.emptyMap(), Collections.emptyMap())
+    }
+
+    /**
+     * Streams the results of the given HQL query using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param query The query
+     * @param params The named parameters
+     * @return A stream of results
+     */
+    static Stream<D> findAllStream(CharSequence query, Map params) {
+        currentHibernateStaticApi().findAllStream(query, params, Collections.emptyMap())
+    }
+
+    /**
+     * Streams the results of the given HQL query using a forward-only cursor. The stream should be closed once consumed
+     *
+     * @param query The query
+     * @param params The named parameters
+     * @param args The query arguments such as fetchSize, evictEvery and clearSession
+     * @return A stream of results
+     */
+    static Stream<D> findAllStream(CharSequence query, Map params, Map args) {
+        currentHibernateStaticApi().findAllStream(query, params, args)
+    }
+
+    /**
+     * Finds all instances matching the given criteria as instances of a record or interface, selecting only the
+     * properties it declares without loading entities into the session
+     *
+     * @param projectionType The record or interface
+     * @param criteria The criteria closure
+     * @return The projected results
+     */
+    static <P> List<P> findAll(Class<P> projectionType, Closure criteria) {
+        currentHibernateStaticApi().findAll(projectionType, Collections.emptyMap(), criteria)
+    }
+
+    /**
+     * Finds all instances matching the given criteria as instances of a record or interface, selecting only the
+     * properties it declares without loading entities into the session
+     *
+     * @param projectionType The record or interface
+     * @param args The query arguments such as max, offset, sort and order
+     * @param criteria The criteria closure
+     * @return The projected results
+     */
+    static <P> List<P> findAll(Class<P> projectionType, Map args, Closure criteria) {
+        currentHibernateStaticApi().findAll(projectionType, args, criteria)
+    }
+
+    /**
+     * Lists all instances as instances of a record or interface
+     *
+     * @param projectionType The record or interface
+     * @param args The query arguments such as max, offset, sort and order
+     * @return The projected results
+     */
+    static <P> List<P> findAll(Class<P> projectionType, Map args) {
+        currentHibernateStaticApi().findAll(projectionType, args, null)
+    }
+
+    /**
+     * Executes the given closure with a stateless session, bypassing the first-level cache.
+     * It joins the current transaction or runs in a new one. Only the operations of the stateless session itself
+     * are stateless, GORM methods such as save, list or dynamic finders called within the closure still use the current session
+     *
+     * @param callable The closure, called with the {@link org.hibernate.StatelessSession}
+     * @return The result of the closure
+     */
+    static <T> T withStatelessSession(Closure<T> callable) {
+        currentHibernateStaticApi().withStatelessSession(callable)
+    }
+
+    /**
+     * Executes the given closure in a read-only transaction, which obtains its connection from a replica of the data
+     * source if replicas are configured. A current transaction is joined
+     *
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    static <T> T withReadOnly(Closure<T> callable) {
+        currentHibernateStaticApi().withReadOnly(callable)
+    }
+
+    /**
+     * Saves the given instances in batches, each flushed and written in its own transaction unless a transaction is active
+     *
+     * @param instances The instances
+     * @param args The arguments such as batchSize, validate, failOnError and clearSession
+     * @return The result, reporting the instances that failed validation and the batches that failed to be written
+     */
+    static BatchSaveResult saveAll(Iterable<D> instances, Map args) {
+        currentHibernateStaticApi().saveAll(instances, args)
+    }
+
+    /**
+     * Inserts the given instances in batches, each flushed and written in its own transaction unless a transaction is active
+     *
+     * @param instances The instances
+     * @return The result, reporting the instances that failed validation and the batches that failed to be written
+     */
+    static BatchSaveResult insertAll(Iterable<D> instances) {
+        currentHibernateStaticApi().insertAll(instances, Collections.emptyMap())
+    }
+
+    /**
+     * Inserts the given instances in batches, each flushed and written in its own transaction unless a transaction is active
+     *
+     * @param instances The instances
+     * @param args The arguments such as batchSize, validate, failOnError and clearSession
+     * @return The result, reporting the instances that failed validation and the batches that failed to be written
+     */
+    static BatchSaveResult insertAll(Iterable<D> instances, Map args) {
+        currentHibernateStaticApi().insertAll(instances, args)
+    }
+
+    /**
+     * Writes all instances to the output stream as CSV or JSON Lines while they are read from a cursor
+     *
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, sort, order, max and fetchSize
+     * @param out The output stream, which is flushed but not closed
+     * @return The number of rows written
+     */
+    static long exportAll(Map args, OutputStream out) {
+        currentHibernateStaticApi().exportAll(args, out, null)
+    }
+
+    /**
+     * Writes the instances matching the given criteria, or the projected values, to the output stream as CSV or JSON Lines
+     * while they are read from a cursor
+     *
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, sort, order, max and fetchSize
+     * @param out The output stream, which is flushed but not closed
+     * @param criteria The criteria closure
+     * @return The number of rows written
+     */
+    static long exportAll(Map args, OutputStream out, Closure criteria) {
+        currentHibernateStaticApi().exportAll(args, out, criteria)
+    }
+
+    /**
+     * Writes the instances matching the given criteria, or the projected values, to the channel as CSV or JSON Lines
+     * while they are read from a cursor
+     *
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, sort, order, max and fetchSize
+     * @param channel The channel, which is not closed
+     * @param criteria The criteria closure
+     * @return The number of rows written
+     */
+    static long exportAll(Map args, WritableByteChannel channel, Closure criteria) {
+        currentHibernateStaticApi().exportAll(args, channel, criteria)
+    }
+
+    /**
+     * Writes the results of the given HQL query to the output stream as CSV or JSON Lines while they are read from a cursor
+     *
+     * @param query The HQL query
+     * @param params The named parameters
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, max and fetchSize
+     * @param out The output stream, which is flushed but not closed
+     * @return The number of rows written
+     */
+    static long exportAll(CharSequence query, Map params, Map args, OutputStream out) {
+        currentHibernateStaticApi().exportAll(query, params, args, out)
+    }
+
+    /**
+     * Writes the results of the given HQL query to the channel as CSV or JSON Lines while they are read from a cursor
+     *
+     * @param query The HQL query
+     * @param params The named parameters
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, max and fetchSize
+     * @param channel The channel, which is not closed
+     * @return The number of rows written
+     */
+    static long exportAll(CharSequence query, Map params, Map args, WritableByteChannel channel) {
+        currentHibernateStaticApi().exportAll(query, params, args, channel)
+    }
+
+    /**
+     * The async namespace, for example {@code Book.async.findAllByAuthor(author)}. Each method runs in its own session
+     * and transaction on the asynchronous executor of the datastore and returns a {@link java.util.concurrent.CompletableFuture}
+     *
+     * @return The async namespace
+     */
+    static AsyncHibernateGormStaticApi<D> getAsync() {
+        currentHibernateStaticApi().getAsync()
+    }
+
     private static AbstractHibernateGormStaticApi currentHibernateStaticApi() {
         (AbstractHibernateGormStaticApi) GormEnhancer.findStaticApi(this)
     }
@@ -18,17 +18,29 @@ package org.grails.orm.hibernate;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.annotation.PreDestroy;
 import javax.sql.DataSource;
 
 import groovy.lang.Closure;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -36,8 +48,15 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceAware;
 import org.springframework.core.env.PropertyResolver;
+import org.springframework.orm.hibernate5.SessionFactoryUtils;
+import org.springframework.orm.hibernate5.SessionHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import grails.gorm.multitenancy.Tenants;
+import grails.gorm.transactions.GrailsTransactionTemplate;
 
 import org.grails.datastore.gorm.events.AutoTimestampEventListener;
 import org.grails.datastore.gorm.jdbc.schema.DefaultSchemaHandler;
@@ -65,6 +84,8 @@ import org.grails.orm.hibernate.cfg.HibernateMappingContext;
 import org.grails.orm.hibernate.connections.HibernateConnectionSource;
 import org.grails.orm.hibernate.connections.HibernateConnectionSourceSettings;
 import org.grails.orm.hibernate.event.listener.AbstractHibernateEventListener;
+import org.grails.orm.hibernate.query.QueryTemplateCache;
+import org.grails.orm.hibernate.query.TotalCountCache;
 
 /**
  * Datastore implementation that uses a Hibernate SessionFactory underneath.
@@ -78,6 +99,8 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
 
     public static final String CONFIG_PROPERTY_OSIV_READONLY = "grails.hibernate.osiv.readonly";
 
+    public static final String CONFIG_PROPERTY_OSIV_LAZY = "grails.hibernate.osiv.lazy";
+
     public static final String CONFIG_PROPERTY_PASS_READONLY_TO_HIBERNATE = "grails.hibernate.pass.readonly";
 
     protected final SessionFactory sessionFactory;
@@ -96,6 +119,8 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
 
     protected final boolean osivReadOnly;
 
+    protected final boolean osivLazy;
+
     protected final boolean passReadOnlyToHibernate;
 
     protected final boolean isCacheQueries;
@@ -106,12 +131,42 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
 
     protected final boolean markDirty;
 
+    protected final int multiLoadBatchSize;
+
+    protected final boolean multiLoadCacheFirst;
+
+    protected final boolean windowCount;
+
+    protected final boolean asyncCount;
+
+    protected final int countPoolSize;
+
+    protected final TotalCountCache totalCountCache;
+
+    protected final QueryTemplateCache<String> queryTemplateCache;
+
+    protected final boolean criteriaTemplates;
+
+    protected final boolean asyncVirtualThreads;
+
+    protected final int asyncPoolSize;
+
     protected final String dataSourceName;
 
     protected final TenantResolver tenantResolver;
 
     private boolean destroyed;
 
+    private ExecutorService countExecutor;
+
+    private ExecutorService createdAsyncExecutor;
+
+    private Executor asyncExecutor;
+
+    private ExecutorService fanOutExecutor;
+
+    private final SessionBindingContext sessionBindingContext = new DefaultSessionBindingContext();
+
     protected AbstractHibernateDatastore(ConnectionSources<SessionFactory, HibernateConnectionSourceSettings> connectionSources, HibernateMappingContext mappingContext) {
         super(mappingContext, connectionSources.getBaseConfiguration(), null);
         this.connectionSources = connectionSources;
@@ -121,8 +176,21 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         HibernateConnectionSourceSettings settings = defaultConnectionSource.getSettings();
         HibernateConnectionSourceSettings.HibernateSettings hibernateSettings = settings.getHibernate();
         this.osivReadOnly = hibernateSettings.getOsiv().isReadonly();
+        this.osivLazy = hibernateSettings.getOsiv().isLazy();
         this.passReadOnlyToHibernate = hibernateSettings.isReadOnly();
         this.isCacheQueries = hibernateSettings.getCache().isQueries();
+        this.multiLoadBatchSize = hibernateSettings.getMultiLoad().getBatchSize();
+        this.multiLoadCacheFirst = hibernateSettings.getMultiLoad().isCacheFirst();
+        this.windowCount = hibernateSettings.getPagination().isWindowCount();
+        this.asyncCount = hibernateSettings.getPagination().isAsyncCount();
+        this.countPoolSize = hibernateSettings.getPagination().getCountPoolSize();
+        long countCacheTtl = hibernateSettings.getPagination().getCountCacheTtl();
+        this.totalCountCache = countCacheTtl > 0 ? new TotalCountCache(countCacheTtl) : null;
+        HibernateConnectionSourceSettings.HibernateSettings.QueryTemplateSettings queryTemplateSettings = hibernateSettings.getQueryTemplates();
+        this.queryTemplateCache = queryTemplateSettings.isEnabled() ? new QueryTemplateCache<>(queryTemplateSettings.getMaxPerEntity()) : null;
+        this.criteriaTemplates = queryTemplateSettings.isCriteria();
+        this.asyncVirtualThreads = hibernateSettings.getAsync().isVirtualThreads();
+        this.asyncPoolSize = hibernateSettings.getAsync().getPoolSize();
         this.failOnError = settings.isFailOnError();
         Boolean markDirty = settings.getMarkDirty();
         this.markDirty = markDirty == null ? false : markDirty;
@@ -153,8 +221,23 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         }
 
         osivReadOnly = config.getProperty(CONFIG_PROPERTY_OSIV_READONLY, Boolean.class, false);
+        osivLazy = config.getProperty(CONFIG_PROPERTY_OSIV_LAZY, Boolean.class, false);
         passReadOnlyToHibernate = config.getProperty(CONFIG_PROPERTY_PASS_READONLY_TO_HIBERNATE, Boolean.class, false);
         isCacheQueries = config.getProperty(CONFIG_PROPERTY_CACHE_QUERIES, Boolean.class, false);
+        HibernateConnectionSourceSettings.HibernateSettings.MultiLoadSettings multiLoadSettings = new HibernateConnectionSourceSettings.HibernateSettings.MultiLoadSettings();
+        multiLoadBatchSize = multiLoadSettings.getBatchSize();
+        multiLoadCacheFirst = multiLoadSettings.isCacheFirst();
+        HibernateConnectionSourceSettings.HibernateSettings.PaginationSettings paginationSettings = new HibernateConnectionSourceSettings.HibernateSettings.PaginationSettings();
+        windowCount = paginationSettings.isWindowCount();
+        asyncCount = paginationSettings.isAsyncCount();
+        countPoolSize = paginationSettings.getCountPoolSize();
+        totalCountCache = null;
+        HibernateConnectionSourceSettings.HibernateSettings.QueryTemplateSettings queryTemplateSettings = new HibernateConnectionSourceSettings.HibernateSettings.QueryTemplateSettings();
+        queryTemplateCache = new QueryTemplateCache<>(queryTemplateSettings.getMaxPerEntity());
+        criteriaTemplates = queryTemplateSettings.isCriteria();
+        HibernateConnectionSourceSettings.HibernateSettings.AsyncSettings asyncSettings = new HibernateConnectionSourceSettings.HibernateSettings.AsyncSettings();
+        asyncVirtualThreads = asyncSettings.isVirtualThreads();
+        asyncPoolSize = asyncSettings.getPoolSize();
 
         if (config.getProperty(SETTING_AUTO_FLUSH, Boolean.class, false)) {
             this.defaultFlushModeName = FlushMode.AUTO.name();
@@ -269,6 +352,20 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         return osivReadOnly;
     }
 
+    /**
+     * @return Whether the session of a request or job is only opened when it is first used
+     */
+    public boolean isOsivLazy() {
+        return osivLazy;
+    }
+
+    /**
+     * @return Whether read-only transactions are routed to replicas of the data source
+     */
+    public boolean isReplicated() {
+        return ((HibernateConnectionSource) connectionSources.getDefaultConnectionSource()).getReplicaRoutingDataSource() != null;
+    }
+
     public boolean isPassReadOnlyToHibernate() {
         return passReadOnlyToHibernate;
     }
@@ -277,6 +374,163 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         return isCacheQueries;
     }
 
+    /**
+     * @return The maximum number of ids loaded with a single query by getAll(..)
+     */
+    public int getMultiLoadBatchSize() {
+        return multiLoadBatchSize;
+    }
+
+    /**
+     * @return Whether getAll(..) resolves ids from the session and second-level cache first
+     */
+    public boolean isMultiLoadCacheFirst() {
+        return multiLoadCacheFirst;
+    }
+
+    /**
+     * @return Whether paginated queries obtain the total count with a window function in the same query, where the dialect supports it
+     */
+    public boolean isWindowCount() {
+        return windowCount;
+    }
+
+    /**
+     * @return Whether the total count of paginated queries is obtained in parallel on a separate session
+     */
+    public boolean isAsyncCount() {
+        return asyncCount;
+    }
+
+    /**
+     * @return The cache of total counts or null if counts are not cached
+     */
+    public TotalCountCache getTotalCountCache() {
+        return totalCountCache;
+    }
+
+    /**
+     * @return The cache of the compiled HQL templates of findWhere(..), findAllWhere(..) and Query API queries or null if they are not compiled
+     */
+    public QueryTemplateCache<String> getQueryTemplateCache() {
+        return queryTemplateCache;
+    }
+
+    /**
+     * @return Whether queries built with the Query API are executed as cached HQL templates where possible
+     */
+    public boolean isCriteriaTemplates() {
+        return queryTemplateCache != null && criteriaTemplates;
+    }
+
+    /**
+     * @return The maximum number of count queries run in parallel when {@link #isAsyncCount()} is enabled
+     */
+    public int getCountPoolSize() {
+        return countPoolSize;
+    }
+
+    /**
+     * @return The executor that runs the count queries of paginated queries when {@link #isAsyncCount()} is enabled.
+     * It runs at most {@link #getCountPoolSize()} count queries in parallel, so that they cannot exhaust the connection pool,
+     * and runs any further count query on the calling thread
+     */
+    public synchronized ExecutorService getCountExecutor() {
+        if (countExecutor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gorm-count-" + dataSourceName + "-");
+            threadFactory.setDaemon(true);
+            int poolSize = Math.max(1, countPoolSize);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            countExecutor = executor;
+        }
+        return countExecutor;
+    }
+
+    /**
+     * @return The number of platform threads used for asynchronous tasks if virtual threads are not used, or 0 for the number of processors
+     */
+    public int getAsyncPoolSize() {
+        return asyncPoolSize;
+    }
+
+    /**
+     * @return The executor that runs the tasks submitted with {@link #async(Closure)}
+     */
+    public synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            createdAsyncExecutor = createAsyncExecutor();
+            asyncExecutor = createdAsyncExecutor;
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the executor that runs the tasks submitted with {@link #async(Closure)}. The executor is not shut down
+     * when the datastore is destroyed
+     *
+     * @param asyncExecutor The executor
+     */
+    public synchronized void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Creates the executor of asynchronous tasks. Virtual threads are used if enabled and supported by the JVM,
+     * otherwise a fixed pool of daemon threads
+     *
+     * @return The executor
+     */
+    protected ExecutorService createAsyncExecutor() {
+        ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+        if (virtualThreadExecutor != null) {
+            return virtualThreadExecutor;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gorm-async-" + dataSourceName + "-");
+        threadFactory.setDaemon(true);
+        int poolSize = asyncPoolSize > 0 ? asyncPoolSize : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(poolSize, threadFactory);
+    }
+
+    /**
+     * @return The executor that runs the queries of a fan-out across connection sources. It is separate from the
+     * {@link #getAsyncExecutor() asynchronous executor}, since a fan-out called from an asynchronous task blocks its
+     * thread until the queries complete, which could otherwise wait for threads of an exhausted pool forever
+     */
+    public synchronized ExecutorService getFanOutExecutor() {
+        if (fanOutExecutor == null) {
+            ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                fanOutExecutor = virtualThreadExecutor;
+            }
+            else {
+                // the number of queries running at once is bounded by each fan-out
+                CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gorm-fan-out-" + dataSourceName + "-");
+                threadFactory.setDaemon(true);
+                fanOutExecutor = Executors.newCachedThreadPool(threadFactory);
+            }
+        }
+        return fanOutExecutor;
+    }
+
+    /**
+     * @return An executor that runs each task on its own virtual thread, or null if virtual threads are disabled
+     * or not supported by the JVM
+     */
+    private ExecutorService createVirtualThreadExecutor() {
+        if (asyncVirtualThreads) {
+            try {
+                Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factoryMethod.invoke(null);
+            }
+            catch (ReflectiveOperationException e) {
+                LOG.debug("Virtual threads are not supported, asynchronous tasks run on platform threads");
+            }
+        }
+        return null;
+    }
+
     /**
      * @return The Hibernate {@link SessionFactory} being used by this datastore instance
      */
@@ -345,6 +599,17 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         if (!this.destroyed) {
             super.destroy();
             AbstractHibernateGormInstanceApi.resetInsertActive();
+            synchronized (this) {
+                if (countExecutor != null) {
+                    countExecutor.shutdownNow();
+                }
+                if (createdAsyncExecutor != null) {
+                    createdAsyncExecutor.shutdownNow();
+                }
+                if (fanOutExecutor != null) {
+                    fanOutExecutor.shutdownNow();
+                }
+            }
             try {
                 connectionSources.close();
             }
@@ -394,6 +659,172 @@ public abstract class AbstractHibernateDatastore extends AbstractDatastore imple
         return getHibernateTemplate().executeWithNewSession(multiTenantCallable);
     }
 
+    /**
+     * Executes the given closure with a {@link StatelessSession}, which has no persistence context, snapshots or events.
+     * The stateless session shares the connection of the current transaction, if there is one, after the current session
+     * has been flushed. Otherwise it runs in its own transaction that is committed when the closure completes.
+     * The stateless session is not bound as the current session, so GORM methods called within the closure still
+     * use the current session. Note that the tenant filter of discriminator multi-tenancy cannot be enabled on a
+     * stateless session
+     *
+     * @param callable The closure, called with the stateless session
+     * @return The result of the closure
+     */
+    public <T> T withStatelessSession(final Closure<T> callable) {
+        SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(sessionFactory);
+        if (sessionHolder != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            Session session = sessionHolder.getSession();
+            if (session.getHibernateFlushMode() != org.hibernate.FlushMode.MANUAL) {
+                session.flush();
+            }
+            StatelessSession statelessSession = sessionFactory.openStatelessSession(((SessionImplementor) session).connection());
+            try {
+                return callable.call(statelessSession);
+            }
+            catch (HibernateException e) {
+                throw SessionFactoryUtils.convertHibernateAccessException(e);
+            }
+            finally {
+                statelessSession.close();
+            }
+        }
+
+        StatelessSession statelessSession = sessionFactory.openStatelessSession();
+        Transaction transaction = null;
+        try {
+            transaction = statelessSession.beginTransaction();
+            T result = callable.call(statelessSession);
+            transaction.commit();
+            return result;
+        }
+        catch (RuntimeException | Error e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            if (e instanceof HibernateException) {
+                throw SessionFactoryUtils.convertHibernateAccessException((HibernateException) e);
+            }
+            throw e;
+        }
+        finally {
+            statelessSession.close();
+        }
+    }
+
+    /**
+     * Executes the given closure with a {@link StatelessSession} of the datastore of the given tenant. With schema
+     * multi-tenancy the datastore of the tenant obtains its connections with the schema of the tenant applied
+     *
+     * @see #withStatelessSession(Closure)
+     */
+    public <T> T withStatelessSession(Serializable tenantId, final Closure<T> callable) {
+        AbstractHibernateDatastore tenantDatastore = getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DATABASE ?
+                getDatastoreForConnection(tenantId.toString()) : this;
+        return tenantDatastore.withStatelessSession(callable);
+    }
+
+    /**
+     * Wraps the given task so that it runs with a session of this datastore when it is executed by another thread.
+     * The session is bound with the {@link #getSessionBindingContext() session binding context} for the duration of the
+     * task only, and whatever was bound before is restored afterwards, so that pooled and virtual threads neither keep
+     * nor share sessions by accident
+     *
+     * @param task The task
+     * @param propagation Whether the task inherits the session bound to the current thread or uses its own session.
+     * A task inheriting from a thread without a session uses its own session
+     * @return The wrapped task
+     * @throws IllegalStateException If the task inherits the session of a thread with an active transaction
+     */
+    public <T> Callable<T> propagateSession(final Callable<T> task, SessionPropagation propagation) {
+        final SessionBindingContext bindingContext = this.sessionBindingContext;
+        final SessionHolder inherited = propagation == SessionPropagation.INHERIT ? bindingContext.getSessionHolder(sessionFactory) : null;
+        if (inherited != null && bindingContext.isTransactionActive()) {
+            // the transaction could complete, and release the connection of the session, while the task still uses it
+            throw new IllegalStateException("A task cannot inherit the session of a thread with an active transaction. " +
+                    "Use SessionPropagation.ISOLATE or create the task outside of the transaction.");
+        }
+        return () -> {
+            SessionHolder holder = inherited != null ? inherited : new LazySessionHolder(this::openSession);
+            try {
+                return bindingContext.callWithSessionHolder(sessionFactory, holder, task);
+            }
+            finally {
+                if (holder != inherited && ((LazySessionHolder) holder).isSessionOpened()) {
+                    SessionFactoryUtils.closeSession(holder.getSession());
+                }
+            }
+        };
+    }
+
+    /**
+     * @return The context that binds the sessions of tasks wrapped by {@link #propagateSession(Callable, SessionPropagation)},
+     * which binds them to the current thread where the current session is looked up
+     */
+    public SessionBindingContext getSessionBindingContext() {
+        return sessionBindingContext;
+    }
+
+    /**
+     * Executes the given closure in a read-only transaction, which obtains its connection from a replica of the data
+     * source if replicas are configured. A current transaction is joined, so within a read-write transaction the closure
+     * reads from the primary. The transaction is run like {@code withTransaction(readOnly: true)} of a domain class, so the
+     * closure is called with the transaction status and the transaction is rolled back on any exception
+     *
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    public <T> T withReadOnly(final Closure<T> callable) {
+        DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+        transactionDefinition.setReadOnly(true);
+        return new GrailsTransactionTemplate(getTransactionManager(), transactionDefinition).execute(callable);
+    }
+
+    /**
+     * Executes the given closure on the {@link #getAsyncExecutor() asynchronous executor}. Each task opens its own session
+     * and transaction, which are committed and closed when the closure completes or rolled back if it fails.
+     * The current tenant is propagated to the task
+     *
+     * @param callable The closure
+     * @return A future completed with the result of the closure
+     */
+    public <T> CompletableFuture<T> async(final Closure<T> callable) {
+        final Serializable tenantId = resolveAsyncTenantId();
+        return CompletableFuture.supplyAsync(() -> executeAsync(tenantId, callable), getAsyncExecutor());
+    }
+
+    /**
+     * Executes an asynchronous task in a new transaction, using the datastore of the given tenant if there is one
+     *
+     * @param tenantId The tenant captured when the task was submitted or null
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    protected <T> T executeAsync(Serializable tenantId, final Closure<T> callable) {
+        if (tenantId == null) {
+            return new TransactionTemplate(getTransactionManager()).execute(status -> callable.call());
+        }
+        final AbstractHibernateDatastore tenantDatastore = getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DATABASE ?
+                getDatastoreForConnection(tenantId.toString()) : this;
+        return Tenants.withId(this, tenantId, new Closure<T>(this) {
+            @Override
+            public T call(Object... args) {
+                return new TransactionTemplate(tenantDatastore.getTransactionManager()).execute(status -> callable.call());
+            }
+        });
+    }
+
+    private Serializable resolveAsyncTenantId() {
+        if (multiTenantMode == MultiTenancySettings.MultiTenancyMode.NONE) {
+            return null;
+        }
+        try {
+            return Tenants.currentId(this);
+        }
+        catch (TenantNotFoundException e) {
+            return null;
+        }
+    }
+
     @Override
     public <T1> T1 withNewSession(Serializable tenantId, Closure<T1> callable) {
         if (getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DATABASE) {
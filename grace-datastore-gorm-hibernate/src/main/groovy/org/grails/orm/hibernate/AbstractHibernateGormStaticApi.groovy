@@ -15,6 +15,10 @@
  */
 package org.grails.orm.hibernate
 
+import java.nio.channels.Channels
+import java.nio.channels.WritableByteChannel
+import java.util.stream.Stream
+
 import jakarta.persistence.criteria.CriteriaBuilder
 import jakarta.persistence.criteria.CriteriaQuery
 import jakarta.persistence.criteria.Expression
@@ -24,26 +28,62 @@ import groovy.transform.CompileDynamic
 import groovy.transform.CompileStatic
 import org.hibernate.Criteria
 import org.hibernate.FlushMode
+import org.hibernate.LockMode
+import org.hibernate.ScrollableResults
 import org.hibernate.Session
+import org.hibernate.cache.spi.access.EntityDataAccess
+import org.hibernate.cache.spi.entry.CacheEntry
 import org.hibernate.criterion.Example
+import org.hibernate.criterion.Order
 import org.hibernate.criterion.Restrictions
+import org.hibernate.engine.internal.CacheHelper
+import org.hibernate.engine.spi.EntityKey
+import org.hibernate.engine.spi.SessionFactoryImplementor
+import org.hibernate.engine.spi.SessionImplementor
 import org.hibernate.jpa.QueryHints
+import org.hibernate.persister.entity.EntityPersister
 import org.hibernate.query.NativeQuery
 import org.hibernate.query.Query
 import org.hibernate.transform.DistinctRootEntityResultTransformer
 import org.springframework.core.convert.ConversionService
+import org.springframework.orm.hibernate5.SessionHolder
 import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.validation.Errors
+import org.springframework.validation.Validator
+
+import grails.gorm.multitenancy.Tenants
+import grails.gorm.validation.CascadingValidator
 
 import org.grails.datastore.gorm.GormStaticApi
+import org.grails.datastore.gorm.GormValidateable
 import org.grails.datastore.gorm.finders.DynamicFinder
 import org.grails.datastore.gorm.finders.FinderMethod
+import org.grails.datastore.mapping.core.connections.ConnectionSource
+import org.grails.datastore.mapping.engine.event.ValidationEvent
+import org.grails.datastore.mapping.model.PersistentProperty
+import org.grails.datastore.mapping.model.types.Association
+import org.grails.datastore.mapping.model.types.Embedded
+import org.grails.datastore.mapping.model.types.ToOne
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.MultiTenantCapableDatastore
 import org.grails.datastore.mapping.proxy.ProxyHandler
 import org.grails.datastore.mapping.reflect.ClassUtils
+import org.grails.datastore.mapping.reflect.EntityReflector
+import org.grails.datastore.mapping.validation.ValidationException
 import org.grails.orm.hibernate.cfg.AbstractGrailsDomainBinder
 import org.grails.orm.hibernate.cfg.CompositeIdentity
+import org.grails.orm.hibernate.cfg.EntityQueryDefaults
 import org.grails.orm.hibernate.exceptions.GrailsQueryException
+import org.grails.orm.hibernate.query.ColumnMapResultTransformer
+import org.grails.orm.hibernate.query.GStringQueryTranslator
 import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils
 import org.grails.orm.hibernate.query.HibernateHqlQuery
+import org.grails.orm.hibernate.query.HibernateQueryConstants
+import org.grails.orm.hibernate.query.ProjectionResultTransformer
+import org.grails.orm.hibernate.query.QueryTemplateCache
+import org.grails.orm.hibernate.query.ResultExporter
+import org.grails.orm.hibernate.query.ScrollableResultsSpliterator
 import org.grails.orm.hibernate.support.HibernateRuntimeUtils
 
 /**
@@ -55,6 +95,13 @@ import org.grails.orm.hibernate.support.HibernateRuntimeUtils
 @CompileStatic
 abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
 
+    protected static final String WHERE_QUERY_ALIAS = 'e'
+    protected static final String WHERE_QUERY_PARAMETER = 'p'
+    protected static final int DEFAULT_BATCH_SIZE = 50
+    protected static final String ARGUMENT_VALIDATE = 'validate'
+    protected static final String ARGUMENT_DEEP_VALIDATE = 'deepValidate'
+    protected static final String ARGUMENT_FAIL_ON_ERROR = 'failOnError'
+
     protected ProxyHandler proxyHandler
     protected GrailsHibernateTemplate hibernateTemplate
     protected ConversionService conversionService
@@ -99,6 +146,45 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
         hibernateDatastore.withSession(callable)
     }
 
+    /**
+     * Executes the given closure with a stateless session that bypasses the persistence context. GORM methods
+     * called within the closure still use the current session
+     *
+     * @param callable The closure, called with the {@link org.hibernate.StatelessSession}
+     * @return The result of the closure
+     * @see AbstractHibernateDatastore#withStatelessSession(Closure)
+     */
+    <T> T withStatelessSession(Closure<T> callable) {
+        AbstractHibernateDatastore hibernateDatastore = (AbstractHibernateDatastore) datastore
+        if (persistentEntity.isMultiTenant()) {
+            Serializable tenantId = Tenants.currentId((MultiTenantCapableDatastore) datastore)
+            if (isDiscriminatorMultiTenancy() && ConnectionSource.DEFAULT != tenantId) {
+                throw new UnsupportedOperationException("A stateless session cannot apply the tenant filter of multi-tenant entity [${persistentEntity.name}]. Use a regular session or the default tenant.")
+            }
+            return hibernateDatastore.withStatelessSession(tenantId, callable)
+        }
+        hibernateDatastore.withStatelessSession(callable)
+    }
+
+    /**
+     * Executes the given closure in a read-only transaction, which is routed to a replica of the data source if replicas
+     * are configured. A current transaction is joined
+     *
+     * @param callable The closure
+     * @return The result of the closure
+     * @see AbstractHibernateDatastore#withReadOnly(Closure)
+     */
+    <T> T withReadOnly(Closure<T> callable) {
+        withTransaction([readOnly: true], callable)
+    }
+
+
+    /**
+     * @return The async namespace, which executes the static methods of the domain class asynchronously
+     */
+    AsyncHibernateGormStaticApi<D> getAsync() {
+        new AsyncHibernateGormStaticApi<D>(persistentClass, (AbstractHibernateDatastore) datastore)
+    }
 
     @Override
     D get(Serializable id) {
@@ -112,7 +198,13 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
             return null
         }
 
-        if (persistentEntity.isMultiTenant()) {
+        if (persistentEntity.isMultiTenant() && isDiscriminatorMultiTenancy()) {
+            // the tenant filter does not apply to lookups by id, so the tenant is verified before an instance is loaded
+            return (D) hibernateTemplate.execute({ Session session ->
+                return getForCurrentTenant(session, id, false)
+            })
+        }
+        else if (persistentEntity.isMultiTenant()) {
             // for multi-tenant entities we process get(..) via a query
 
             (D) hibernateTemplate.execute({ Session session ->
@@ -149,6 +241,29 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
             return null
         }
 
+        if (!TransactionSynchronizationManager.isActualTransactionActive() && ((AbstractHibernateDatastore) datastore).isReplicated()) {
+            // read in a read-only transaction, whose connection is obtained from a replica
+            Serializable readId = id
+            return (D) withReadOnly { read(readId) }
+        }
+
+        if (persistentEntity.isMultiTenant() && !isDiscriminatorMultiTenancy()) {
+            return readWithQuery(id)
+        }
+
+        // resolved via the session and the second level cache, newly loaded instances are read-only without a snapshot
+        (D) hibernateTemplate.execute({ Session session ->
+            return persistentEntity.isMultiTenant() ? getForCurrentTenant(session, id, true) : getFromSession(session, id, true)
+        })
+    }
+
+    /**
+     * Reads an instance with a read-only query, used for multi-tenant entities that are not resolvable by id alone
+     *
+     * @param id The identifier
+     * @return The instance or null if it does not exist
+     */
+    protected D readWithQuery(Serializable id) {
         (D) hibernateTemplate.execute({ Session session ->
             CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
             CriteriaQuery criteriaQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
@@ -359,27 +474,7 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
     <D> D findWithSql(CharSequence sql, Map args = Collections.emptyMap()) {
         IHibernateTemplate template = hibernateTemplate
         return (D) template.execute { Session session ->
-
-            List params = []
-            if (sql instanceof GString) {
-                sql = buildOrdinalParameterQueryFromGString((GString) sql, params)
-            }
-
-            NativeQuery q = (NativeQuery) session.createNativeQuery(sql.toString())
-
-            template.applySettings(q)
-
-            params.eachWithIndex { val, int i ->
-                i++
-                if (val instanceof CharSequence) {
-                    q.setParameter i, val.toString()
-                }
-                else {
-                    q.setParameter i, val
-                }
-            }
-            q.addEntity(persistentClass)
-            populateQueryArguments(q, args)
+            NativeQuery q = createNativeSqlQuery(session, sql, args)
             q.setMaxResults(1)
             def results = createHqlQuery(session, q).list()
             if (results.isEmpty()) {
@@ -392,10 +487,12 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
     }
 
     /**
-     * Finds all results for this entity for the given SQL query
+     * Finds all results for this entity for the given SQL query. The resultType argument selects whether the rows are
+     * returned as instances of the entity ('entity', the default), as maps of column labels to values ('map'),
+     * or as the scalar values of their columns ('scalar'), an array per row unless a single column is selected
      *
      * @param sql The SQL query
-     * @param args The arguments
+     * @param args The arguments such as resultType, max, offset, fetchSize and timeout
      * @return All entities matching the SQL query
      */
     @CompileDynamic
@@ -403,28 +500,558 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
     List<D> findAllWithSql(CharSequence sql, Map args = Collections.emptyMap()) {
         IHibernateTemplate template = hibernateTemplate
         return (List<D>) template.execute { Session session ->
+            NativeQuery q = createNativeSqlQuery(session, sql, args)
+            return createHqlQuery(session, q).list()
+        }
+    }
 
-            List params = []
-            if (sql instanceof GString) {
-                sql = buildOrdinalParameterQueryFromGString((GString) sql, params)
+    /**
+     * Streams the results of the given SQL query using a forward-only cursor. The stream has to be consumed and closed
+     * while the current session is open
+     *
+     * @param sql The SQL query
+     * @param args The arguments such as resultType, max, offset, fetchSize, evictEvery and clearSession
+     * @return A stream that closes the cursor when it is closed
+     * @see #findAllWithSql(CharSequence, Map)
+     */
+    Stream findAllStreamWithSql(CharSequence sql, Map args = Collections.emptyMap()) {
+        Map queryArgs = new LinkedHashMap(args)
+        return (Stream) hibernateTemplate.execute { Session session ->
+            NativeQuery q = createNativeSqlQuery(session, sql, queryArgs)
+            if (q.getFetchSize() == null) {
+                q.setFetchSize(ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE)
             }
+            scroll(session, q, queryArgs)
+        }
+    }
 
-            NativeQuery q = (NativeQuery) session.createNativeQuery(sql.toString())
+    /**
+     * Creates a native query for the given SQL, binding the values of a GString as ordinal parameters
+     *
+     * @param session The session
+     * @param sql The SQL query
+     * @param args The arguments
+     * @return The query
+     */
+    @CompileDynamic
+    protected NativeQuery createNativeSqlQuery(Session session, CharSequence sql, Map args) {
+        List params = []
+        if (sql instanceof GString) {
+            sql = buildOrdinalParameterQueryFromGString((GString) sql, params)
+        }
 
+        NativeQuery q = (NativeQuery) session.createNativeQuery(sql.toString())
+
+        hibernateTemplate.applySettings(q)
+
+        params.eachWithIndex { val, int i ->
+            i++
+            if (val instanceof CharSequence) {
+                q.setParameter i, val.toString()
+            }
+            else {
+                q.setParameter i, val
+            }
+        }
+        Map queryArgs = new LinkedHashMap(args)
+        String resultType = queryArgs.remove(HibernateQueryConstants.ARGUMENT_RESULT_TYPE)?.toString() ?: HibernateQueryConstants.RESULT_TYPE_ENTITY
+        switch (resultType) {
+            case HibernateQueryConstants.RESULT_TYPE_ENTITY:
+                q.addEntity(persistentClass)
+                break
+            case HibernateQueryConstants.RESULT_TYPE_MAP:
+                q.setResultTransformer(ColumnMapResultTransformer.INSTANCE)
+                break
+            case HibernateQueryConstants.RESULT_TYPE_SCALAR:
+                break
+            default:
+                throw new GrailsQueryException("Unsupported result type [$resultType], use 'entity', 'map' or 'scalar'")
+        }
+        populateQueryArguments(q, queryArgs)
+        q
+    }
+
+    /**
+     * Streams all instances using a forward-only cursor. The stream has to be consumed and closed while the current session is open
+     *
+     * @param params The query arguments such as sort, order, max, offset, fetchSize, evictEvery and clearSession
+     * @return A stream that closes the cursor when it is closed
+     */
+    Stream<D> stream(Map params = Collections.emptyMap()) {
+        Map args = params ? new LinkedHashMap(params) : new LinkedHashMap()
+        (Stream<D>) hibernateTemplate.execute { Session session ->
+            CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
+            CriteriaQuery criteriaQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+            Root queryRoot = criteriaQuery.from(persistentEntity.javaClass)
+            GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, criteriaQuery, queryRoot, criteriaBuilder, args, conversionService, true)
+            Query q = session.createQuery(criteriaQuery)
+            hibernateTemplate.applySettings(q)
+            q.setFetchSize(ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE)
+            GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, q, args, conversionService, true)
+            scroll(session, q, args)
+        }
+    }
+
+    /**
+     * Streams the results of the given HQL query using a forward-only cursor. The stream has to be consumed and closed while the current session is open
+     *
+     * @param query The HQL query
+     * @param params The named parameters
+     * @param args The query arguments such as max, offset, fetchSize, evictEvery and clearSession
+     * @return A stream that closes the cursor when it is closed
+     */
+    Stream<D> findAllStream(CharSequence query, Map params = Collections.emptyMap(), Map args = Collections.emptyMap()) {
+        params = new LinkedHashMap(params)
+        args = new LinkedHashMap(args)
+        if (query instanceof GString) {
+            query = buildNamedParameterQueryFromGString((GString) query, params)
+        }
+
+        String queryString = normalizeMultiLineQueryString(query.toString())
+        def template = hibernateTemplate
+        return (Stream<D>) template.execute { Session session ->
+            Query q = (Query) session.createQuery(queryString)
             template.applySettings(q)
+            q.setFetchSize(ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE)
 
-            params.eachWithIndex { val, int i ->
-                i++
-                if (val instanceof CharSequence) {
-                    q.setParameter i, val.toString()
+            populateQueryArguments(q, params)
+            populateQueryArguments(q, args)
+            populateQueryWithNamedArguments(q, params)
+
+            scroll(session, q, args)
+        }
+    }
+
+    protected Stream scroll(Session session, Query q, Map args) {
+        int evictEvery = q.getFetchSize() != null ? q.getFetchSize().intValue() : ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE
+        if (args.containsKey(HibernateQueryConstants.ARGUMENT_EVICT_EVERY)) {
+            evictEvery = conversionService.convert(args.get(HibernateQueryConstants.ARGUMENT_EVICT_EVERY), Integer.class).intValue()
+        }
+        boolean clearSession = ClassUtils.getBooleanFromMap(HibernateQueryConstants.ARGUMENT_CLEAR_SESSION, args)
+        ScrollableResults results = createHqlQuery(session, q).scroll()
+        ScrollableResultsSpliterator.stream(session, results, evictEvery, clearSession)
+    }
+
+    /**
+     * Writes the instances matching the given criteria to the output stream as CSV or JSON Lines while they are read
+     * from a cursor, releasing them from the session every fetchSize rows so that memory use does not depend on the number of rows.
+     * If the criteria contain projections the projected values are written instead
+     *
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, bufferSize, max, offset, sort, order,
+     * fetchSize, evictEvery and clearSession. The session is cleared by default unless it was already open
+     * @param out The output stream, which is flushed but not closed
+     * @param criteria The criteria closure, may be null
+     * @return The number of rows written
+     */
+    @CompileDynamic
+    long exportAll(Map args, OutputStream out, Closure criteria = null) {
+        Map queryArgs = args ? new LinkedHashMap(args) : new LinkedHashMap()
+        Integer max = intValue(queryArgs, DynamicFinder.ARGUMENT_MAX)
+        Integer offset = intValue(queryArgs, DynamicFinder.ARGUMENT_OFFSET)
+        Integer rowsPerFetch = intValue(queryArgs, HibernateQueryConstants.ARGUMENT_FETCH_SIZE) ?: ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE
+        queryArgs.put(HibernateQueryConstants.ARGUMENT_FETCH_SIZE, rowsPerFetch)
+        List<Order> orders = resolveCriteriaOrders(queryArgs)
+        boolean ownSession = !TransactionSynchronizationManager.hasResource(hibernateTemplate.sessionFactory)
+
+        (long) hibernateTemplate.executeWithExistingOrCreateNewSession(hibernateTemplate.sessionFactory) { Session session ->
+            ScrollableResults results = (ScrollableResults) createCriteria().scroll {
+                if (criteria != null) {
+                    Closure callable = (Closure) criteria.clone()
+                    callable.delegate = delegate
+                    callable.resolveStrategy = Closure.DELEGATE_FIRST
+                    callable.call()
                 }
-                else {
-                    q.setParameter i, val
+                if (max != null) {
+                    maxResults(max)
+                }
+                if (offset != null) {
+                    firstResult(offset)
                 }
+                for (Order sortOrder in orders) {
+                    order(sortOrder)
+                }
+                fetchSize(rowsPerFetch)
             }
-            q.addEntity(persistentClass)
+            export(session, results, null, queryArgs, ownSession, out)
+        }
+    }
+
+    /**
+     * Writes the instances matching the given criteria to the channel as CSV or JSON Lines
+     *
+     * @see #exportAll(Map, OutputStream, Closure)
+     */
+    long exportAll(Map args, WritableByteChannel channel, Closure criteria = null) {
+        exportAll(args, Channels.newOutputStream(channel), criteria)
+    }
+
+    /**
+     * Writes the results of the given HQL query to the output stream as CSV or JSON Lines while they are read from a cursor.
+     * Scalar values are written as they are, named after their aliases in the select clause
+     *
+     * @param query The HQL query
+     * @param params The named parameters
+     * @param args The arguments such as format ('csv' or 'jsonl'), columns, header, bufferSize, max, offset, fetchSize,
+     * evictEvery and clearSession. The session is cleared by default unless it was already open
+     * @param out The output stream, which is flushed but not closed
+     * @return The number of rows written
+     */
+    long exportAll(CharSequence query, Map params, Map args, OutputStream out) {
+        params = new LinkedHashMap(params)
+        args = new LinkedHashMap(args)
+        if (query instanceof GString) {
+            query = buildNamedParameterQueryFromGString((GString) query, params)
+        }
+
+        String queryString = normalizeMultiLineQueryString(query.toString())
+        boolean ownSession = !TransactionSynchronizationManager.hasResource(hibernateTemplate.sessionFactory)
+        def template = hibernateTemplate
+        return (long) template.executeWithExistingOrCreateNewSession(template.sessionFactory) { Session session ->
+            Query q = (Query) session.createQuery(queryString)
+            template.applySettings(q)
+            q.setFetchSize(ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE)
+
+            populateQueryArguments(q, params)
             populateQueryArguments(q, args)
-            return createHqlQuery(session, q).list()
+            populateQueryWithNamedArguments(q, params)
+
+            String[] aliases = resolveReturnAliases(q)
+            export(session, createHqlQuery(session, q).scroll(), aliases, args, ownSession, out)
+        }
+    }
+
+    /**
+     * Writes the results of the given HQL query to the channel as CSV or JSON Lines
+     *
+     * @see #exportAll(CharSequence, Map, Map, OutputStream)
+     */
+    long exportAll(CharSequence query, Map params, Map args, WritableByteChannel channel) {
+        exportAll(query, params, args, Channels.newOutputStream(channel))
+    }
+
+    protected long export(Session session, ScrollableResults results, String[] aliases, Map args, boolean ownSession, OutputStream out) {
+        Integer fetchSize = intValue(args, HibernateQueryConstants.ARGUMENT_FETCH_SIZE)
+        int evictEvery = fetchSize != null ? fetchSize.intValue() : ScrollableResultsSpliterator.DEFAULT_FETCH_SIZE
+        if (args.containsKey(HibernateQueryConstants.ARGUMENT_EVICT_EVERY)) {
+            evictEvery = conversionService.convert(args.get(HibernateQueryConstants.ARGUMENT_EVICT_EVERY), Integer.class).intValue()
+        }
+        // clearing a session that was already open would detach the instances of the caller
+        boolean clearSession = args.containsKey(HibernateQueryConstants.ARGUMENT_CLEAR_SESSION) ?
+                ClassUtils.getBooleanFromMap(HibernateQueryConstants.ARGUMENT_CLEAR_SESSION, args) : ownSession
+        Object columns = args.get(ResultExporter.ARGUMENT_COLUMNS)
+        ResultExporter exporter = new ResultExporter(
+                ResultExporter.Format.of(args.get(ResultExporter.ARGUMENT_FORMAT)),
+                persistentEntity,
+                columns instanceof Collection ? ((Collection) columns).collect { it.toString() } as List<String> : null,
+                aliases,
+                args.containsKey(ResultExporter.ARGUMENT_HEADER) ? ClassUtils.getBooleanFromMap(ResultExporter.ARGUMENT_HEADER, args) : true,
+                intValue(args, ResultExporter.ARGUMENT_BUFFER_SIZE) ?: ResultExporter.DEFAULT_BUFFER_SIZE)
+        Stream rows = ScrollableResultsSpliterator.stream(session, results, evictEvery, clearSession)
+        try {
+            return exporter.export(rows, out)
+        }
+        finally {
+            rows.close()
+        }
+    }
+
+    protected String[] resolveReturnAliases(Query q) {
+        try {
+            return q.getReturnAliases()
+        }
+        catch (RuntimeException ignored) {
+            // queries without a select clause have no aliases
+            return null
+        }
+    }
+
+    protected List<Order> resolveCriteriaOrders(Map queryArgs) {
+        Map<String, String> sorts = new LinkedHashMap<>()
+        Object sort = queryArgs.get(DynamicFinder.ARGUMENT_SORT)
+        if (sort instanceof Map) {
+            ((Map) sort).each { key, value -> sorts.put(key.toString(), value?.toString()) }
+        }
+        else if (sort != null) {
+            sorts.put(sort.toString(), queryArgs.get(DynamicFinder.ARGUMENT_ORDER)?.toString())
+        }
+        boolean ignoreCase = queryArgs.get(DynamicFinder.ARGUMENT_IGNORE_CASE) instanceof Boolean ? (boolean) queryArgs.get(DynamicFinder.ARGUMENT_IGNORE_CASE) : true
+        List<Order> orders = []
+        for (Map.Entry<String, String> entry in sorts.entrySet()) {
+            Order sortOrder = DynamicFinder.ORDER_DESC.equalsIgnoreCase(entry.value) ? Order.desc(entry.key) : Order.asc(entry.key)
+            orders.add(ignoreCase && persistentEntity.getPropertyByName(entry.key)?.type == String ? sortOrder.ignoreCase() : sortOrder)
+        }
+        orders
+    }
+
+    /**
+     * Finds all instances matching the given criteria as instances of a record or interface. Only the properties named by
+     * the components of the record, or the getters of the interface, are selected and no entity is loaded into the session
+     *
+     * @param projectionType The record or interface
+     * @param args The query arguments such as max, offset, sort and order
+     * @param criteria The criteria closure, may be null
+     * @return The projected results
+     */
+    @CompileDynamic
+    <P> List<P> findAll(Class<P> projectionType, Map args, Closure criteria) {
+        ProjectionResultTransformer<P> transformer = ProjectionResultTransformer.forType(projectionType, persistentEntity, conversionService)
+        Map queryArgs = args ?: Collections.emptyMap()
+        Integer max = intValue(queryArgs, DynamicFinder.ARGUMENT_MAX)
+        Integer offset = intValue(queryArgs, DynamicFinder.ARGUMENT_OFFSET)
+        List<Order> orders = resolveCriteriaOrders(queryArgs)
+
+        (List<P>) createCriteria().list {
+            if (criteria != null) {
+                Closure callable = (Closure) criteria.clone()
+                callable.delegate = delegate
+                callable.resolveStrategy = Closure.DELEGATE_FIRST
+                callable.call()
+            }
+            projections {
+                for (String name in transformer.propertyNames) {
+                    property(name)
+                }
+            }
+            if (max != null) {
+                maxResults(max)
+            }
+            if (offset != null) {
+                firstResult(offset)
+            }
+            for (Order sortOrder in orders) {
+                order(sortOrder)
+            }
+            resultTransformer(transformer)
+        }
+    }
+
+    /**
+     * Finds all instances matching the given criteria as instances of a record or interface
+     *
+     * @see #findAll(Class, Map, Closure)
+     */
+    <P> List<P> findAll(Class<P> projectionType, Closure criteria) {
+        findAll(projectionType, Collections.emptyMap(), criteria)
+    }
+
+    /**
+     * Saves the given instances in chunks of batchSize. Each chunk is validated up front, saved with JDBC batching
+     * and flushed. Outside of a transaction each chunk is written in its own session and transaction, so a chunk that
+     * fails to be written is rolled back and reported in the result without affecting the other chunks. Within a
+     * transaction the chunks are written in the current session, and a chunk that fails to be written fails the
+     * transaction, so the exception is thrown. The instances of a chunk are evicted from the current session once written,
+     * which is only cleared with clearSession: true
+     *
+     * @param instances The instances to save
+     * @param args The arguments such as batchSize, validate, deepValidate, failOnError and clearSession
+     * @return The result
+     */
+    BatchSaveResult saveAll(Iterable<D> instances, Map args) {
+        batchSave(instances, args, false)
+    }
+
+    /**
+     * Inserts the given instances in chunks of batchSize
+     *
+     * @see #saveAll(Iterable, Map)
+     */
+    BatchSaveResult insertAll(Iterable<D> instances, Map args = Collections.emptyMap()) {
+        batchSave(instances, args, true)
+    }
+
+    protected BatchSaveResult batchSave(Iterable<D> instances, Map args, boolean insert) {
+        BatchSaveResult result = new BatchSaveResult()
+        if (instances == null) {
+            return result
+        }
+        int batchSize = resolveBatchSize(args)
+        List<D> chunk = new ArrayList<>(batchSize)
+        int chunkIndex = 0
+        for (D instance in instances) {
+            chunk.add(instance)
+            if (chunk.size() == batchSize) {
+                saveChunk(chunk, chunkIndex++, batchSize, args, insert, result)
+                chunk = new ArrayList<>(batchSize)
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, chunkIndex, batchSize, args, insert, result)
+        }
+        return result
+    }
+
+    /**
+     * @return The batch size from the arguments, otherwise the configured JDBC batch size
+     */
+    protected int resolveBatchSize(Map args) {
+        if (args.containsKey(HibernateQueryConstants.ARGUMENT_BATCH_SIZE)) {
+            int batchSize = conversionService.convert(args.get(HibernateQueryConstants.ARGUMENT_BATCH_SIZE), Integer.class).intValue()
+            if (batchSize > 0) {
+                return batchSize
+            }
+        }
+        int jdbcBatchSize = ((SessionFactoryImplementor) hibernateTemplate.getSessionFactory()).getSessionFactoryOptions().getJdbcBatchSize()
+        return jdbcBatchSize > 1 ? jdbcBatchSize : DEFAULT_BATCH_SIZE
+    }
+
+    protected void saveChunk(List<D> chunk, int chunkIndex, int batchSize, Map args, boolean insert, BatchSaveResult result) {
+        List<D> instances = chunk
+        if (!args.containsKey(ARGUMENT_VALIDATE) || ClassUtils.getBooleanFromMap(ARGUMENT_VALIDATE, args)) {
+            instances = validateAll(chunk, args, result)
+        }
+        if (instances.isEmpty()) {
+            return
+        }
+        // instances of the same class are saved together, so that their inserts end up in the same JDBC batch
+        instances = new ArrayList<D>(instances)
+        instances.sort(true) { D instance -> instance.getClass().name }
+
+        EntityReflector reflector = persistentEntity.reflector
+        String identityName = persistentEntity.identity?.name
+        List<D> unsaved = identityName != null ? instances.findAll { D instance -> reflector.getProperty(instance, identityName) == null } : []
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive()
+        if (insert) {
+            AbstractHibernateGormInstanceApi.markInsertActive()
+        }
+        try {
+            List<Serializable> ids
+            if (inTransaction) {
+                ids = writeChunk(instances, batchSize, insert)
+                releaseInstances(instances, args)
+            }
+            else {
+                // the instances are written by the session of the chunk, so they must not remain in the current one
+                evictFromCurrentSession(instances)
+                ids = (List<Serializable>) withNewSession {
+                    withNewTransaction {
+                        writeChunk(instances, batchSize, insert)
+                    }
+                }
+            }
+            for (Serializable id in ids) {
+                result.addSaved(id)
+            }
+        }
+        catch (RuntimeException e) {
+            evictFromCurrentSession(instances)
+            for (D instance in unsaved) {
+                reflector.setProperty(instance, identityName, null)
+            }
+            if (inTransaction) {
+                // the transaction is marked for rollback, so the chunks written before cannot be kept either
+                throw e
+            }
+            result.addFailure(chunkIndex, instances, e)
+        }
+        finally {
+            if (insert) {
+                AbstractHibernateGormInstanceApi.resetInsertActive()
+            }
+            for (D instance in instances) {
+                if (instance instanceof GormValidateable) {
+                    ((GormValidateable) instance).skipValidation(false)
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves and flushes the instances of a chunk in the current session
+     *
+     * @return The identifiers of the instances
+     */
+    protected List<Serializable> writeChunk(List<D> instances, int batchSize, boolean insert) {
+        (List<Serializable>) hibernateTemplate.execute { Session session ->
+            Integer jdbcBatchSize = session.getJdbcBatchSize()
+            session.setJdbcBatchSize(batchSize)
+            try {
+                for (D instance in instances) {
+                    if (instance instanceof GormValidateable) {
+                        // already validated
+                        ((GormValidateable) instance).skipValidation(true)
+                    }
+                    if (insert) {
+                        session.save(instance)
+                    }
+                    else {
+                        session.saveOrUpdate(instance)
+                    }
+                }
+                session.flush()
+                return instances.collect { D instance -> session.getIdentifier(instance) }
+            }
+            finally {
+                session.setJdbcBatchSize(jdbcBatchSize)
+            }
+        }
+    }
+
+    /**
+     * Validates the given instances before any of them is saved
+     *
+     * @return The valid instances
+     */
+    protected List<D> validateAll(List<D> instances, Map args, BatchSaveResult result) {
+        Validator validator = datastore.mappingContext.getEntityValidator(persistentEntity)
+        if (validator == null) {
+            return instances
+        }
+        boolean deepValidate = !args.containsKey(ARGUMENT_DEEP_VALIDATE) || ClassUtils.getBooleanFromMap(ARGUMENT_DEEP_VALIDATE, args)
+        boolean failOnError = args.containsKey(ARGUMENT_FAIL_ON_ERROR) ?
+                ClassUtils.getBooleanFromMap(ARGUMENT_FAIL_ON_ERROR, args) : ((AbstractHibernateDatastore) datastore).isFailOnError()
+        List<D> valid = new ArrayList<>(instances.size())
+        for (D instance in instances) {
+            Errors errors = HibernateRuntimeUtils.setupErrorsProperty(instance)
+            datastore.applicationEventPublisher?.publishEvent(new ValidationEvent(datastore, instance))
+            if (validator instanceof CascadingValidator) {
+                ((CascadingValidator) validator).validate(instance, errors, deepValidate)
+            }
+            else if (validator instanceof org.grails.datastore.gorm.validation.CascadingValidator) {
+                ((org.grails.datastore.gorm.validation.CascadingValidator) validator).validate(instance, errors, deepValidate)
+            }
+            else {
+                validator.validate(instance, errors)
+            }
+            if (errors.hasErrors()) {
+                if (failOnError) {
+                    throw ValidationException.newInstance("Validation Error(s) occurred during saveAll()", errors)
+                }
+                result.addInvalid(instance)
+            }
+            else {
+                valid.add(instance)
+            }
+        }
+        return valid
+    }
+
+    /**
+     * Releases the written instances of a chunk from the current session, which is cleared if clearSession is true
+     */
+    protected void releaseInstances(List<D> instances, Map args) {
+        if (ClassUtils.getBooleanFromMap(HibernateQueryConstants.ARGUMENT_CLEAR_SESSION, args)) {
+            hibernateTemplate.execute { Session session ->
+                session.clear()
+            }
+        }
+        else {
+            evictFromCurrentSession(instances)
+        }
+    }
+
+    /**
+     * Evicts the given instances from the session bound to the current thread, if there is one
+     */
+    protected void evictFromCurrentSession(List<D> instances) {
+        SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(hibernateTemplate.getSessionFactory())
+        if (sessionHolder == null || (sessionHolder instanceof LazySessionHolder && !((LazySessionHolder) sessionHolder).isSessionOpened())) {
+            return
+        }
+        Session session = sessionHolder.getSession()
+        for (D instance in instances) {
+            if (session.contains(instance)) {
+                session.evict(instance)
+            }
         }
     }
 
@@ -599,15 +1226,20 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
             queryMap.each { key, value -> processedQueryMap[key.toString()] = value }
             Map queryArgs = filterQueryArgumentMap(processedQueryMap)
             List<String> nullNames = removeNullNames(queryArgs)
+            Query whereQuery = createWhereQuery(session, queryArgs, nullNames, args)
+            if (whereQuery != null) {
+                return createHqlQuery(session, whereQuery).list()
+            }
             Criteria criteria = session.createCriteria(persistentClass)
             hibernateTemplate.applySettings(criteria)
             criteria.add(Restrictions.allEq(queryArgs))
             for (name in nullNames) {
                 criteria.add Restrictions.isNull(name)
             }
-            criteria.setResultTransformer(DistinctRootEntityResultTransformer.INSTANCE)
-
             GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, criteria, args, datastore.mappingContext.conversionService, true)
+            if (GrailsHibernateQueryUtils.isToManyJoinPresent(persistentEntity, criteria)) {
+                criteria.setResultTransformer(DistinctRootEntityResultTransformer.INSTANCE)
+            }
             firePreQueryEvent(session, criteria)
             List results = criteria.list()
             firePostQueryEvent(session, criteria, results)
@@ -672,6 +1304,11 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
             queryMap.each { key, value -> processedQueryMap[key.toString()] = value }
             Map queryArgs = filterQueryArgumentMap(processedQueryMap)
             List<String> nullNames = removeNullNames(queryArgs)
+            Query whereQuery = createWhereQuery(session, queryArgs, nullNames, args)
+            if (whereQuery != null) {
+                whereQuery.setMaxResults(1)
+                return proxyHandler.unwrap(createHqlQuery(session, whereQuery).singleResult())
+            }
             Criteria criteria = session.createCriteria(persistentClass)
             hibernateTemplate.applySettings(criteria)
             criteria.add(Restrictions.allEq(queryArgs))
@@ -701,32 +1338,348 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
         getAllInternal(ids as List)
     }
 
-    @CompileDynamic
     private List getAllInternal(List ids) {
         if (!ids) return []
 
         (List) hibernateTemplate.execute { Session session ->
-            def identityType = persistentEntity.identity.type
-            ids = ids.collect { HibernateRuntimeUtils.convertValueToType((Serializable) it, identityType, conversionService) }
-            def criteria = session.createCriteria(persistentClass)
-            hibernateTemplate.applySettings(criteria)
-            def identityName = persistentEntity.identity.name
-            criteria.add(Restrictions.'in'(identityName, ids))
-            firePreQueryEvent(session, criteria)
-            List results = criteria.list()
-            firePostQueryEvent(session, criteria, results)
-            def idsMap = [:]
-            for (object in results) {
-                idsMap[object[identityName]] = object
+            Class identityType = persistentEntity.identity.type
+            List<Serializable> identifiers = new ArrayList<>(ids.size())
+            for (Object id in ids) {
+                identifiers.add((Serializable) HibernateRuntimeUtils.convertValueToType(id, identityType, conversionService))
+            }
+
+            Map<Serializable, Object> instancesById = new HashMap<>(identifiers.size())
+            Set<Serializable> misses = new LinkedHashSet<>()
+            // multi-tenant entities have to go through a query so that the tenant filter is applied
+            boolean cacheFirst = ((AbstractHibernateDatastore) datastore).isMultiLoadCacheFirst() && !persistentEntity.isMultiTenant()
+            for (Serializable id in identifiers) {
+                if (id == null || instancesById.containsKey(id) || misses.contains(id)) {
+                    continue
+                }
+                Object instance = cacheFirst ? getFromSessionOrCache(session, id) : null
+                if (instance != null) {
+                    instancesById.put(id, instance)
+                }
+                else {
+                    misses.add(id)
+                }
+            }
+
+            if (!misses.isEmpty()) {
+                List<Serializable> missingIds = new ArrayList<>(misses)
+                int batchSize = getMultiLoadBatchSize(session)
+                String identityName = persistentEntity.identity.name
+                for (int i = 0; i < missingIds.size(); i += batchSize) {
+                    List<Serializable> batch = missingIds.subList(i, Math.min(i + batchSize, missingIds.size()))
+                    Criteria criteria = session.createCriteria(persistentClass)
+                    hibernateTemplate.applySettings(criteria)
+                    criteria.add(Restrictions.in(identityName, batch))
+                    firePreQueryEvent(session, criteria)
+                    List results = criteria.list()
+                    firePostQueryEvent(session, criteria, results)
+                    for (Object object in results) {
+                        instancesById.put(session.getIdentifier(object), object)
+                    }
+                }
             }
-            results.clear()
-            for (id in ids) {
-                results << idsMap[id]
+
+            List results = new ArrayList(identifiers.size())
+            for (Serializable id in identifiers) {
+                results.add(id != null ? instancesById.get(id) : null)
             }
             results
         }
     }
 
+    /**
+     * Resolves an instance from the persistence context or the second-level cache without querying the database
+     *
+     * @param session The session
+     * @param id The identifier
+     * @return The instance or null if it is neither in the session nor in the second-level cache
+     */
+    protected Object getFromSessionOrCache(Session session, Serializable id) {
+        EntityPersister persister = ((SessionImplementor) session).getFactory().getMetamodel().entityPersister(persistentEntity.javaClass)
+        if (isInSession(session, id) || (persister.canReadFromCache() && session.getSessionFactory().getCache().containsEntity(persistentEntity.javaClass, id))) {
+            return session.get(persistentEntity.javaClass, id)
+        }
+        return null
+    }
+
+    /**
+     * @param session The session
+     * @param id The identifier
+     * @return Whether an initialized instance with the given id is associated with the session
+     */
+    protected boolean isInSession(Session session, Serializable id) {
+        SessionImplementor sessionImplementor = (SessionImplementor) session
+        EntityPersister persister = sessionImplementor.getFactory().getMetamodel().entityPersister(persistentEntity.javaClass)
+        EntityKey entityKey = sessionImplementor.generateEntityKey(id, persister)
+        return sessionImplementor.getPersistenceContext().containsEntity(entityKey)
+    }
+
+    /**
+     * @return Whether the datastore uses a discriminator column for multi-tenancy
+     */
+    protected boolean isDiscriminatorMultiTenancy() {
+        ((AbstractHibernateDatastore) datastore).getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR
+    }
+
+    /**
+     * Gets an instance of a discriminator multi-tenant entity for the current tenant only. The tenant id of an instance
+     * in the session is verified on the instance, and that of an instance in the second-level cache on its cached state
+     * before the instance is assembled. Other instances are queried, so that the tenant filter of the session keeps rows
+     * of other tenants from being loaded, together with their events and eager associations
+     *
+     * @param session The session
+     * @param id The identifier
+     * @param readOnly Whether instances loaded into the session are read-only
+     * @return The instance or null if it does not exist for the current tenant
+     */
+    protected Object getForCurrentTenant(Session session, Serializable id, boolean readOnly) {
+        Serializable currentId = Tenants.currentId((MultiTenantCapableDatastore) datastore)
+        if (ConnectionSource.DEFAULT == currentId) {
+            // the tenant filter is disabled for the default tenant
+            return getFromSession(session, id, readOnly)
+        }
+        if (isInSession(session, id)) {
+            Object instance = proxyHandler.unwrap(session.get(persistentEntity.javaClass, id))
+            return isCurrentTenant(persistentEntity.reflector.getProperty(instance, persistentEntity.tenantId.name), currentId) ? instance : null
+        }
+        SessionImplementor sessionImplementor = (SessionImplementor) session
+        EntityPersister persister = sessionImplementor.getFactory().getMetamodel().entityPersister(persistentEntity.javaClass)
+        if (persister.canReadFromCache()) {
+            EntityDataAccess cacheAccess = persister.getCacheAccessStrategy()
+            Object cacheKey = cacheAccess.generateCacheKey(id, persister, sessionImplementor.getFactory(), sessionImplementor.getTenantIdentifier())
+            Object cached = CacheHelper.fromSharedCache(sessionImplementor, cacheKey, cacheAccess)
+            if (cached != null) {
+                CacheEntry cacheEntry = (CacheEntry) persister.getCacheEntryStructure().destructure(cached, sessionImplementor.getFactory())
+                EntityPersister cachedPersister = sessionImplementor.getFactory().getMetamodel().entityPersister(cacheEntry.getSubclass())
+                int tenantIdIndex = cachedPersister.getEntityMetamodel().getPropertyIndex(persistentEntity.tenantId.name)
+                return isCurrentTenant(cacheEntry.getDisassembledState()[tenantIdIndex], currentId) ? getFromSession(session, id, readOnly) : null
+            }
+        }
+        CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
+        CriteriaQuery criteriaQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+        Root queryRoot = criteriaQuery.from(persistentEntity.javaClass)
+        criteriaQuery = criteriaQuery.where(
+                //TODO: Remove explicit type cast once GROOVY-9460
+                criteriaBuilder.equal((Expression<?>) queryRoot.get(persistentEntity.identity.name), id)
+        )
+        Query criteria = session.createQuery(criteriaQuery)
+        if (readOnly) {
+            criteria.setHint(QueryHints.HINT_READONLY, true)
+        }
+        return proxyHandler.unwrap(new HibernateHqlQuery(hibernateSession, persistentEntity, criteria).singleResult())
+    }
+
+    /**
+     * Gets an instance through the session and the second-level cache
+     *
+     * @param session The session
+     * @param id The identifier
+     * @param readOnly Whether an instance loaded into the session is read-only
+     * @return The instance or null if it does not exist
+     */
+    protected Object getFromSession(Session session, Serializable id, boolean readOnly) {
+        if (!readOnly) {
+            return proxyHandler.unwrap(session.get(persistentEntity.javaClass, id))
+        }
+        boolean defaultReadOnly = session.isDefaultReadOnly()
+        try {
+            session.setDefaultReadOnly(true)
+            return proxyHandler.unwrap(session.get(persistentEntity.javaClass, id))
+        }
+        finally {
+            session.setDefaultReadOnly(defaultReadOnly)
+        }
+    }
+
+    /**
+     * @param tenantId The tenant id of an instance
+     * @param currentId The id of the current tenant
+     * @return Whether the tenant id is that of the current tenant
+     */
+    protected static boolean isCurrentTenant(Object tenantId, Serializable currentId) {
+        return tenantId != null && (tenantId == currentId || tenantId.toString() == currentId.toString())
+    }
+
+    /**
+     * @return The number of ids to load per query, limited by the IN list size supported by the dialect
+     */
+    protected int getMultiLoadBatchSize(Session session) {
+        int batchSize = Math.max(1, ((AbstractHibernateDatastore) datastore).getMultiLoadBatchSize())
+        int inExpressionLimit = ((SessionImplementor) session).getFactory().getJdbcServices().getDialect().getInExpressionCountLimit()
+        if (inExpressionLimit > 0 && inExpressionLimit < batchSize) {
+            return inExpressionLimit
+        }
+        return batchSize
+    }
+
+    /**
+     * Creates the query of findWhere(..) and findAllWhere(..) from a cached HQL template, so that only the values have to be bound
+     *
+     * @param session The session
+     * @param queryArgs The property values to match
+     * @param nullNames The properties that have to be null
+     * @param args The query arguments
+     * @return The query or null if it cannot be expressed with a template
+     */
+    protected Query createWhereQuery(Session session, Map queryArgs, List<String> nullNames, Map args) {
+        QueryTemplateCache<String> templateCache = ((AbstractHibernateDatastore) datastore).getQueryTemplateCache()
+        if (templateCache == null || !isWhereQueryTemplatable(queryArgs, nullNames, args)) {
+            return null
+        }
+        List<String> orders = resolveWhereQueryOrders(args)
+        if (orders == null) {
+            return null
+        }
+        List<String> names = new ArrayList<String>((Collection<String>) queryArgs.keySet())
+        Collections.sort(names)
+        List<String> sortedNullNames = new ArrayList<String>(nullNames)
+        Collections.sort(sortedNullNames)
+        boolean lock = ClassUtils.getBooleanFromMap(DynamicFinder.ARGUMENT_LOCK, args)
+
+        String key = names.join(',') + '|' + sortedNullNames.join(',') + '|' + orders.join(',') + (lock ? '|lock' : '')
+        String hql = templateCache.get(persistentEntity, key, { String k ->
+            buildWhereQuery(names, sortedNullNames, orders)
+        })
+
+        Query q = (Query) session.createQuery(hql)
+        hibernateTemplate.applySettings(q)
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i)
+            Object value = queryArgs.get(name)
+            PersistentProperty property = persistentEntity.getPropertyByName(name) ?: persistentEntity.identity
+            if (!(property instanceof Association)) {
+                value = HibernateRuntimeUtils.convertValueToType(value, property.type, conversionService)
+            }
+            q.setParameter(WHERE_QUERY_PARAMETER + i, value)
+        }
+        Map queryArguments = new HashMap(args)
+        populateQueryArguments(q, queryArguments)
+        if (lock) {
+            q.setLockMode(WHERE_QUERY_ALIAS, LockMode.PESSIMISTIC_WRITE)
+            q.setCacheable(false)
+        }
+        else if (!args.containsKey(DynamicFinder.ARGUMENT_CACHE)) {
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(persistentEntity.javaClass)
+            if (queryDefaults?.cacheable) {
+                q.setCacheable(true)
+            }
+        }
+        return q
+    }
+
+    /**
+     * @return Whether the given findWhere(..) arguments can be expressed with a HQL template
+     */
+    protected boolean isWhereQueryTemplatable(Map queryArgs, List<String> nullNames, Map args) {
+        Object fetch = args.get(DynamicFinder.ARGUMENT_FETCH)
+        if (fetch instanceof Map && !((Map) fetch).isEmpty()) {
+            return false
+        }
+        for (Object entry in queryArgs.entrySet()) {
+            Map.Entry queryArg = (Map.Entry) entry
+            Object value = queryArg.value
+            if (!isWhereQueryProperty(queryArg.key.toString(), true) || value instanceof Collection || value.getClass().isArray()) {
+                return false
+            }
+        }
+        for (String name in nullNames) {
+            if (!isWhereQueryProperty(name, true)) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * Resolves the order by clauses of a findWhere(..) HQL template from the arguments or the default sort of the mapping
+     *
+     * @return The order by clauses or null if they cannot be expressed with a template
+     */
+    protected List<String> resolveWhereQueryOrders(Map args) {
+        Map<String, Object> sorts = new LinkedHashMap<>()
+        boolean ignoreCase = true
+        Object sort = args.get(DynamicFinder.ARGUMENT_SORT)
+        if (sort instanceof Map) {
+            for (Object entry in ((Map) sort).entrySet()) {
+                Map.Entry sortEntry = (Map.Entry) entry
+                sorts.put(sortEntry.key.toString(), sortEntry.value)
+            }
+        }
+        else if (sort != null) {
+            sorts.put(sort.toString(), args.get(DynamicFinder.ARGUMENT_ORDER))
+        }
+        else {
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(persistentEntity.javaClass)
+            if (queryDefaults != null) {
+                sorts.putAll(queryDefaults.sortOrders)
+            }
+        }
+        if (sort != null && args.get(DynamicFinder.ARGUMENT_IGNORE_CASE) instanceof Boolean) {
+            ignoreCase = (Boolean) args.get(DynamicFinder.ARGUMENT_IGNORE_CASE)
+        }
+
+        List<String> orders = []
+        for (Map.Entry<String, Object> entry in sorts.entrySet()) {
+            String name = entry.key
+            if (!isWhereQueryProperty(name, false)) {
+                return null
+            }
+            PersistentProperty property = persistentEntity.getPropertyByName(name) ?: persistentEntity.identity
+            String path = WHERE_QUERY_ALIAS + '.' + name
+            if (ignoreCase && CharSequence.isAssignableFrom(property.type)) {
+                path = 'lower(' + path + ')'
+            }
+            String direction = DynamicFinder.ORDER_DESC.equalsIgnoreCase(entry.value?.toString()) ? DynamicFinder.ORDER_DESC : DynamicFinder.ORDER_ASC
+            orders.add(path + ' ' + direction)
+        }
+        return orders
+    }
+
+    /**
+     * @param name The property name
+     * @param allowToOne Whether to-one associations are permitted
+     * @return Whether the property can be referenced by a findWhere(..) HQL template
+     */
+    protected boolean isWhereQueryProperty(String name, boolean allowToOne) {
+        PersistentProperty identity = persistentEntity.identity
+        if (identity != null && identity.name == name) {
+            return true
+        }
+        PersistentProperty property = persistentEntity.getPropertyByName(name)
+        if (property == null || property instanceof Embedded) {
+            return false
+        }
+        if (property instanceof Association) {
+            return allowToOne && property instanceof ToOne
+        }
+        return true
+    }
+
+    /**
+     * Builds the HQL of a findWhere(..) template. The property names have been verified to belong to the entity
+     */
+    protected String buildWhereQuery(List<String> names, List<String> nullNames, List<String> orders) {
+        StringBuilder hql = new StringBuilder("from ").append(persistentEntity.name).append(" as ").append(WHERE_QUERY_ALIAS)
+        List<String> conditions = []
+        for (int i = 0; i < names.size(); i++) {
+            conditions.add(WHERE_QUERY_ALIAS + '.' + names.get(i) + ' = :' + WHERE_QUERY_PARAMETER + i)
+        }
+        for (String name in nullNames) {
+            conditions.add(WHERE_QUERY_ALIAS + '.' + name + ' is null')
+        }
+        if (conditions) {
+            hql.append(' where ').append(conditions.join(' and '))
+        }
+        if (orders) {
+            hql.append(' order by ').append(orders.join(', '))
+        }
+        return hql.toString()
+    }
+
     protected Map filterQueryArgumentMap(Map query) {
         def queryArgs = [:]
         for (entry in query.entrySet()) {
@@ -748,18 +1701,11 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
      * @return The final String
      */
     protected String buildOrdinalParameterQueryFromGString(GString query, List params) {
-        StringBuilder sqlString = new StringBuilder()
-        int i = 0
         Object[] values = query.values
-        def strings = query.getStrings()
-        for (str in strings) {
-            sqlString.append(str)
-            if (i < values.length) {
-                sqlString.append('?')
-                params.add(values[i++])
-            }
+        for (value in values) {
+            params.add(value)
         }
-        return sqlString.toString()
+        return GStringQueryTranslator.toOrdinalParameterQuery(query)
     }
 
     /**
@@ -770,19 +1716,11 @@ abstract class AbstractHibernateGormStaticApi<D> extends GormStaticApi<D> {
      * @return The final String
      */
     protected String buildNamedParameterQueryFromGString(GString query, Map params) {
-        StringBuilder sqlString = new StringBuilder()
-        int i = 0
         Object[] values = query.values
-        def strings = query.getStrings()
-        for (str in strings) {
-            sqlString.append(str)
-            if (i < values.length) {
-                String parameterName = "p$i"
-                sqlString.append(':').append(parameterName)
-                params.put(parameterName, values[i++])
-            }
+        for (int i = 0; i < values.length; i++) {
+            params.put(GStringQueryTranslator.parameterName(i), values[i])
         }
-        return sqlString.toString()
+        return GStringQueryTranslator.toNamedParameterQuery(query)
     }
 
     protected List<String> removeNullNames(Map query) {
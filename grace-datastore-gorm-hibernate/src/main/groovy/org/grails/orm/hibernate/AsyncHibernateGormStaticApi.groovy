@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate
+
+import java.util.concurrent.CompletableFuture
+
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.runtime.InvokerHelper
+
+/**
+ * The async namespace of a domain class, for example {@code Book.async.findAllByAuthor(author)}.
+ * Any static method of the domain class, including dynamic finders, is executed on the asynchronous executor of the datastore
+ * in its own session and transaction, and returns a {@link CompletableFuture} of its result.
+ * Note that instances returned by a task are detached, as its session is closed once the task completes
+ *
+ * @param <D> The domain class
+ * @author Michael Yan
+ * @since 2023.1
+ * @see AbstractHibernateDatastore#async(Closure)
+ */
+@CompileStatic
+class AsyncHibernateGormStaticApi<D> {
+
+    final Class<D> persistentClass
+
+    final AbstractHibernateDatastore datastore
+
+    AsyncHibernateGormStaticApi(Class<D> persistentClass, AbstractHibernateDatastore datastore) {
+        this.persistentClass = persistentClass
+        this.datastore = datastore
+    }
+
+    /**
+     * Executes the given closure asynchronously in a new session and transaction
+     *
+     * @param callable The closure
+     * @return A future completed with the result of the closure
+     */
+    <T> CompletableFuture<T> task(Closure<T> callable) {
+        datastore.async(callable)
+    }
+
+    /**
+     * Executes the static method of the domain class with the given name asynchronously
+     *
+     * @param name The name of the method
+     * @param args The arguments
+     * @return A future completed with the result of the method
+     */
+    CompletableFuture<Object> methodMissing(String name, Object args) {
+        final Object[] arguments = args instanceof Object[] ? (Object[]) args : [args] as Object[]
+        datastore.async {
+            InvokerHelper.invokeStaticMethod(persistentClass, name, arguments)
+        }
+    }
+}
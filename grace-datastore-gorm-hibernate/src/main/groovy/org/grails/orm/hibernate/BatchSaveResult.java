@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of saving instances in batches with saveAll(..) or insertAll(..). Instances that failed validation
+ * and chunks that failed to be written are reported, the other chunks are saved regardless.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class BatchSaveResult {
+
+    private final List<Serializable> ids = new ArrayList<>();
+
+    private final List<Object> invalid = new ArrayList<>();
+
+    private final List<ChunkFailure> failures = new ArrayList<>();
+
+    /**
+     * @return The identifiers of the saved instances
+     */
+    public List<Serializable> getIds() {
+        return Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * @return The number of saved instances
+     */
+    public int getSavedCount() {
+        return ids.size();
+    }
+
+    /**
+     * @return The instances that failed validation, their errors are available from the instances
+     */
+    public List<Object> getInvalid() {
+        return Collections.unmodifiableList(invalid);
+    }
+
+    /**
+     * @return The chunks that could not be written
+     */
+    public List<ChunkFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return Whether any instance was not saved
+     */
+    public boolean hasErrors() {
+        return !invalid.isEmpty() || !failures.isEmpty();
+    }
+
+    void addSaved(Serializable id) {
+        ids.add(id);
+    }
+
+    void addInvalid(Object instance) {
+        invalid.add(instance);
+    }
+
+    void addFailure(int index, List<?> instances, Throwable cause) {
+        failures.add(new ChunkFailure(index, new ArrayList<>(instances), cause));
+    }
+
+    /**
+     * A chunk of instances whose changes were rolled back because writing them failed
+     */
+    public static class ChunkFailure {
+
+        private final int index;
+
+        private final List<Object> instances;
+
+        private final Throwable cause;
+
+        ChunkFailure(int index, List<Object> instances, Throwable cause) {
+            this.index = index;
+            this.instances = instances;
+            this.cause = cause;
+        }
+
+        /**
+         * @return The zero based index of the chunk
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The instances of the chunk that were not saved
+         */
+        public List<Object> getInstances() {
+            return Collections.unmodifiableList(instances);
+        }
+
+        /**
+         * @return The reason the chunk failed
+         */
+        public Throwable getCause() {
+            return cause;
+        }
+
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Executes the same query against several connection sources in parallel, with at most a given number of queries
+ * running at once, and combines their results.
+ * The results are concatenated in the order of the connection sources, merged with a k-way merge if a comparator is given,
+ * or streamed in the order in which the connection sources complete.
+ *
+ * @param <T> The type of the results
+ * @author Michael Yan
+ * @since 2023.1
+ * @see HibernateDatastore#fanOut(java.util.Map, groovy.lang.Closure)
+ */
+public class ConnectionSourceFanOut<T> {
+
+    /**
+     * The argument for the names of the connection sources to query
+     */
+    public static final String ARGUMENT_CONNECTIONS = "connections";
+
+    /**
+     * The argument for the maximum number of connection sources queried at once
+     */
+    public static final String ARGUMENT_MAX_CONCURRENCY = "maxConcurrency";
+
+    /**
+     * The argument for the {@link Comparator} by which the results of each connection source are sorted
+     */
+    public static final String ARGUMENT_COMPARATOR = "comparator";
+
+    private final List<String> connectionNames;
+
+    private final Function<String, Iterable<T>> query;
+
+    private final Executor executor;
+
+    private final int maxConcurrency;
+
+    private final Comparator<? super T> comparator;
+
+    private final int max;
+
+    /**
+     * @param connectionNames The names of the connection sources
+     * @param query Executes the query against the connection source with the given name
+     * @param executor The executor that runs the queries
+     * @param maxConcurrency The maximum number of queries running at once
+     * @param comparator The order of the results of each connection source or null
+     * @param max The maximum number of results or -1 for no limit
+     */
+    public ConnectionSourceFanOut(List<String> connectionNames, Function<String, Iterable<T>> query, Executor executor,
+            int maxConcurrency, Comparator<? super T> comparator, int max) {
+        this.connectionNames = connectionNames;
+        this.query = query;
+        this.executor = executor;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.comparator = comparator;
+        this.max = max;
+    }
+
+    /**
+     * @return The names of the connection sources that are queried
+     */
+    public List<String> getConnectionNames() {
+        return connectionNames;
+    }
+
+    /**
+     * Waits for all connection sources and combines their results. If there is a comparator the results are merged in
+     * its order, otherwise they are concatenated in the order of the connection sources
+     *
+     * @return The results, limited to the maximum if there is one
+     */
+    public List<T> list() {
+        int size = connectionNames.size();
+        List<List<T>> results = new ArrayList<>(Collections.nCopies(size, null));
+        Execution execution = new Execution();
+        execution.start();
+        for (int i = 0; i < size; i++) {
+            Outcome<T> outcome = execution.take();
+            results.set(outcome.index, outcome.results);
+        }
+        if (comparator != null) {
+            return merge(results);
+        }
+        List<T> combined = new ArrayList<>();
+        for (List<T> result : results) {
+            for (T element : result) {
+                if (max > -1 && combined.size() >= max) {
+                    return combined;
+                }
+                combined.add(element);
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Streams the results of each connection source as soon as it completes. If there is a comparator all connection sources
+     * have to complete before the merged results can be streamed. Closing the stream stops querying the connection sources
+     * that have not started yet
+     *
+     * @return A stream of the results, limited to the maximum if there is one
+     */
+    public Stream<T> stream() {
+        if (comparator != null) {
+            return list().stream();
+        }
+        final Execution execution = new Execution();
+        execution.start();
+        Iterator<T> iterator = new Iterator<T>() {
+            private int received;
+
+            private Iterator<T> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (received == connectionNames.size()) {
+                        return false;
+                    }
+                    current = execution.take().results.iterator();
+                    received++;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+        Stream<T> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(execution::cancel);
+        return max > -1 ? stream.limit(max) : stream;
+    }
+
+    protected List<T> merge(List<List<T>> results) {
+        PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(Math.max(1, results.size()), (left, right) -> {
+            int comparison = comparator.compare(left.head, right.head);
+            return comparison != 0 ? comparison : Integer.compare(left.source, right.source);
+        });
+        for (int i = 0; i < results.size(); i++) {
+            Iterator<T> iterator = results.get(i).iterator();
+            if (iterator.hasNext()) {
+                cursors.add(new Cursor<>(i, iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!cursors.isEmpty() && (max < 0 || merged.size() < max)) {
+            Cursor<T> cursor = cursors.poll();
+            merged.add(cursor.head);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static <T> List<T> toList(Iterable<T> results) {
+        if (results == null) {
+            return Collections.emptyList();
+        }
+        if (results instanceof List) {
+            return (List<T>) results;
+        }
+        List<T> list = new ArrayList<>();
+        for (T result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+    /**
+     * Launches the queries, starting the next one each time a query completes
+     */
+    private final class Execution {
+
+        private final BlockingQueue<Outcome<T>> outcomes = new LinkedBlockingQueue<>();
+
+        private final AtomicInteger nextIndex = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        void start() {
+            int initial = Math.min(maxConcurrency, connectionNames.size());
+            for (int i = 0; i < initial; i++) {
+                launchNext();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        void launchNext() {
+            if (cancelled) {
+                return;
+            }
+            final int index = nextIndex.getAndIncrement();
+            if (index >= connectionNames.size()) {
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    Outcome<T> outcome;
+                    try {
+                        outcome = new Outcome<>(index, toList(query.apply(connectionNames.get(index))), null);
+                    }
+                    catch (Throwable e) {
+                        outcome = new Outcome<>(index, null, e);
+                    }
+                    outcomes.add(outcome);
+                    launchNext();
+                });
+            }
+            catch (RejectedExecutionException e) {
+                outcomes.add(new Outcome<>(index, null, e));
+            }
+        }
+
+        Outcome<T> take() {
+            Outcome<T> outcome;
+            try {
+                outcome = outcomes.take();
+            }
+            catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the results of the connection sources", e);
+            }
+            if (outcome.failure != null) {
+                cancel();
+                if (outcome.failure instanceof RuntimeException) {
+                    throw (RuntimeException) outcome.failure;
+                }
+                if (outcome.failure instanceof Error) {
+                    throw (Error) outcome.failure;
+                }
+                throw new IllegalStateException("Query against connection source [" + connectionNames.get(outcome.index) + "] failed: " +
+                        outcome.failure.getMessage(), outcome.failure);
+            }
+            return outcome;
+        }
+
+    }
+
+    private static final class Outcome<T> {
+
+        final int index;
+
+        final List<T> results;
+
+        final Throwable failure;
+
+        Outcome(int index, List<T> results, Throwable failure) {
+            this.index = index;
+            this.results = results;
+            this.failure = failure;
+        }
+
+    }
+
+    private static final class Cursor<T> {
+
+        final int source;
+
+        final Iterator<T> iterator;
+
+        T head;
+
+        Cursor(int source, Iterator<T> iterator) {
+            this.source = source;
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (iterator.hasNext()) {
+                head = iterator.next();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+import org.springframework.orm.hibernate5.SessionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A {@link SessionBindingContext} that binds the session holder to the current thread with the
+ * {@link TransactionSynchronizationManager}, where the Spring transaction managers and {@link GrailsSessionContext}
+ * look it up.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class DefaultSessionBindingContext implements SessionBindingContext {
+
+    @Override
+    public SessionHolder getSessionHolder(SessionFactory sessionFactory) {
+        return (SessionHolder) TransactionSynchronizationManager.getResource(sessionFactory);
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @Override
+    public <T> T callWithSessionHolder(SessionFactory sessionFactory, SessionHolder sessionHolder, Callable<T> task) throws Exception {
+        Object previous = TransactionSynchronizationManager.unbindResourceIfPossible(sessionFactory);
+        TransactionSynchronizationManager.bindResource(sessionFactory, sessionHolder);
+        try {
+            return task.call();
+        }
+        finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(sessionFactory);
+            if (previous != null) {
+                TransactionSynchronizationManager.bindResource(sessionFactory, previous);
+            }
+        }
+    }
+
+}
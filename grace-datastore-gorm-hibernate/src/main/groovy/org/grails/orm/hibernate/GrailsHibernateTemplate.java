@@ -124,6 +124,15 @@ public class GrailsHibernateTemplate implements IHibernateTemplate {
     public GrailsHibernateTemplate(SessionFactory sessionFactory, HibernateDatastore datastore, int defaultFlushMode) {
         this(sessionFactory);
         if (datastore != null) {
+            // bind connections under the data source of the transaction manager, rather than under the proxies
+            // that the session factory may obtain its connections through
+            DataSource transactionDataSource = datastore.getDataSource();
+            if (transactionDataSource instanceof TransactionAwareDataSourceProxy) {
+                transactionDataSource = ((TransactionAwareDataSourceProxy) transactionDataSource).getTargetDataSource();
+            }
+            if (transactionDataSource != null) {
+                this.dataSource = transactionDataSource;
+            }
             cacheQueries = datastore.isCacheQueries();
             this.osivReadOnly = datastore.isOsivReadOnly();
             this.passReadOnlyToHibernate = datastore.isPassReadOnlyToHibernate();
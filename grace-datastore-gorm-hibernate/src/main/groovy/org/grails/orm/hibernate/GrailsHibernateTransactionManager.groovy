@@ -34,6 +34,11 @@ import org.springframework.util.Assert
 /**
  * Extends the standard class to always set the flush mode to manual when in a read-only transaction.
  *
+ * <p>With the <code>hibernate.transaction.lazyConnection</code> setting the session factory obtains its connections
+ * through a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that {@link #doBegin} only
+ * prepares a connection handle with the read-only flag and isolation level of the transaction. The pooled connection
+ * is obtained, and the flags applied to it, when the first statement is executed.</p>
+ *
  * @author Burt Beckwith
  */
 @CompileStatic
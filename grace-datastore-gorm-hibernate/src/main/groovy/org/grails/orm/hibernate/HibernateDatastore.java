@@ -19,15 +19,19 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
+import groovy.lang.Closure;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.SchemaAutoTooling;
@@ -88,6 +92,7 @@ import org.grails.orm.hibernate.connections.HibernateConnectionSource;
 import org.grails.orm.hibernate.connections.HibernateConnectionSourceFactory;
 import org.grails.orm.hibernate.connections.HibernateConnectionSourceSettings;
 import org.grails.orm.hibernate.event.listener.HibernateEventListener;
+import org.grails.orm.hibernate.query.HibernateQueryConstants;
 import org.grails.orm.hibernate.multitenancy.MultiTenantEventListener;
 import org.grails.orm.hibernate.support.ClosureEventTriggeringInterceptor;
 
@@ -387,6 +392,108 @@ public class HibernateDatastore extends AbstractHibernateDatastore implements Me
         }
     }
 
+    /**
+     * Executes the given closure against each connection source in parallel, each in its own session and transaction,
+     * and concatenates the results in the order of the connection sources. With database or schema multi-tenancy the
+     * connection sources are the tenants, and the closure runs with the tenant as the current tenant.
+     * The closure is called with the name of the connection source and returns an {@link Iterable} or a single result.
+     * The supported arguments are:
+     * <ul>
+     *     <li>connections - The names of the connection sources to query, all of them by default</li>
+     *     <li>maxConcurrency - The maximum number of connection sources queried at once</li>
+     *     <li>comparator - The {@link Comparator} by which the results of each connection source are sorted, to merge them in this order</li>
+     *     <li>max - The maximum number of results</li>
+     * </ul>
+     *
+     * @param args The arguments
+     * @param callable The closure
+     * @return The results
+     */
+    public <T> List<T> fanOut(Map<String, ?> args, Closure<?> callable) {
+        return this.<T>createFanOut(args, callable).list();
+    }
+
+    /**
+     * Executes the given closure against all connection sources in parallel
+     *
+     * @see #fanOut(Map, Closure)
+     */
+    public <T> List<T> fanOut(Closure<?> callable) {
+        return fanOut(Collections.emptyMap(), callable);
+    }
+
+    /**
+     * Executes the given closure against each connection source in parallel and streams the results of each connection source
+     * as soon as it completes. The stream should be closed if it is not fully consumed
+     *
+     * @see #fanOut(Map, Closure)
+     */
+    public <T> Stream<T> fanOutStream(Map<String, ?> args, Closure<?> callable) {
+        return this.<T>createFanOut(args, callable).stream();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> ConnectionSourceFanOut<T> createFanOut(Map<String, ?> args, final Closure<?> callable) {
+        List<String> connectionNames = new ArrayList<>();
+        Object connections = args.get(ConnectionSourceFanOut.ARGUMENT_CONNECTIONS);
+        if (connections instanceof Iterable) {
+            for (Object connection : (Iterable<?>) connections) {
+                String connectionName = connection.toString();
+                // fail before anything is queried if the connection source does not exist
+                getDatastoreForConnection(connectionName);
+                connectionNames.add(connectionName);
+            }
+        }
+        else {
+            connectionNames.addAll(resolveFanOutConnectionNames());
+        }
+
+        Object maxConcurrency = args.get(ConnectionSourceFanOut.ARGUMENT_MAX_CONCURRENCY);
+        Object max = args.get(HibernateQueryConstants.ARGUMENT_MAX);
+        int defaultConcurrency = asyncPoolSize > 0 ? asyncPoolSize : Runtime.getRuntime().availableProcessors();
+        return new ConnectionSourceFanOut<>(
+                connectionNames,
+                connectionName -> toIterable(executeOnConnection(connectionName, callable)),
+                getFanOutExecutor(),
+                maxConcurrency instanceof Number ? ((Number) maxConcurrency).intValue() : defaultConcurrency,
+                (Comparator<? super T>) args.get(ConnectionSourceFanOut.ARGUMENT_COMPARATOR),
+                max instanceof Number ? ((Number) max).intValue() : -1);
+    }
+
+    /**
+     * @return The connection sources queried by {@link #fanOut(Map, Closure)} by default, which are the tenants
+     * with database or schema multi-tenancy
+     */
+    protected List<String> resolveFanOutConnectionNames() {
+        if (datastoresByConnectionSource.isEmpty()) {
+            return Collections.singletonList(ConnectionSource.DEFAULT);
+        }
+        List<String> connectionNames = new ArrayList<>(datastoresByConnectionSource.keySet());
+        if (getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DATABASE) {
+            connectionNames.remove(ConnectionSource.DEFAULT);
+        }
+        return connectionNames;
+    }
+
+    protected Object executeOnConnection(String connectionName, Closure<?> callable) {
+        Closure<?> connectionCallable = callable.curry(connectionName);
+        if (getMultiTenancyMode() == MultiTenancySettings.MultiTenancyMode.DATABASE) {
+            return executeAsync(connectionName, connectionCallable);
+        }
+        return getDatastoreForConnection(connectionName).executeAsync(null, connectionCallable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Iterable<T> toIterable(Object result) {
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        if (result instanceof Iterable) {
+            return (Iterable<T>) result;
+        }
+        return Collections.singletonList((T) result);
+    }
+
     @Override
     public String toString() {
         return "HibernateDatastore: " + getDataSourceName();
@@ -411,6 +518,9 @@ public class HibernateDatastore extends AbstractHibernateDatastore implements Me
             eventPublisher.addApplicationListener(new MultiTenantEventListener());
         }
         eventPublisher.addApplicationListener(eventTriggeringInterceptor);
+        if (totalCountCache != null) {
+            eventPublisher.addApplicationListener(totalCountCache);
+        }
     }
 
     protected void configureValidatorRegistry(HibernateConnectionSourceSettings settings, HibernateMappingContext mappingContext) {
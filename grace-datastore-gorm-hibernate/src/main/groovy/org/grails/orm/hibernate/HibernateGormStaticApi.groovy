@@ -15,18 +15,26 @@
  */
 package org.grails.orm.hibernate
 
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+
 import jakarta.persistence.FlushModeType
 import jakarta.persistence.criteria.CriteriaBuilder
 import jakarta.persistence.criteria.CriteriaQuery
+import jakarta.persistence.criteria.JoinType
 import jakarta.persistence.criteria.Root
 
-import groovy.transform.CompileDynamic
 import groovy.transform.CompileStatic
 import org.hibernate.Criteria
+import org.hibernate.FetchMode
 import org.hibernate.FlushMode
 import org.hibernate.LockMode
 import org.hibernate.Session
 import org.hibernate.SessionFactory
+import org.hibernate.dialect.Dialect
+import org.hibernate.engine.spi.SessionFactoryImplementor
+import org.hibernate.engine.spi.SharedSessionContractImplementor
+import org.hibernate.jpa.QueryHints
 import org.hibernate.query.Query
 import org.springframework.core.convert.ConversionService
 import org.springframework.orm.hibernate5.SessionHolder
@@ -45,7 +53,11 @@ import org.grails.orm.hibernate.exceptions.GrailsQueryException
 import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils
 import org.grails.orm.hibernate.query.HibernateHqlQuery
 import org.grails.orm.hibernate.query.HibernateQuery
+import org.grails.orm.hibernate.query.HibernateQueryConstants
+import org.grails.orm.hibernate.query.KeysetPagination
+import org.grails.orm.hibernate.query.KeysetResultList
 import org.grails.orm.hibernate.query.PagedResultList
+import org.grails.orm.hibernate.query.TotalCountCache
 
 /**
  * The implementation of the GORM static method contract for Hibernate
@@ -56,6 +68,9 @@ import org.grails.orm.hibernate.query.PagedResultList
 @CompileStatic
 class HibernateGormStaticApi<D> extends AbstractHibernateGormStaticApi<D> {
 
+    private static final Set<String> PAGE_ARGUMENTS = [HibernateQueryConstants.ARGUMENT_MAX, HibernateQueryConstants.ARGUMENT_OFFSET,
+            HibernateQueryConstants.ARGUMENT_SORT, HibernateQueryConstants.ARGUMENT_ORDER, HibernateQueryConstants.ARGUMENT_IGNORE_CASE] as Set<String>
+
     protected SessionFactory sessionFactory
     protected ConversionService conversionService
     protected Class identityType
@@ -82,6 +97,9 @@ class HibernateGormStaticApi<D> extends AbstractHibernateGormStaticApi<D> {
 
     @Override
     List<D> list(Map params = Collections.emptyMap()) {
+        if (params != null && params.containsKey(HibernateQueryConstants.ARGUMENT_AFTER)) {
+            return listAfter(params)
+        }
         hibernateTemplate.execute { Session session ->
             CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
             CriteriaQuery criteriaQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
@@ -113,7 +131,34 @@ class HibernateGormStaticApi<D> extends AbstractHibernateGormStaticApi<D> {
             hibernateTemplate.applySettings(query)
 
             params = params ? new HashMap(params) : Collections.emptyMap()
+            if (isPagedCollectionFetch(params)) {
+                List results = listByIdPage(session, params)
+                if (params.containsKey(DynamicFinder.ARGUMENT_MAX)) {
+                    // the total is counted without the joins of the fetch argument, which would count the joined rows
+                    Map countParams = new HashMap(params)
+                    countParams.remove(DynamicFinder.ARGUMENT_FETCH)
+                    CriteriaQuery countQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+                    Root countRoot = countQuery.from(persistentEntity.javaClass)
+                    GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, countQuery, countRoot, criteriaBuilder, countParams, conversionService, true)
+                    return new PagedResultList(
+                            hibernateTemplate,
+                            persistentEntity,
+                            results,
+                            Integer.MIN_VALUE,
+                            countQuery,
+                            countRoot,
+                            criteriaBuilder
+                    )
+                }
+                return results
+            }
             if (params.containsKey(DynamicFinder.ARGUMENT_MAX)) {
+                if (isWindowCountApplicable(params)) {
+                    return listWithWindowCount(session, params, criteriaQuery, queryRoot, criteriaBuilder)
+                }
+                if (isTotalCountDeferrable()) {
+                    return listWithDeferredCount(params, hibernateQuery, criteriaQuery, queryRoot, criteriaBuilder)
+                }
                 return new PagedResultList(
                         hibernateTemplate,
                         persistentEntity,
@@ -129,6 +174,263 @@ class HibernateGormStaticApi<D> extends AbstractHibernateGormStaticApi<D> {
         }
     }
 
+    /**
+     * Whether a page of instances is listed that joins a collection. Paging over the joined rows would cut the collections
+     * of the instances at the edges of the page, so such pages are listed by id
+     */
+    protected boolean isPagedCollectionFetch(Map params) {
+        if (!params.containsKey(DynamicFinder.ARGUMENT_MAX) && !params.containsKey(DynamicFinder.ARGUMENT_OFFSET)) {
+            return false
+        }
+        if (persistentEntity.identity == null || persistentEntity.compositeIdentity != null) {
+            return false
+        }
+        Object fetch = params.get(DynamicFinder.ARGUMENT_FETCH)
+        if (fetch instanceof Map) {
+            for (Map.Entry entry in ((Map) fetch).entrySet()) {
+                if (GrailsHibernateQueryUtils.getFetchMode(entry.value) == FetchMode.JOIN &&
+                        GrailsHibernateQueryUtils.isToManyPath(persistentEntity, entry.key.toString())) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Lists a page of instances in two queries. The ids of the page are selected without the joins of the fetch argument,
+     * and the instances of the page are then loaded by id with their collections fetched
+     */
+    protected List listByIdPage(Session session, Map params) {
+        Map idParams = new HashMap(params)
+        Map fetch = (Map) idParams.remove(DynamicFinder.ARGUMENT_FETCH)
+        String idName = persistentEntity.identity.name
+
+        CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
+        CriteriaQuery<Object> idQuery = criteriaBuilder.createQuery(Object)
+        Root idRoot = idQuery.from(persistentEntity.javaClass)
+        GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, idQuery, idRoot, criteriaBuilder, idParams, conversionService, true)
+        idQuery.select(idRoot.get(idName))
+        Query query = session.createQuery(idQuery)
+        GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, query, idParams, conversionService, true)
+        hibernateTemplate.applySettings(query)
+        List ids = query.list()
+        if (ids.isEmpty()) {
+            return []
+        }
+
+        CriteriaQuery entityQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+        Root entityRoot = entityQuery.from(persistentEntity.javaClass)
+        for (Map.Entry entry in fetch.entrySet()) {
+            if (GrailsHibernateQueryUtils.getFetchMode(entry.value) == FetchMode.JOIN) {
+                entityRoot.fetch(entry.key.toString(), JoinType.LEFT)
+            }
+        }
+        entityQuery.select(entityRoot).distinct(true).where(entityRoot.get(idName).'in'(ids))
+        Query entities = session.createQuery(entityQuery)
+        Map entityParams = new HashMap(idParams)
+        entityParams.remove(DynamicFinder.ARGUMENT_MAX)
+        entityParams.remove(DynamicFinder.ARGUMENT_OFFSET)
+        // the rows were locked when the ids were selected
+        entityParams.remove(DynamicFinder.ARGUMENT_LOCK)
+        GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, entities, entityParams, conversionService, true)
+        hibernateTemplate.applySettings(entities)
+        entities.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+        return GrailsHibernateQueryUtils.orderByIds(persistentEntity.javaClass, ids, entities.list(), (SharedSessionContractImplementor) session)
+    }
+
+    /**
+     * Lists a page of instances, obtaining the total count in the same statement with count(*) over()
+     */
+    protected PagedResultList listWithWindowCount(Session session, Map params, CriteriaQuery criteriaQuery, Root queryRoot, CriteriaBuilder criteriaBuilder) {
+        CriteriaQuery<Object[]> windowQuery = criteriaBuilder.createQuery(Object[])
+        Root windowRoot = windowQuery.from(persistentEntity.javaClass)
+        GrailsHibernateQueryUtils.populateArgumentsForCriteria(
+                persistentEntity,
+                windowQuery,
+                windowRoot,
+                criteriaBuilder,
+                params,
+                conversionService,
+                true
+        )
+        windowQuery.multiselect(windowRoot, criteriaBuilder.function(GrailsHibernateQueryUtils.WINDOW_COUNT_FUNCTION, Long))
+        Query query = session.createQuery(windowQuery)
+        GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, query, params, conversionService, true)
+        hibernateTemplate.applySettings(query)
+
+        HibernateHqlQuery hibernateQuery = new HibernateHqlQuery(
+                new HibernateSession((HibernateDatastore) datastore, sessionFactory),
+                persistentEntity,
+                query
+        )
+        List rows = hibernateQuery.list()
+        List results = new ArrayList(rows.size())
+        for (Object row in rows) {
+            results.add(((Object[]) row)[0])
+        }
+        // a page past the last row has nothing to read the total count from, so it is left to the count query
+        int totalCount = rows.isEmpty() ? Integer.MIN_VALUE : ((Number) ((Object[]) rows.get(0))[1]).intValue()
+        return new PagedResultList(
+                hibernateTemplate,
+                persistentEntity,
+                results,
+                totalCount,
+                criteriaQuery,
+                queryRoot,
+                criteriaBuilder
+        )
+    }
+
+    /**
+     * Lists a page of instances, taking the total count from the count cache or starting the count query
+     * on a separate session before the page is queried
+     */
+    protected PagedResultList listWithDeferredCount(Map params, HibernateHqlQuery hibernateQuery, CriteriaQuery criteriaQuery, Root queryRoot, CriteriaBuilder criteriaBuilder) {
+        AbstractHibernateDatastore hibernateDatastore = (AbstractHibernateDatastore) datastore
+        TotalCountCache totalCountCache = hibernateDatastore.totalCountCache
+        String totalCountKey = createTotalCountKey(params)
+        if (totalCountKey == null) {
+            totalCountCache = null
+        }
+        Integer totalCount = totalCountCache != null ? totalCountCache.get(persistentEntity, totalCountKey) : null
+
+        Future<Integer> totalCountFuture = null
+        if (totalCount == null && hibernateDatastore.asyncCount) {
+            GrailsHibernateTemplate template = hibernateTemplate
+            SessionFactory sessionFactory = this.sessionFactory
+            // counting changes the selection of the query, so the count runs on a copy rather than the query of the page
+            CriteriaQuery countQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+            Root countRoot = countQuery.from(persistentEntity.javaClass)
+            GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, countQuery, countRoot, criteriaBuilder, params, conversionService, true)
+            totalCountFuture = hibernateDatastore.countExecutor.submit({ ->
+                Session countSession = sessionFactory.openSession()
+                try {
+                    countSession.setDefaultReadOnly(true)
+                    return PagedResultList.count(countSession, template, countQuery, countRoot, criteriaBuilder)
+                }
+                finally {
+                    countSession.close()
+                }
+            } as Callable<Integer>)
+        }
+
+        PagedResultList pagedResultList = new PagedResultList(
+                hibernateTemplate,
+                persistentEntity,
+                hibernateQuery.list(),
+                totalCount != null ? totalCount.intValue() : Integer.MIN_VALUE,
+                criteriaQuery,
+                queryRoot,
+                criteriaBuilder
+        )
+        if (totalCountFuture != null) {
+            pagedResultList.setTotalCountFuture(totalCountFuture)
+        }
+        if (totalCount == null && totalCountCache != null) {
+            pagedResultList.cacheTotalCount(totalCountCache, totalCountKey)
+        }
+        return pagedResultList
+    }
+
+    /**
+     * Whether the total count can be cached or obtained on a separate session. Multi-tenant entities are excluded,
+     * since the tenant filter is only enabled on the current session
+     */
+    protected boolean isTotalCountDeferrable() {
+        AbstractHibernateDatastore hibernateDatastore = (AbstractHibernateDatastore) datastore
+        return (hibernateDatastore.asyncCount || hibernateDatastore.totalCountCache != null) && !persistentEntity.isMultiTenant()
+    }
+
+    /**
+     * Creates the key of the count of list(..) from every argument except those of the page. Joins are normalized,
+     * since only the joined associations change the count rather than their order
+     *
+     * @return The key or null if an argument has no value that can be part of a key
+     */
+    protected String createTotalCountKey(Map params) {
+        Map<String, Object> arguments = new TreeMap<>()
+        for (Map.Entry entry in ((Map<Object, Object>) params).entrySet()) {
+            String name = entry.key.toString()
+            if (!PAGE_ARGUMENTS.contains(name)) {
+                arguments.put(name, entry.value)
+            }
+        }
+        Object fetch = arguments.get(DynamicFinder.ARGUMENT_FETCH)
+        if (fetch instanceof Map) {
+            List<String> joins = new ArrayList<>()
+            for (Map.Entry entry in ((Map) fetch).entrySet()) {
+                if (GrailsHibernateQueryUtils.getFetchMode(entry.value) == FetchMode.JOIN) {
+                    joins.add(entry.key.toString())
+                }
+            }
+            Collections.sort(joins)
+            arguments.put(DynamicFinder.ARGUMENT_FETCH, joins)
+        }
+        return TotalCountCache.createKey('list', arguments.keySet().join(','), new ArrayList<Object>(arguments.values()))
+    }
+
+    /**
+     * Whether the total count can be obtained with a window function. Joins are excluded since they would count the joined rows
+     */
+    protected boolean isWindowCountApplicable(Map params) {
+        if (!((AbstractHibernateDatastore) datastore).isWindowCount()) {
+            return false
+        }
+        Object fetch = params.get(DynamicFinder.ARGUMENT_FETCH)
+        if (fetch instanceof Map) {
+            for (Object fetchMode in ((Map) fetch).values()) {
+                if (GrailsHibernateQueryUtils.getFetchMode(fetchMode) == FetchMode.JOIN) {
+                    return false
+                }
+            }
+        }
+        Dialect dialect = ((SessionFactoryImplementor) sessionFactory).getJdbcServices().getDialect()
+        return GrailsHibernateQueryUtils.supportsWindowCount(dialect)
+    }
+
+    /**
+     * Lists a page of instances using keyset pagination. The page following the one that ended with the row
+     * identified by the 'after' argument is returned, along with the cursor of the next page
+     *
+     * @param params The query arguments, where 'after' is either a cursor or the sort values of the last row
+     * @return The page
+     */
+    protected KeysetResultList<D> listAfter(Map params) {
+        (KeysetResultList<D>) hibernateTemplate.execute { Session session ->
+            KeysetPagination keyset = new KeysetPagination(persistentEntity, params, conversionService)
+            Map args = keyset.queryArguments
+            CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder()
+            CriteriaQuery criteriaQuery = criteriaBuilder.createQuery(persistentEntity.javaClass)
+            Root queryRoot = criteriaQuery.from(persistentEntity.javaClass)
+            GrailsHibernateQueryUtils.populateArgumentsForCriteria(
+                    persistentEntity,
+                    criteriaQuery,
+                    queryRoot,
+                    criteriaBuilder,
+                    args,
+                    conversionService,
+                    false
+            )
+            keyset.apply(criteriaQuery, queryRoot, criteriaBuilder)
+            Query query = session.createQuery(criteriaQuery)
+            keyset.bindParameters(query)
+            GrailsHibernateQueryUtils.populateArgumentsForCriteria(persistentEntity, query, args, conversionService, true)
+            hibernateTemplate.applySettings(query)
+            if (keyset.max > -1) {
+                // one extra row tells whether there is a next page
+                query.setMaxResults(keyset.max + 1)
+            }
+
+            HibernateHqlQuery hibernateQuery = new HibernateHqlQuery(
+                    new HibernateSession((HibernateDatastore) datastore, sessionFactory),
+                    persistentEntity,
+                    query
+            )
+            keyset.createResultList(hibernateQuery.list())
+        }
+    }
+
     @Override
     def propertyMissing(String name) {
         return GormEnhancer.findStaticApi(persistentClass, name)
@@ -257,9 +559,10 @@ class HibernateGormStaticApi<D> extends AbstractHibernateGormStaticApi<D> {
         return query
     }
 
-    @CompileDynamic
     protected void setResultTransformer(Criteria c) {
-        c.resultTransformer = Criteria.DISTINCT_ROOT_ENTITY
+        if (GrailsHibernateQueryUtils.isToManyJoinPresent(persistentEntity, c)) {
+            c.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+        }
     }
 
 }
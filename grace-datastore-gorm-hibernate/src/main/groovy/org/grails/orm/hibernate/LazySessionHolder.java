@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+import java.util.function.Supplier;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.orm.hibernate5.SessionHolder;
+
+/**
+ * A {@link SessionHolder} that opens its session when the session is first requested, usually through
+ * {@link GrailsSessionContext#currentSession()}. It is bound in place of an open session, so that a request or job
+ * that never accesses the database does not open a session at all.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class LazySessionHolder extends SessionHolder {
+
+    private final Supplier<Session> sessionOpener;
+
+    private Session session;
+
+    private FlushMode initialFlushMode;
+
+    /**
+     * @param sessionOpener Opens the session on first use
+     */
+    public LazySessionHolder(Supplier<Session> sessionOpener) {
+        super((Session) null);
+        this.sessionOpener = sessionOpener;
+    }
+
+    @Override
+    public Session getSession() {
+        if (session == null) {
+            Session opened = sessionOpener.get();
+            if (initialFlushMode != null) {
+                opened.setHibernateFlushMode(initialFlushMode);
+            }
+            session = opened;
+        }
+        return session;
+    }
+
+    @Override
+    public EntityManager getEntityManager() {
+        return getSession();
+    }
+
+    /**
+     * @return Whether the session was opened
+     */
+    public boolean isSessionOpened() {
+        return session != null;
+    }
+
+    /**
+     * Sets the flush mode of the session, which is applied when the session is opened if it is not open yet
+     *
+     * @param flushMode The flush mode
+     */
+    public void setFlushMode(FlushMode flushMode) {
+        if (session != null) {
+            session.setHibernateFlushMode(flushMode);
+        }
+        else {
+            initialFlushMode = flushMode;
+        }
+    }
+
+}
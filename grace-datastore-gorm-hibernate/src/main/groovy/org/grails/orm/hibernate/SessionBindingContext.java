@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+import org.springframework.orm.hibernate5.SessionHolder;
+
+/**
+ * Where the session holder of the current unit of work is bound while a task runs with it. Binding is scoped to a
+ * task rather than set and cleared separately. Only the {@link DefaultSessionBindingContext binding to the current thread}
+ * is supported, since the Spring transaction managers, {@link GrailsSessionContext} and the
+ * HibernatePersistenceContextInterceptor of the plugin look the session up there.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ * @see AbstractHibernateDatastore#propagateSession(Callable, SessionPropagation)
+ */
+public interface SessionBindingContext {
+
+    /**
+     * @param sessionFactory The session factory
+     * @return The session holder bound for the given session factory or null if there is none
+     */
+    SessionHolder getSessionHolder(SessionFactory sessionFactory);
+
+    /**
+     * @return Whether a transaction is active in the current unit of work
+     */
+    boolean isTransactionActive();
+
+    /**
+     * Runs the given task with the session holder bound for the given session factory, and restores the previous
+     * binding when the task completes
+     *
+     * @param sessionFactory The session factory
+     * @param sessionHolder The session holder
+     * @param task The task
+     * @return The result of the task
+     * @throws Exception If the task fails
+     */
+    <T> T callWithSessionHolder(SessionFactory sessionFactory, SessionHolder sessionHolder, Callable<T> task) throws Exception;
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate;
+
+/**
+ * How the session bound to the current thread is propagated to a task that runs on another thread, such as a virtual
+ * thread forked by a structured task scope.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ * @see AbstractHibernateDatastore#propagateSession(java.util.concurrent.Callable, SessionPropagation)
+ */
+public enum SessionPropagation {
+
+    /**
+     * The task uses the session of the thread that created it. A session is not thread-safe, so that thread must not
+     * use the session until the task has completed
+     */
+    INHERIT,
+
+    /**
+     * The task uses its own session, which is opened when it is first used and closed when the task completes
+     */
+    ISOLATE
+
+}
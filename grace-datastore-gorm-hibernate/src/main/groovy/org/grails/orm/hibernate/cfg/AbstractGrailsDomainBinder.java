@@ -14,9 +14,8 @@
  */
 package org.grails.orm.hibernate.cfg;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.grails.datastore.mapping.model.PersistentEntity;
 
@@ -29,8 +28,18 @@ import org.grails.datastore.mapping.model.PersistentEntity;
  */
 public abstract class AbstractGrailsDomainBinder {
 
-    protected static final Map<Class<?>, Mapping> MAPPING_CACHE = new HashMap<>();
+    /**
+     * The mappings and query defaults by domain class. The values are stored with the class, so that they are released
+     * when the class is unloaded, and mappings of all classes are cleared by starting a new generation.
+     */
+    private static final ClassValue<AtomicReference<EntityQueryDefaults>> QUERY_DEFAULTS = new ClassValue<AtomicReference<EntityQueryDefaults>>() {
+        @Override
+        protected AtomicReference<EntityQueryDefaults> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
 
+    private static final AtomicInteger GENERATION = new AtomicInteger();
 
     /**
      * Obtains a mapping object for the given domain class nam
@@ -39,7 +48,22 @@ public abstract class AbstractGrailsDomainBinder {
      * @return A Mapping object or null
      */
     public static Mapping getMapping(Class<?> theClass) {
-        return theClass == null ? null : MAPPING_CACHE.get(theClass);
+        EntityQueryDefaults queryDefaults = getQueryDefaults(theClass);
+        return queryDefaults == null ? null : queryDefaults.getMapping();
+    }
+
+    /**
+     * Obtains the mapping of the given domain class along with the defaults of its queries
+     *
+     * @param theClass The domain class in question
+     * @return The query defaults or null if the class is not mapped
+     */
+    public static EntityQueryDefaults getQueryDefaults(Class<?> theClass) {
+        if (theClass == null) {
+            return null;
+        }
+        EntityQueryDefaults queryDefaults = QUERY_DEFAULTS.get(theClass).get();
+        return queryDefaults != null && queryDefaults.getGeneration() == GENERATION.get() ? queryDefaults : null;
     }
 
     /**
@@ -49,7 +73,7 @@ public abstract class AbstractGrailsDomainBinder {
      * @return A Mapping object or null
      */
     static void cacheMapping(Class<?> theClass, Mapping mapping) {
-        MAPPING_CACHE.put(theClass, mapping);
+        QUERY_DEFAULTS.get(theClass).set(new EntityQueryDefaults(mapping, GENERATION.get()));
     }
 
     /**
@@ -59,22 +83,15 @@ public abstract class AbstractGrailsDomainBinder {
      * @return A Mapping object or null
      */
     public static Mapping getMapping(PersistentEntity domainClass) {
-        return domainClass == null ? null : MAPPING_CACHE.get(domainClass.getJavaClass());
+        return domainClass == null ? null : getMapping(domainClass.getJavaClass());
     }
 
     public static void clearMappingCache() {
-        MAPPING_CACHE.clear();
+        GENERATION.incrementAndGet();
     }
 
     public static void clearMappingCache(Class<?> theClass) {
-        String className = theClass.getName();
-        for (Iterator<Map.Entry<Class<?>, Mapping>> it = MAPPING_CACHE.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<Class<?>, Mapping> entry = it.next();
-            if (className.equals(entry.getKey().getName())) {
-                it.remove();
-            }
-        }
+        QUERY_DEFAULTS.remove(theClass);
     }
 
 }
-
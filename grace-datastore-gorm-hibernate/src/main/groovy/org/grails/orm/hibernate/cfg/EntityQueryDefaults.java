@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.cfg;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.grails.orm.hibernate.query.HibernateQueryConstants;
+
+/**
+ * The mapping of a domain class together with the defaults that its queries derive from the mapping. The defaults are
+ * computed once, when the mapping is evaluated, so that queries read them without evaluating the mapping again.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public final class EntityQueryDefaults {
+
+    private final Mapping mapping;
+
+    private final Map<String, String> sortOrders;
+
+    private final boolean cacheable;
+
+    private final int generation;
+
+    private volatile Boolean collectionJoined;
+
+    EntityQueryDefaults(Mapping mapping, int generation) {
+        this.mapping = mapping;
+        this.generation = generation;
+        this.cacheable = mapping.getCache() != null && mapping.getCache().getEnabled();
+
+        Map<String, String> orders = new LinkedHashMap<>();
+        SortConfig sort = mapping.getSort();
+        if (sort != null) {
+            for (Object entry : sort.getNamesAndDirections().entrySet()) {
+                Map.Entry<?, ?> sortEntry = (Map.Entry<?, ?>) entry;
+                Object direction = sortEntry.getValue();
+                orders.put(sortEntry.getKey().toString(),
+                        direction != null && HibernateQueryConstants.ORDER_DESC.equalsIgnoreCase(direction.toString()) ?
+                                HibernateQueryConstants.ORDER_DESC : HibernateQueryConstants.ORDER_ASC);
+            }
+        }
+        this.sortOrders = Collections.unmodifiableMap(orders);
+    }
+
+    /**
+     * @return The mapping of the domain class
+     */
+    public Mapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * @return The properties that queries are sorted by when they specify no order, mapped to 'asc' or 'desc'
+     */
+    public Map<String, String> getSortOrders() {
+        return sortOrders;
+    }
+
+    /**
+     * @return Whether the query cache is enabled for the domain class
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Whether a collection is fetched with a join, by the mapping of the domain class or of the eagerly fetched
+     * associations, so that the root entities of queries can be repeated in the results
+     *
+     * @return True, false or null if it was not determined yet
+     */
+    public Boolean getCollectionJoined() {
+        return collectionJoined;
+    }
+
+    public void setCollectionJoined(boolean collectionJoined) {
+        this.collectionJoined = collectionJoined;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+}
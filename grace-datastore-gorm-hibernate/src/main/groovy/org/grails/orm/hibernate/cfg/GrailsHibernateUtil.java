@@ -178,12 +178,10 @@ public class GrailsHibernateUtil extends HibernateRuntimeUtils {
             }
         }
         else if (useDefaultMapping) {
-            Mapping m = GrailsDomainBinder.getMapping(targetClass);
-            if (m != null) {
-                Map sortMap = m.getSort().getNamesAndDirections();
-                for (Object sort : sortMap.keySet()) {
-                    final String order = ORDER_DESC.equalsIgnoreCase((String) sortMap.get(sort)) ? ORDER_DESC : ORDER_ASC;
-                    addOrderPossiblyNested(datastore, c, targetClass, (String) sort, order, true);
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(targetClass);
+            if (queryDefaults != null) {
+                for (Map.Entry<String, String> sort : queryDefaults.getSortOrders().entrySet()) {
+                    addOrderPossiblyNested(datastore, c, targetClass, sort.getKey(), sort.getValue(), true);
                 }
             }
         }
@@ -281,8 +279,8 @@ public class GrailsHibernateUtil extends HibernateRuntimeUtils {
      * @param criteria The criteria
      */
     public static void cacheCriteriaByMapping(Class<?> targetClass, Criteria criteria) {
-        Mapping m = GrailsDomainBinder.getMapping(targetClass);
-        if (m != null && m.getCache() != null && m.getCache().getEnabled()) {
+        EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(targetClass);
+        if (queryDefaults != null && queryDefaults.isCacheable()) {
             criteria.setCacheable(true);
         }
     }
@@ -47,10 +47,12 @@ import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.cfg.Environment;
 import org.hibernate.context.spi.CurrentSessionContext;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
 import org.hibernate.internal.util.config.ConfigurationHelper;
 import org.hibernate.property.access.spi.PropertyAccessStrategy;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.type.StandardBasicTypes;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -74,6 +76,7 @@ import org.grails.orm.hibernate.GrailsSessionContext;
 import org.grails.orm.hibernate.HibernateEventListeners;
 import org.grails.orm.hibernate.MetadataIntegrator;
 import org.grails.orm.hibernate.access.TraitPropertyAccessStrategy;
+import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils;
 
 /**
  * A Configuration that uses a MappingContext to configure Hibernate
@@ -317,6 +320,8 @@ public class HibernateMappingContextConfiguration extends Configuration implemen
             }
         });
 
+        addSqlFunction(GrailsHibernateQueryUtils.WINDOW_COUNT_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+
         StandardServiceRegistryBuilder standardServiceRegistryBuilder = createStandardServiceRegistryBuilder(bootstrapServiceRegistry)
                 .applySettings(getProperties());
 
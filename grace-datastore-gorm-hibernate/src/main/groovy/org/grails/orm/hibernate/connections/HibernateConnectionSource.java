@@ -5,6 +5,10 @@ import java.io.IOException;
 import javax.sql.DataSource;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import org.grails.datastore.gorm.jdbc.connections.DataSourceSettings;
 import org.grails.datastore.mapping.core.connections.ConnectionSource;
@@ -21,9 +25,12 @@ public class HibernateConnectionSource extends DefaultConnectionSource<SessionFa
 
     protected final ConnectionSource<DataSource, DataSourceSettings> dataSource;
 
+    protected final ReplicaRoutingDataSource replicaRoutingDataSource;
+
     public HibernateConnectionSource(String name, SessionFactory sessionFactory, ConnectionSource<DataSource, DataSourceSettings> dataSourceConnectionSource, HibernateConnectionSourceSettings settings) {
         super(name, sessionFactory, settings);
         this.dataSource = dataSourceConnectionSource;
+        this.replicaRoutingDataSource = resolveReplicaRoutingDataSource(sessionFactory);
     }
 
     @Override
@@ -34,10 +41,41 @@ public class HibernateConnectionSource extends DefaultConnectionSource<SessionFa
             sessionFactory.close();
         }
         finally {
-            if (dataSource != null) {
-                dataSource.close();
+            try {
+                if (dataSource != null) {
+                    dataSource.close();
+                }
+            }
+            finally {
+                if (replicaRoutingDataSource != null) {
+                    replicaRoutingDataSource.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The data source that routes read-only transactions to the replicas or null if no replicas are configured
+     */
+    public ReplicaRoutingDataSource getReplicaRoutingDataSource() {
+        return replicaRoutingDataSource;
+    }
+
+    private static ReplicaRoutingDataSource resolveReplicaRoutingDataSource(SessionFactory sessionFactory) {
+        if (!(sessionFactory instanceof SessionFactoryImplementor)) {
+            return null;
+        }
+        ConnectionProvider connectionProvider = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry().getService(ConnectionProvider.class);
+        if (connectionProvider instanceof DatasourceConnectionProviderImpl) {
+            DataSource source = ((DatasourceConnectionProviderImpl) connectionProvider).getDataSource();
+            if (source instanceof LazyConnectionDataSourceProxy) {
+                source = ((LazyConnectionDataSourceProxy) source).getTargetDataSource();
+            }
+            if (source instanceof ReplicaRoutingDataSource) {
+                return (ReplicaRoutingDataSource) source;
             }
         }
+        return null;
     }
 
     /**
@@ -17,6 +17,10 @@ package org.grails.orm.hibernate.connections;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.sql.DataSource;
@@ -25,6 +29,7 @@ import org.hibernate.Interceptor;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.spi.MetadataContributor;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
 import org.hibernate.cfg.NamingStrategy;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
@@ -35,10 +40,13 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceAware;
 import org.springframework.context.support.StaticMessageSource;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import org.grails.datastore.gorm.jdbc.connections.DataSourceSettings;
+import org.grails.datastore.gorm.jdbc.connections.DataSourceSettingsBuilder;
 import org.grails.datastore.gorm.jdbc.connections.SpringDataSourceConnectionSourceFactory;
 import org.grails.datastore.gorm.validation.javax.JavaxValidatorRegistry;
+import org.grails.datastore.mapping.core.DatastoreUtils;
 import org.grails.datastore.mapping.core.connections.ConnectionSource;
 import org.grails.datastore.mapping.core.exceptions.ConfigurationException;
 import org.grails.datastore.mapping.core.grailsversion.GrailsVersion;
@@ -271,9 +279,47 @@ public class HibernateConnectionSourceFactory extends AbstractHibernateConnectio
         configuration.setSessionFactoryBeanName(isDefault ? "sessionFactory" : "sessionFactory_" + name);
         Properties hibernateProperties = settings.toProperties();
         configuration.addProperties(hibernateProperties);
+        Object dataSource = configuration.getProperties().get(Environment.DATASOURCE);
+        if (dataSource instanceof DataSource) {
+            String[] replicaUrls = hibernateSettings.getReplicas().getUrls();
+            boolean replicated = replicaUrls != null && replicaUrls.length > 0;
+            if (replicated) {
+                dataSource = new ReplicaRoutingDataSource((DataSource) dataSource,
+                        createReplicaDataSources(name, dataSourceConnectionSource, replicaUrls),
+                        hibernateSettings.getReplicas().getRetryInterval());
+            }
+            if ((replicated || hibernateSettings.getTransaction().isLazyConnection()) && !(dataSource instanceof LazyConnectionDataSourceProxy)) {
+                // connections are prepared for the transaction by the proxy and only obtained from the pool on first use,
+                // when the read-only flag of the transaction that routes them to a replica is known
+                dataSource = new LazyConnectionDataSourceProxy((DataSource) dataSource);
+            }
+            configuration.getProperties().put(Environment.DATASOURCE, dataSource);
+        }
         return configuration;
     }
 
+    /**
+     * Creates the data sources of the replicas, which use the settings of the primary data source with the given URLs
+     *
+     * @param name The name of the connection source
+     * @param dataSourceConnectionSource The primary data source
+     * @param urls The JDBC URLs of the replicas
+     * @return The connection sources of the replicas
+     */
+    protected List<ConnectionSource<DataSource, DataSourceSettings>> createReplicaDataSources(String name,
+            ConnectionSource<DataSource, DataSourceSettings> dataSourceConnectionSource, String[] urls) {
+        List<ConnectionSource<DataSource, DataSourceSettings>> replicas = new ArrayList<>(urls.length);
+        for (int i = 0; i < urls.length; i++) {
+            Map<String, Object> replicaConfig = new LinkedHashMap<>();
+            replicaConfig.put("url", urls[i]);
+            replicaConfig.put("dbCreate", "none");
+            DataSourceSettings replicaSettings = new DataSourceSettingsBuilder(DatastoreUtils.createPropertyResolver(replicaConfig), "",
+                    dataSourceConnectionSource.getSettings()).build();
+            replicas.add(dataSourceConnectionSourceFactory.create(name + "_replica" + (i + 1), replicaSettings));
+        }
+        return replicas;
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         if (applicationContext != null) {
@@ -94,6 +94,35 @@ class HibernateConnectionSourceSettings extends ConnectionSourceSettings {
          */
         FlushSettings flush = new FlushSettings()
 
+        /**
+         * Settings for loading multiple instances by id with getAll(..)
+         */
+        MultiLoadSettings multiLoad = new MultiLoadSettings()
+
+        /**
+         * Settings for paginated queries
+         */
+        PaginationSettings pagination = new PaginationSettings()
+
+        /**
+         * Settings for the compiled query templates of findWhere(..), findAllWhere(..) and Query API queries
+         */
+        QueryTemplateSettings queryTemplates = new QueryTemplateSettings()
+
+        /**
+         * Settings for the queries executed asynchronously through the async namespace
+         */
+        AsyncSettings async = new AsyncSettings()
+
+        /**
+         * Settings for the transactions of the session factory
+         */
+        TransactionSettings transaction = new TransactionSettings()
+
+        /**
+         * Settings for the replicas that read-only transactions are routed to
+         */
+        ReplicaSettings replicas = new ReplicaSettings()
 
         /**
          * The configuration class
@@ -315,6 +344,108 @@ class HibernateConnectionSourceSettings extends ConnectionSourceSettings {
             }
         }
 
+        @CompileStatic
+        @SettingsBuilder
+        static class MultiLoadSettings {
+            /**
+             * The maximum number of ids to query for at once. The IN list limit of the dialect is used if lower
+             */
+            int batchSize = 500
+
+            /**
+             * Whether to resolve ids from the session and second-level cache before querying the database
+             */
+            boolean cacheFirst = true
+        }
+
+        @CompileStatic
+        @SettingsBuilder
+        static class PaginationSettings {
+            /**
+             * Whether to obtain the total count of a paginated query in the same statement using count(*) over().
+             * Only used with dialects that support window functions
+             */
+            boolean windowCount = false
+
+            /**
+             * Whether to run the count query of a paginated query on a separate session, in parallel with the page query
+             */
+            boolean asyncCount = false
+
+            /**
+             * The maximum number of count queries run in parallel with asyncCount, each of which holds a connection.
+             * It should be well below the maximum size of the connection pool. A count query that exceeds it runs on the
+             * calling thread
+             */
+            int countPoolSize = 2
+
+            /**
+             * The time in milliseconds for which total counts are cached. Counts are not cached if 0
+             */
+            long countCacheTtl = 0
+        }
+
+        @CompileStatic
+        @SettingsBuilder
+        static class QueryTemplateSettings {
+            /**
+             * Whether to compile findWhere(..) and findAllWhere(..) into cached HQL templates
+             */
+            boolean enabled = true
+
+            /**
+             * Whether to execute queries of simple properties built with the Query API, such as dynamic finders and where queries,
+             * as cached HQL templates instead of Hibernate criteria
+             */
+            boolean criteria = true
+
+            /**
+             * The maximum number of templates cached per entity
+             */
+            int maxPerEntity = 256
+        }
+
+        @CompileStatic
+        @SettingsBuilder
+        static class AsyncSettings {
+            /**
+             * Whether to execute each asynchronous task on its own virtual thread, if the JVM supports them
+             */
+            boolean virtualThreads = true
+
+            /**
+             * The number of platform threads used when virtual threads are disabled or not supported.
+             * The number of available processors is used if 0
+             */
+            int poolSize = 0
+        }
+
+        @CompileStatic
+        @SettingsBuilder
+        static class TransactionSettings {
+            /**
+             * Whether to obtain the JDBC connection of a transaction when its first statement is executed, rather than
+             * when the transaction begins. The read-only flag and isolation level of the transaction are applied to the
+             * connection once it is obtained
+             */
+            boolean lazyConnection = false
+        }
+
+        @CompileStatic
+        @SettingsBuilder
+        static class ReplicaSettings {
+            /**
+             * The JDBC URLs of the replicas. The other settings of a replica, such as the credentials and the pool
+             * options, are those of the primary data source
+             */
+            String[] urls = new String[0]
+
+            /**
+             * The time in milliseconds for which a replica that failed to provide a connection is skipped
+             */
+            long retryInterval = 30000
+        }
+
         /**
          * Settings for OpenSessionInView
          */
@@ -330,6 +461,11 @@ class HibernateConnectionSourceSettings extends ConnectionSourceSettings {
              * Whether OSIV is enabled
              */
             boolean enabled = true
+
+            /**
+             * Whether the session of a request or job is only opened when it is first used
+             */
+            boolean lazy = false
         }
 
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.connections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import org.grails.datastore.gorm.jdbc.connections.DataSourceSettings;
+import org.grails.datastore.mapping.core.connections.ConnectionSource;
+
+/**
+ * A {@link DataSource} that obtains the connections of read-only transactions from the replicas of the primary data
+ * source, selected round-robin. A replica that fails to provide a connection is skipped until the retry interval has
+ * elapsed, and the primary is used if no replica is available. All other connections are obtained from the primary.
+ *
+ * <p>The routing decision is made when the connection is obtained, so the data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} for the read-only flag of the transaction
+ * to be known at that point.</p>
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final List<ConnectionSource<DataSource, DataSourceSettings>> replicaConnectionSources;
+
+    private final Replica[] replicas;
+
+    private final long retryInterval;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary The primary data source
+     * @param replicaConnectionSources The connection sources of the replicas
+     * @param retryInterval The time in milliseconds for which a replica that failed to provide a connection is skipped
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<ConnectionSource<DataSource, DataSourceSettings>> replicaConnectionSources,
+            long retryInterval) {
+        super(primary);
+        this.replicaConnectionSources = replicaConnectionSources;
+        this.retryInterval = retryInterval;
+        this.replicas = new Replica[replicaConnectionSources.size()];
+        for (int i = 0; i < replicas.length; i++) {
+            ConnectionSource<DataSource, DataSourceSettings> connectionSource = replicaConnectionSources.get(i);
+            replicas[i] = new Replica(connectionSource.getName(), connectionSource.getSource());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = getReplicaConnection(null, null);
+        return connection != null ? connection : super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = getReplicaConnection(username, password);
+        return connection != null ? connection : super.getConnection(username, password);
+    }
+
+    /**
+     * @return The number of replicas that are not skipped because of a recent failure
+     */
+    public int getAvailableReplicaCount() {
+        long now = System.currentTimeMillis();
+        int available = 0;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable(now, retryInterval)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Obtains a connection from the next available replica if the current transaction is read-only
+     *
+     * @return The connection or null if the primary should be used
+     */
+    protected Connection getReplicaConnection(String username, String password) {
+        if (replicas.length == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[Math.floorMod(start + i, replicas.length)];
+            if (!replica.isAvailable(now, retryInterval)) {
+                continue;
+            }
+            try {
+                Connection connection = username != null ?
+                        replica.dataSource.getConnection(username, password) : replica.dataSource.getConnection();
+                replica.failedAt = 0;
+                return connection;
+            }
+            catch (SQLException | RuntimeException e) {
+                replica.failedAt = now;
+                LOG.warn("Replica [{}] failed to provide a connection and is skipped for {}ms: {}", replica.name, retryInterval, e.getMessage());
+            }
+        }
+        LOG.debug("No replica is available, obtaining the connection of the read-only transaction from the primary");
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ConnectionSource<DataSource, DataSourceSettings> connectionSource : replicaConnectionSources) {
+            try {
+                connectionSource.close();
+            }
+            catch (IOException e) {
+                LOG.error("Error closing replica [" + connectionSource.getName() + "]: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile long failedAt;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable(long now, long retryInterval) {
+            long failed = failedAt;
+            return failed == 0 || now - failed >= retryInterval;
+        }
+
+    }
+
+}
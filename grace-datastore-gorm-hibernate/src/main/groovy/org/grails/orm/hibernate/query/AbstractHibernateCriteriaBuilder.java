@@ -17,11 +17,15 @@ package org.grails.orm.hibernate.query;
 
 import java.beans.PropertyDescriptor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.metamodel.Attribute;
@@ -56,6 +60,7 @@ import org.hibernate.criterion.PropertyProjection;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.SimpleExpression;
 import org.hibernate.criterion.Subqueries;
+import org.hibernate.internal.CriteriaImpl;
 import org.hibernate.transform.ResultTransformer;
 import org.hibernate.type.Type;
 import org.springframework.beans.BeanUtils;
@@ -63,12 +68,14 @@ import org.springframework.core.convert.ConversionService;
 
 import grails.gorm.MultiTenant;
 
+import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings;
 import org.grails.datastore.mapping.query.Query;
 import org.grails.datastore.mapping.query.api.BuildableCriteria;
 import org.grails.datastore.mapping.query.api.QueryableCriteria;
 import org.grails.datastore.mapping.reflect.NameUtils;
 import org.grails.orm.hibernate.AbstractHibernateDatastore;
+import org.grails.orm.hibernate.cfg.GrailsHibernateUtil;
 
 /**
  * Abstract super class for sharing code between Hibernate 3 and 4 implementations of HibernateCriteriaBuilder
@@ -152,6 +159,27 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
     protected static final String PROJECTIONS = "projections";
 
+    protected static final String CLOSURE_TEMPLATE_PREFIX = "closure|";
+
+    /**
+     * Whether the last call of a closure class was rendered as HQL, in which case the next call first runs the closure
+     * without building the criteria
+     */
+    private static final ClassValue<AtomicBoolean> RENDERED_CLOSURES = new ClassValue<AtomicBoolean>() {
+        @Override
+        protected AtomicBoolean computeValue(Class<?> type) {
+            return new AtomicBoolean();
+        }
+    };
+
+    /**
+     * The settings of the criteria that can be applied to a query rendered as HQL
+     */
+    protected static final Set<String> RECORDABLE_CRITERIA_SETTINGS = new HashSet<>(Arrays.asList(
+            "maxResults", "setMaxResults", "firstResult", "setFirstResult", "fetchSize", "setFetchSize",
+            "timeout", "setTimeout", "cacheable", "setCacheable", "cacheRegion", "setCacheRegion",
+            "readOnly", "setReadOnly"));
+
 
     protected SessionFactory sessionFactory;
 
@@ -199,6 +227,29 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
     protected AbstractHibernateDatastore datastore;
 
+    /**
+     * The criteria, projections and orders of the closure recorded as GORM queries, from which the closure is
+     * rendered as HQL of the same shape on every call
+     */
+    protected List<Query.Criterion> recordedCriteria = new ArrayList<>();
+
+    protected List<Query.Projection> recordedProjections = new ArrayList<>();
+
+    protected List<Query.Order> recordedOrders = new ArrayList<>();
+
+    protected boolean recordable = true;
+
+    protected int criterionCount;
+
+    protected int recordedCriterionCount;
+
+    protected int orderCount;
+
+    /**
+     * Whether the closure only records its criteria, without adding them to the Hibernate criteria
+     */
+    protected boolean replaying;
+
     @SuppressWarnings("rawtypes")
     public AbstractHibernateCriteriaBuilder(Class targetClass, SessionFactory sessionFactory) {
         this.targetClass = targetClass;
@@ -239,6 +290,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList property(String propertyName, String alias) {
         final PropertyProjection propertyProjection = Projections.property(calculatePropertyName(propertyName));
         addProjectionToList(propertyProjection, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.property(propertyName));
         return this;
     }
 
@@ -257,6 +309,18 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         }
     }
 
+    /**
+     * Records the GORM equivalent of a projection that was added to the projection list
+     *
+     * @param projection The projection
+     */
+    protected void recordProjection(Query.Projection projection) {
+        if (!aliasStack.isEmpty()) {
+            recordable = false;
+        }
+        recordedProjections.add(projection);
+    }
+
     /**
      * Adds a sql projection to the criteria
      *
@@ -308,6 +372,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList distinct(String propertyName, String alias) {
         final Projection proj = Projections.distinct(Projections.property(calculatePropertyName(propertyName)));
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.distinct(propertyName));
         return this;
     }
 
@@ -356,6 +421,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList avg(String propertyName, String alias) {
         final AggregateProjection aggregateProjection = Projections.avg(calculatePropertyName(propertyName));
         addProjectionToList(aggregateProjection, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.avg(propertyName));
         return this;
     }
 
@@ -365,12 +431,14 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
      * @param associationPath The path of the association
      */
     public BuildableCriteria join(String associationPath) {
+        recordable = false;
         criteria.setFetchMode(calculatePropertyName(associationPath), FetchMode.JOIN);
         return this;
     }
 
     @Override
     public BuildableCriteria join(String property, JoinType joinType) {
+        recordable = false;
         criteria.setFetchMode(calculatePropertyName(property), FetchMode.JOIN);
         return this;
     }
@@ -408,10 +476,107 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
      * @param associationPath The path of the association
      */
     public BuildableCriteria select(String associationPath) {
+        recordable = false;
         criteria.setFetchMode(calculatePropertyName(associationPath), FetchMode.SELECT);
         return this;
     }
 
+    /**
+     * Sets the maximum number of results
+     * @param maxResults The maximum number of results
+     */
+    public BuildableCriteria maxResults(int maxResults) {
+        criteria.setMaxResults(maxResults);
+        return this;
+    }
+
+    /**
+     * Sets the offset of the first result
+     * @param firstResult The offset of the first result
+     */
+    public BuildableCriteria firstResult(int firstResult) {
+        criteria.setFirstResult(firstResult);
+        return this;
+    }
+
+    /**
+     * Sets the JDBC fetch size
+     * @param fetchSize The fetch size
+     */
+    public BuildableCriteria fetchSize(int fetchSize) {
+        criteria.setFetchSize(fetchSize);
+        return this;
+    }
+
+    /**
+     * Sets the JDBC query timeout
+     * @param timeout The timeout in seconds
+     */
+    public BuildableCriteria timeout(int timeout) {
+        criteria.setTimeout(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the projections of the criteria, which are declared by the given closure
+     *
+     * @param callable The closure declaring the projections
+     */
+    public org.grails.datastore.mapping.query.api.ProjectionList projections(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
+        if (criteria == null) {
+            throwRuntimeException(new IllegalArgumentException("call to [" + PROJECTIONS + "] not supported here"));
+        }
+
+        projectionList = Projections.projectionList();
+        recordedProjections = new ArrayList<>();
+        invokeClosureNode(callable);
+
+        if (!replaying && projectionList != null && projectionList.getLength() > 0) {
+            criteria.setProjection(projectionList);
+        }
+        return this;
+    }
+
+    /**
+     * Queries an association or embedded property with the criteria of the given closure, using an inner join
+     *
+     * @param propertyName The name of the association or embedded property
+     * @param callable The criteria of the association
+     */
+    public org.grails.datastore.mapping.query.api.Criteria association(String propertyName, @DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
+        if (!invokeAssociationNode(propertyName, org.hibernate.sql.JoinType.INNER_JOIN.getJoinTypeValue(), false, callable)) {
+            throwRuntimeException(new IllegalArgumentException("Property [" + propertyName + "] is not an association or embedded property of [" +
+                    targetClass.getName() + "]"));
+        }
+        return this;
+    }
+
+    /**
+     * Queries an association with the criteria of the given closure, using the given join type
+     *
+     * @param propertyName The name of the association
+     * @param joinType The join type
+     * @param callable The criteria of the association
+     */
+    public org.grails.datastore.mapping.query.api.Criteria association(String propertyName, JoinType joinType, @DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
+        if (!invokeAssociationNode(propertyName, toHibernateJoinType(joinType), true, callable)) {
+            throwRuntimeException(new IllegalArgumentException("Property [" + propertyName + "] is not an association or embedded property of [" +
+                    targetClass.getName() + "]"));
+        }
+        return this;
+    }
+
+    private static int toHibernateJoinType(JoinType joinType) {
+        switch (joinType) {
+            case LEFT:
+                return org.hibernate.sql.JoinType.LEFT_OUTER_JOIN.getJoinTypeValue();
+            case RIGHT:
+                return org.hibernate.sql.JoinType.RIGHT_OUTER_JOIN.getJoinTypeValue();
+            default:
+                return org.hibernate.sql.JoinType.INNER_JOIN.getJoinTypeValue();
+        }
+    }
+
     /**
      * Whether to use the query cache
      * @param shouldCache True if the query should be cached
@@ -502,6 +667,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList id() {
         final IdentifierProjection proj = Projections.id();
         addProjectionToList(proj, null);
+        recordProjection(org.grails.datastore.mapping.query.Projections.id());
         return this;
     }
 
@@ -542,6 +708,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList countDistinct(String propertyName, String alias) {
         final CountProjection proj = Projections.countDistinct(calculatePropertyName(propertyName));
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.countDistinct(propertyName));
         return this;
     }
 
@@ -555,6 +722,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList groupProperty(String propertyName, String alias) {
         final PropertyProjection proj = Projections.groupProperty(calculatePropertyName(propertyName));
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.groupProperty(propertyName));
         return this;
     }
 
@@ -576,6 +744,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList max(String propertyName, String alias) {
         final AggregateProjection proj = Projections.max(calculatePropertyName(propertyName));
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.max(propertyName));
         return this;
     }
 
@@ -596,6 +765,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList min(String propertyName, String alias) {
         final AggregateProjection aggregateProjection = Projections.min(calculatePropertyName(propertyName));
         addProjectionToList(aggregateProjection, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.min(propertyName));
         return this;
     }
 
@@ -615,6 +785,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList rowCount(String alias) {
         final Projection proj = Projections.rowCount();
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.count());
         return this;
     }
 
@@ -636,6 +807,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.ProjectionList sum(String propertyName, String alias) {
         final AggregateProjection proj = Projections.sum(calculatePropertyName(propertyName));
         addProjectionToList(proj, alias);
+        recordProjection(org.grails.datastore.mapping.query.Projections.sum(propertyName));
         return this;
     }
 
@@ -647,6 +819,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
      */
     public void fetchMode(String associationPath, FetchMode fetchMode) {
         if (criteria != null) {
+            recordable = false;
             criteria.setFetchMode(associationPath, fetchMode);
         }
     }
@@ -695,6 +868,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.eqProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.EqualsProperty(propertyName, otherPropertyName));
         return this;
     }
 
@@ -713,6 +887,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.neProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.NotEqualsProperty(propertyName, otherPropertyName));
         return this;
     }
 
@@ -731,6 +906,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.gtProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.GreaterThanProperty(propertyName, otherPropertyName));
         return this;
     }
 
@@ -749,6 +925,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.geProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.GreaterThanEqualsProperty(propertyName, otherPropertyName));
         return this;
     }
 
@@ -767,6 +944,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.ltProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.LessThanProperty(propertyName, otherPropertyName));
         return this;
     }
 
@@ -785,12 +963,18 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         otherPropertyName = calculatePropertyName(otherPropertyName);
         addToCriteria(Restrictions.leProperty(propertyName, otherPropertyName));
+        recordCriterion(new Query.LessThanEqualsProperty(propertyName, otherPropertyName));
         return this;
     }
 
     @Override
     public org.grails.datastore.mapping.query.api.Criteria allEq(Map<String, Object> propertyValues) {
         addToCriteria(Restrictions.allEq(propertyValues));
+        Query.Conjunction conjunction = new Query.Conjunction();
+        for (Map.Entry<String, Object> entry : propertyValues.entrySet()) {
+            conjunction.add(new Query.Equals(entry.getKey(), entry.getValue()));
+        }
+        recordCriterion(conjunction);
         return this;
     }
 
@@ -1023,6 +1207,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             gt = Restrictions.gt(propertyName, propertyValue);
         }
         addToCriteria(gt);
+        recordCriterion(new Query.GreaterThan(propertyName, propertyValue));
         return this;
     }
 
@@ -1053,6 +1238,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             ge = Restrictions.ge(propertyName, propertyValue);
         }
         addToCriteria(ge);
+        recordCriterion(new Query.GreaterThanEquals(propertyName, propertyValue));
         return this;
     }
 
@@ -1078,6 +1264,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             lt = Restrictions.lt(propertyName, propertyValue);
         }
         addToCriteria(lt);
+        recordCriterion(new Query.LessThan(propertyName, propertyValue));
         return this;
     }
 
@@ -1103,6 +1290,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             le = Restrictions.le(propertyName, propertyValue);
         }
         addToCriteria(le);
+        recordCriterion(new Query.LessThanEquals(propertyName, propertyValue));
         return this;
     }
 
@@ -1125,39 +1313,43 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     public org.grails.datastore.mapping.query.api.Criteria isEmpty(String property) {
         String propertyName = calculatePropertyName(property);
         addToCriteria(Restrictions.isEmpty(propertyName));
+        recordCriterion(new Query.IsEmpty(propertyName));
         return this;
     }
 
     public org.grails.datastore.mapping.query.api.Criteria isNotEmpty(String property) {
         String propertyName = calculatePropertyName(property);
         addToCriteria(Restrictions.isNotEmpty(propertyName));
+        recordCriterion(new Query.IsNotEmpty(propertyName));
         return this;
     }
 
     public org.grails.datastore.mapping.query.api.Criteria isNull(String property) {
         String propertyName = calculatePropertyName(property);
         addToCriteria(Restrictions.isNull(propertyName));
+        recordCriterion(new Query.IsNull(propertyName));
         return this;
     }
 
     public org.grails.datastore.mapping.query.api.Criteria isNotNull(String property) {
         String propertyName = calculatePropertyName(property);
         addToCriteria(Restrictions.isNotNull(propertyName));
+        recordCriterion(new Query.IsNotNull(propertyName));
         return this;
     }
 
     @Override
-    public org.grails.datastore.mapping.query.api.Criteria and(Closure callable) {
+    public org.grails.datastore.mapping.query.api.Criteria and(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
         return executeLogicalExpression(callable, AND);
     }
 
     @Override
-    public org.grails.datastore.mapping.query.api.Criteria or(Closure callable) {
+    public org.grails.datastore.mapping.query.api.Criteria or(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
         return executeLogicalExpression(callable, OR);
     }
 
     @Override
-    public org.grails.datastore.mapping.query.api.Criteria not(Closure callable) {
+    public org.grails.datastore.mapping.query.api.Criteria not(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure callable) {
         return executeLogicalExpression(callable, NOT);
     }
 
@@ -1168,8 +1360,10 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         }
         finally {
             LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
-            if (logicalExpression != null)
+            if (logicalExpression != null) {
                 addToCriteria(logicalExpression.toCriterion());
+                recordCriterion(logicalExpression.toRecordedCriterion());
+            }
         }
 
         return this;
@@ -1233,9 +1427,11 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             Object ignoreCase = params.get("ignoreCase");
             if (ignoreCase instanceof Boolean && (Boolean) ignoreCase) {
                 eq = ((SimpleExpression) eq).ignoreCase();
+                recordable = false;
             }
         }
         addToCriteria(eq);
+        recordCriterion(new Query.Equals(propertyName, propertyValue));
         return this;
     }
 
@@ -1298,6 +1494,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         propertyValue = calculatePropertyValue(propertyValue);
         addToCriteria(Restrictions.like(propertyName, propertyValue));
+        recordCriterion(new Query.Like(propertyName, propertyValue));
         return this;
     }
 
@@ -1326,6 +1523,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         propertyValue = calculatePropertyValue(propertyValue);
         addToCriteria(Restrictions.ilike(propertyName, propertyValue));
+        recordCriterion(new Query.ILike(propertyName, propertyValue));
         return this;
     }
 
@@ -1349,6 +1547,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             values = convertArgumentList((List) values);
         }
         addToCriteria(Restrictions.in(propertyName, values == null ? Collections.EMPTY_LIST : values));
+        recordCriterion(new Query.In(propertyName, values == null ? Collections.EMPTY_LIST : values));
         return this;
     }
 
@@ -1394,6 +1593,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
         propertyName = calculatePropertyName(propertyName);
         addToCriteria(Restrictions.in(propertyName, values));
+        recordCriterion(new Query.In(propertyName, values == null ? Collections.emptyList() : Arrays.asList(values)));
         return this;
     }
 
@@ -1411,6 +1611,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         Order o = Order.asc(propertyName);
         addOrderInternal(this.criteria, o);
+        recordedOrders.add(new Query.Order(propertyName));
         return this;
     }
 
@@ -1430,10 +1631,11 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         if (criteria == null) {
             throwRuntimeException(new IllegalArgumentException("Call to [order] not allowed here."));
         }
+        orderCount++;
         if (paginationEnabledList) {
             orderEntries.add(o);
         }
-        else {
+        else if (!replaying) {
             criteria.addOrder(o);
         }
     }
@@ -1444,6 +1646,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         final Criteria criteria = this.criteria;
         final String property = o.getProperty();
         addOrderInternal(criteria, o, property);
+        recordedOrders.add(o);
         return this;
     }
 
@@ -1500,12 +1703,8 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         else {
             o = Order.asc(propertyName);
         }
-        if (paginationEnabledList) {
-            orderEntries.add(o);
-        }
-        else {
-            criteria.addOrder(o);
-        }
+        addOrderInternal(criteria, o);
+        recordedOrders.add(new Query.Order(propertyName, direction.equals(ORDER_DESCENDING) ? Query.Order.Direction.DESC : Query.Order.Direction.ASC));
         return this;
     }
 
@@ -1638,6 +1837,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         propertyName = calculatePropertyName(propertyName);
         propertyValue = calculatePropertyValue(propertyValue);
         addToCriteria(Restrictions.ne(propertyName, propertyValue));
+        recordCriterion(new Query.NotEquals(propertyName, propertyValue));
         return this;
     }
 
@@ -1660,6 +1860,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
         propertyName = calculatePropertyName(propertyName);
         addToCriteria(Restrictions.between(propertyName, lo, hi));
+        recordCriterion(new Query.Between(propertyName, lo, hi));
         return this;
     }
 
@@ -1672,27 +1873,37 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
     }
 
     @Override
-    public Object list(@DelegatesTo(Criteria.class) Closure c) {
+    public Object list(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
         return invokeMethod(LIST_CALL, new Object[] { c });
     }
 
     @Override
-    public Object list(Map params, @DelegatesTo(Criteria.class) Closure c) {
+    public Object list(Map params, @DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
         return invokeMethod(LIST_CALL, new Object[] { params, c });
     }
 
     @Override
-    public Object listDistinct(@DelegatesTo(Criteria.class) Closure c) {
+    public Object listDistinct(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
         return invokeMethod(LIST_DISTINCT_CALL, new Object[] { c });
     }
 
     @Override
-    public Object get(@DelegatesTo(Criteria.class) Closure c) {
+    public Object get(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
         return invokeMethod(GET_CALL, new Object[] { c });
     }
 
+    /**
+     * Counts the results of the criteria
+     *
+     * @param c The criteria closure
+     * @return The number of results
+     */
+    public Object count(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
+        return invokeMethod(COUNT_CALL, new Object[] { c });
+    }
+
     @Override
-    public Object scroll(@DelegatesTo(Criteria.class) Closure c) {
+    public Object scroll(@DelegatesTo(value = AbstractHibernateCriteriaBuilder.class, strategy = Closure.DELEGATE_FIRST) Closure c) {
         return invokeMethod(SCROLL_CALL, new Object[] { c });
     }
 
@@ -1728,26 +1939,52 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             createCriteriaInstance();
 
             // Check for pagination params
+            Object closure;
             if (name.equals(LIST_CALL) && args.length == 2) {
                 paginationEnabledList = true;
                 orderEntries = new ArrayList<>();
-                invokeClosureNode(args[1]);
+                closure = args[1];
             }
             else {
-                invokeClosureNode(args[0]);
+                closure = args[0];
             }
+            // a closure that was rendered as HQL before only has to record its criteria to bind the values
+            boolean renderable = !scroll && !paginationEnabledList && datastore != null && datastore.isCriteriaTemplates();
+            AtomicBoolean rendered = RENDERED_CLOSURES.get(closure.getClass());
+            replaying = renderable && rendered.get();
+            invokeClosureNode(closure);
 
             if (resultTransformer != null) {
                 criteria.setResultTransformer(resultTransformer);
             }
+            org.hibernate.query.Query hqlQuery = createHqlQuery();
+            if (replaying) {
+                replaying = false;
+                if (hqlQuery == null) {
+                    // the closure used something that cannot be rendered, so it runs again to build the criteria
+                    resetCriteria();
+                    invokeClosureNode(closure);
+                    if (resultTransformer != null) {
+                        criteria.setResultTransformer(resultTransformer);
+                    }
+                }
+            }
+            if (renderable) {
+                rendered.set(hqlQuery != null);
+            }
             Object result;
             if (!uniqueResult) {
                 if (scroll) {
                     result = criteria.scroll();
                 }
                 else if (count) {
-                    criteria.setProjection(Projections.rowCount());
-                    result = criteria.uniqueResult();
+                    if (hqlQuery != null) {
+                        result = hqlQuery.uniqueResult();
+                    }
+                    else {
+                        criteria.setProjection(Projections.rowCount());
+                        result = criteria.uniqueResult();
+                    }
                 }
                 else if (paginationEnabledList) {
                     // Calculate how many results there are in total. This has been
@@ -1802,11 +2039,11 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
                     result = createPagedResultList(argMap);
                 }
                 else {
-                    result = criteria.list();
+                    result = hqlQuery != null ? hqlQuery.list() : listCriteria();
                 }
             }
             else {
-                result = executeUniqueResultWithProxyUnwrap();
+                result = hqlQuery != null ? GrailsHibernateUtil.unwrapIfProxy(hqlQuery.uniqueResult()) : executeUniqueResultWithProxyUnwrap();
             }
             if (!participate) {
                 closeSession();
@@ -1823,10 +2060,12 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
         metaMethod = criteriaMetaClass.getMetaMethod(name, args);
         if (metaMethod != null) {
+            recordable &= RECORDABLE_CRITERIA_SETTINGS.contains(name);
             return metaMethod.invoke(criteria, args);
         }
         metaMethod = criteriaMetaClass.getMetaMethod(NameUtils.getSetterName(name), args);
         if (metaMethod != null) {
+            recordable &= RECORDABLE_CRITERIA_SETTINGS.contains(name);
             return metaMethod.invoke(criteria, args);
         }
 
@@ -1845,70 +2084,18 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
                 LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
                 addToCriteria(logicalExpression.toCriterion());
+                recordCriterion(logicalExpression.toRecordedCriterion());
 
                 return name;
             }
 
             if (name.equals(PROJECTIONS) && args.length == 1 && (args[0] instanceof Closure)) {
-                if (criteria == null) {
-                    throwRuntimeException(new IllegalArgumentException("call to [" + name + "] not supported here"));
-                }
-
-                projectionList = Projections.projectionList();
-                invokeClosureNode(callable);
-
-                if (projectionList != null && projectionList.getLength() > 0) {
-                    criteria.setProjection(projectionList);
-                }
-
+                projections((Closure) callable);
                 return name;
             }
 
-            final PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(targetClass, name);
-            if (pd != null && pd.getReadMethod() != null) {
-                final Metamodel metamodel = sessionFactory.getMetamodel();
-                final EntityType<?> entityType = metamodel.entity(targetClass);
-                final Attribute<?, ?> attribute = entityType.getAttribute(name);
-
-                if (attribute.isAssociation()) {
-                    Class oldTargetClass = targetClass;
-                    targetClass = getClassForAssociationType(attribute);
-                    if (targetClass.equals(oldTargetClass) && !hasMoreThanOneArg) {
-                        joinType = org.hibernate.sql.JoinType.LEFT_OUTER_JOIN.getJoinTypeValue(); // default to left join if joining on the same table
-                    }
-                    associationStack.add(name);
-                    final String associationPath = getAssociationPath();
-                    createAliasIfNeccessary(name, associationPath, joinType);
-                    // the criteria within an association node are grouped with an implicit AND
-                    logicalExpressionStack.add(new LogicalExpression(AND));
-                    invokeClosureNode(callable);
-                    aliasStack.remove(aliasStack.size() - 1);
-                    if (!aliasInstanceStack.isEmpty()) {
-                        aliasInstanceStack.remove(aliasInstanceStack.size() - 1);
-                    }
-                    LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
-                    if (!logicalExpression.args.isEmpty()) {
-                        addToCriteria(logicalExpression.toCriterion());
-                    }
-                    associationStack.remove(associationStack.size() - 1);
-                    targetClass = oldTargetClass;
-
-                    return name;
-                }
-                if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
-                    associationStack.add(name);
-                    logicalExpressionStack.add(new LogicalExpression(AND));
-                    Class oldTargetClass = targetClass;
-                    targetClass = pd.getPropertyType();
-                    invokeClosureNode(callable);
-                    targetClass = oldTargetClass;
-                    LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
-                    if (!logicalExpression.args.isEmpty()) {
-                        addToCriteria(logicalExpression.toCriterion());
-                    }
-                    associationStack.remove(associationStack.size() - 1);
-                    return name;
-                }
+            if (invokeAssociationNode(name, joinType, hasMoreThanOneArg, (Closure<?>) callable)) {
+                return name;
             }
         }
         else if (args.length == 1 && args[0] != null) {
@@ -2002,7 +2189,7 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
                         name.equals(SCROLL_CALL) && args.length == 1 && args[0] instanceof Closure);
     }
 
-    public Criteria buildCriteria(Closure<?> criteriaClosure) {
+    public Criteria buildCriteria(@DelegatesTo(AbstractHibernateCriteriaBuilder.class) Closure<?> criteriaClosure) {
         createCriteriaInstance();
         criteriaClosure.setDelegate(this);
         criteriaClosure.call();
@@ -2022,6 +2209,66 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
         callable.call();
     }
 
+    /**
+     * Applies the criteria of the given closure to an association or embedded property
+     *
+     * @param name The name of the property
+     * @param joinType The Hibernate join type of an association
+     * @param joinTypeSpecified Whether the join type was given explicitly
+     * @param callable The criteria closure
+     * @return False if the property is not an association or embedded property
+     */
+    @SuppressWarnings("rawtypes")
+    protected boolean invokeAssociationNode(String name, int joinType, boolean joinTypeSpecified, Closure<?> callable) {
+        final PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(targetClass, name);
+        if (pd == null || pd.getReadMethod() == null) {
+            return false;
+        }
+        final Metamodel metamodel = sessionFactory.getMetamodel();
+        final EntityType<?> entityType = metamodel.entity(targetClass);
+        final Attribute<?, ?> attribute = entityType.getAttribute(name);
+
+        if (attribute.isAssociation()) {
+            Class oldTargetClass = targetClass;
+            targetClass = getClassForAssociationType(attribute);
+            if (targetClass.equals(oldTargetClass) && !joinTypeSpecified) {
+                joinType = org.hibernate.sql.JoinType.LEFT_OUTER_JOIN.getJoinTypeValue(); // default to left join if joining on the same table
+            }
+            associationStack.add(name);
+            final String associationPath = getAssociationPath();
+            createAliasIfNeccessary(name, associationPath, joinType);
+            // the criteria within an association node are grouped with an implicit AND
+            logicalExpressionStack.add(new LogicalExpression(AND));
+            invokeClosureNode(callable);
+            aliasStack.remove(aliasStack.size() - 1);
+            if (!aliasInstanceStack.isEmpty()) {
+                aliasInstanceStack.remove(aliasInstanceStack.size() - 1);
+            }
+            LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
+            if (!logicalExpression.args.isEmpty()) {
+                addToCriteria(logicalExpression.toCriterion());
+            }
+            associationStack.remove(associationStack.size() - 1);
+            targetClass = oldTargetClass;
+            return true;
+        }
+        if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+            associationStack.add(name);
+            logicalExpressionStack.add(new LogicalExpression(AND));
+            Class oldTargetClass = targetClass;
+            targetClass = pd.getPropertyType();
+            invokeClosureNode(callable);
+            targetClass = oldTargetClass;
+            LogicalExpression logicalExpression = logicalExpressionStack.remove(logicalExpressionStack.size() - 1);
+            if (!logicalExpression.args.isEmpty()) {
+                addToCriteria(logicalExpression.toCriterion());
+            }
+            associationStack.remove(associationStack.size() - 1);
+            return true;
+        }
+        return false;
+    }
+
 
     /**
      * adds and returns the given criterion to the currently active criteria set.
@@ -2029,15 +2276,141 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
      * LogicalExpression.
      */
     protected Criterion addToCriteria(Criterion c) {
+        criterionCount++;
         if (!logicalExpressionStack.isEmpty()) {
             logicalExpressionStack.get(logicalExpressionStack.size() - 1).args.add(c);
         }
-        else {
+        else if (!replaying) {
             criteria.add(c);
         }
         return c;
     }
 
+    /**
+     * Records the GORM equivalent of a criterion that was added to the criteria. A criterion that is added without
+     * being recorded leaves the counts unequal, which keeps the closure from being rendered as HQL.
+     *
+     * @param c The criterion
+     */
+    protected void recordCriterion(Query.Criterion c) {
+        recordedCriterionCount++;
+        if (!associationStack.isEmpty()) {
+            // criteria of associations are only known by their alias
+            recordable = false;
+        }
+        else if (!logicalExpressionStack.isEmpty()) {
+            logicalExpressionStack.get(logicalExpressionStack.size() - 1).recordedArgs.add(c);
+        }
+        else {
+            recordedCriteria.add(c);
+        }
+    }
+
+    /**
+     * Renders the recorded criteria of the closure as HQL, taking the HQL from the query template cache of the datastore
+     * if criteria of the same shape were rendered before, so that later calls only bind the values. Closures whose shape
+     * depends on their values get one entry per shape, and closures using anything that was not recorded are executed
+     * with the Criteria API.
+     *
+     * @return The HQL query or null if the criteria have to be executed
+     */
+    protected org.hibernate.query.Query createHqlQuery() {
+        if (!recordable || criterionCount != recordedCriterionCount || scroll || paginationEnabledList ||
+                datastore == null || !datastore.isCriteriaTemplates() || !(criteria instanceof CriteriaImpl)) {
+            return null;
+        }
+        CriteriaImpl criteriaImpl = (CriteriaImpl) criteria;
+        if (criteriaImpl.iterateSubcriteria().hasNext() || !criteriaImpl.getLockModes().isEmpty()) {
+            return null;
+        }
+        ResultTransformer transformer = criteriaImpl.getResultTransformer();
+        if (transformer != CriteriaSpecification.ROOT_ENTITY && transformer != CriteriaSpecification.PROJECTION &&
+                transformer != CriteriaSpecification.DISTINCT_ROOT_ENTITY) {
+            return null;
+        }
+        if (orderCount != recordedOrders.size()) {
+            return null;
+        }
+        List<Query.Projection> projections;
+        List<Query.Order> orders = recordedOrders;
+        if (count) {
+            projections = Collections.singletonList(org.grails.datastore.mapping.query.Projections.count());
+            orders = Collections.emptyList();
+        }
+        else if (replaying ? projectionList.getLength() == 0 : criteriaImpl.getProjection() == null) {
+            projections = Collections.emptyList();
+        }
+        else if ((replaying || criteriaImpl.getProjection() == projectionList) && projectionList.getLength() == recordedProjections.size()) {
+            projections = recordedProjections;
+        }
+        else {
+            return null;
+        }
+        PersistentEntity entity = datastore.getMappingContext().getPersistentEntity(targetClass.getName());
+        if (entity == null) {
+            return null;
+        }
+
+        HqlQueryRenderer renderer = new HqlQueryRenderer(entity, recordedCriteria, projections, orders);
+        String shape = renderer.prepare();
+        if (shape == null) {
+            return null;
+        }
+        String key = CLOSURE_TEMPLATE_PREFIX + shape;
+        String hql = datastore.getQueryTemplateCache().get(entity, key, k -> renderer.render());
+        return renderer.createQuery(hql, criteriaImpl);
+    }
+
+    /**
+     * Creates the key of the total count in the count cache from the recorded criteria of the closure and their values.
+     * Closures using anything that was not recorded or cannot be rendered as HQL have no key, so their count is not cached.
+     *
+     * @return The key or null if the count must not be cached
+     */
+    protected String createTotalCountKey() {
+        if (!recordable || criterionCount != recordedCriterionCount || datastore == null || !(criteria instanceof CriteriaImpl) ||
+                ((CriteriaImpl) criteria).iterateSubcriteria().hasNext()) {
+            return null;
+        }
+        PersistentEntity entity = datastore.getMappingContext().getPersistentEntity(targetClass.getName());
+        if (entity == null) {
+            return null;
+        }
+        HqlQueryRenderer renderer = new HqlQueryRenderer(entity, recordedCriteria, Collections.emptyList(), Collections.emptyList());
+        String shape = renderer.prepare();
+        if (shape == null) {
+            return null;
+        }
+        return TotalCountCache.createKey("criteria", shape, renderer.getParameters());
+    }
+
+    /**
+     * Replaces the criteria and the recording of a closure that ran without building the criteria, so that it can run again
+     */
+    private void resetCriteria() {
+        criteria = hibernateSession.createCriteria(targetClass);
+        cacheCriteriaMapping();
+        projectionList = Projections.projectionList();
+        recordedCriteria = new ArrayList<>();
+        recordedProjections = new ArrayList<>();
+        recordedOrders = new ArrayList<>();
+        recordable = true;
+        criterionCount = 0;
+        recordedCriterionCount = 0;
+        orderCount = 0;
+        aliasMap.clear();
+        aliasCount = 0;
+    }
+
+    /**
+     * Lists the results of the criteria, listing a page of root entities that joins a collection by id
+     */
+    @SuppressWarnings("rawtypes")
+    private List listCriteria() {
+        PersistentEntity entity = datastore != null ? datastore.getMappingContext().getPersistentEntity(targetClass.getName()) : null;
+        List page = GrailsHibernateQueryUtils.listByIdPage(entity, criteria);
+        return page != null ? page : criteria.list();
+    }
 
     /**
      * Add order directly to criteria.
@@ -2096,6 +2469,8 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
 
         public final List<Criterion> args = new ArrayList<>();
 
+        public final List<Query.Criterion> recordedArgs = new ArrayList<>();
+
         public LogicalExpression(Object name) {
             this.name = name;
         }
@@ -2128,6 +2503,23 @@ public abstract class AbstractHibernateCriteriaBuilder extends GroovyObjectSuppo
             return null;
         }
 
+        public Query.Criterion toRecordedCriterion() {
+            Query.Junction junction;
+            if (name.equals(NOT)) {
+                junction = new Query.Negation();
+            }
+            else if (name.equals(OR)) {
+                junction = new Query.Disjunction();
+            }
+            else {
+                junction = new Query.Conjunction();
+            }
+            for (Query.Criterion c : recordedArgs) {
+                junction.add(c);
+            }
+            return junction;
+        }
+
         // add the Criterion objects in the given list to the given junction.
         public Junction buildJunction(Junction junction, List<Criterion> criterions) {
             for (Criterion c : criterions) {
@@ -16,6 +16,7 @@
 package org.grails.orm.hibernate.query;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -39,6 +40,7 @@ import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.SimpleExpression;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.internal.CriteriaImpl;
 import org.hibernate.persister.entity.PropertyMapping;
 import org.hibernate.type.BasicType;
 import org.hibernate.type.TypeResolver;
@@ -63,14 +65,16 @@ import org.grails.datastore.mapping.query.api.QueryableCriteria;
 import org.grails.datastore.mapping.query.criteria.FunctionCallingCriterion;
 import org.grails.datastore.mapping.query.event.PostQueryEvent;
 import org.grails.datastore.mapping.query.event.PreQueryEvent;
+import org.grails.orm.hibernate.AbstractHibernateDatastore;
 import org.grails.orm.hibernate.AbstractHibernateSession;
 import org.grails.orm.hibernate.IHibernateTemplate;
 import org.grails.orm.hibernate.cfg.AbstractGrailsDomainBinder;
-import org.grails.orm.hibernate.cfg.Mapping;
+import org.grails.orm.hibernate.cfg.EntityQueryDefaults;
 import org.grails.orm.hibernate.proxy.HibernateProxyHandler;
 
 /**
- * Bridges the Query API with the Hibernate Criteria API
+ * Bridges the Query API with the Hibernate Criteria API. Queries of simple properties of the root entity are also
+ * recorded as GORM criteria and executed as cached HQL, see {@link HqlQueryRenderer}
  *
  * @author Graeme Rocher
  * @since 1.0
@@ -82,6 +86,8 @@ public abstract class AbstractHibernateQuery extends Query {
 
     protected static final String ALIAS = "_alias";
 
+    protected static final String HQL_TEMPLATE_PREFIX = "criteria|";
+
     protected static ConversionService conversionService = new DefaultConversionService();
 
     protected static Field opField = ReflectionUtils.findField(SimpleExpression.class, "op");
@@ -114,6 +120,12 @@ public abstract class AbstractHibernateQuery extends Query {
 
     private boolean hasJoins = false;
 
+    protected List<Criterion> hqlCriteria = new ArrayList<>();
+
+    protected List<Projection> hqlProjections = new ArrayList<>();
+
+    protected boolean hqlRenderable = true;
+
     protected ProxyHandler proxyHandler = new HibernateProxyHandler();
 
     protected final AbstractHibernateCriterionAdapter abstractHibernateCriterionAdapter;
@@ -161,29 +173,36 @@ public abstract class AbstractHibernateQuery extends Query {
     public Query isEmpty(String property) {
         org.hibernate.criterion.Criterion criterion = Restrictions.isEmpty(calculatePropertyName(property));
         addToCriteria(criterion);
+        recordCriterion(new Query.IsEmpty(property));
         return this;
     }
 
     @Override
     public Query isNotEmpty(String property) {
         addToCriteria(Restrictions.isNotEmpty(calculatePropertyName(property)));
+        recordCriterion(new Query.IsNotEmpty(property));
         return this;
     }
 
     @Override
     public Query isNull(String property) {
         addToCriteria(Restrictions.isNull(calculatePropertyName(property)));
+        recordCriterion(new Query.IsNull(property));
         return this;
     }
 
     @Override
     public Query isNotNull(String property) {
         addToCriteria(Restrictions.isNotNull(calculatePropertyName(property)));
+        recordCriterion(new Query.IsNotNull(property));
         return this;
     }
 
     @Override
     public void add(Criterion criterion) {
+        if (entityStack.isEmpty()) {
+            recordCriterion(criterion);
+        }
         if (criterion instanceof FunctionCallingCriterion) {
             org.hibernate.criterion.Criterion sqlRestriction = getRestrictionForFunctionCall((FunctionCallingCriterion) criterion, getEntity());
             if (sqlRestriction != null) {
@@ -380,6 +399,7 @@ public abstract class AbstractHibernateQuery extends Query {
     public Junction disjunction() {
         final org.hibernate.criterion.Disjunction disjunction = Restrictions.disjunction();
         addToCriteria(disjunction);
+        hqlRenderable = false;
         return new HibernateJunction(disjunction, alias);
     }
 
@@ -387,24 +407,28 @@ public abstract class AbstractHibernateQuery extends Query {
     public Junction negation() {
         final org.hibernate.criterion.Disjunction disjunction = Restrictions.disjunction();
         addToCriteria(Restrictions.not(disjunction));
+        hqlRenderable = false;
         return new HibernateJunction(disjunction, alias);
     }
 
     @Override
     public Query eq(String property, Object value) {
         addToCriteria(Restrictions.eq(calculatePropertyName(property), value));
+        recordCriterion(new Query.Equals(property, value));
         return this;
     }
 
     @Override
     public Query idEq(Object value) {
         addToCriteria(Restrictions.idEq(value));
+        recordCriterion(new Query.IdEquals(value));
         return this;
     }
 
     @Override
     public Query gt(String property, Object value) {
         addToCriteria(Restrictions.gt(calculatePropertyName(property), value));
+        recordCriterion(new Query.GreaterThan(property, value));
         return this;
     }
 
@@ -412,6 +436,7 @@ public abstract class AbstractHibernateQuery extends Query {
     public Query and(Criterion a, Criterion b) {
         AbstractHibernateCriterionAdapter adapter = getHibernateCriterionAdapter();
         addToCriteria(Restrictions.and(adapter.toHibernateCriterion(this, a, alias), adapter.toHibernateCriterion(this, a, alias)));
+        hqlRenderable = false;
         return this;
     }
 
@@ -419,77 +444,92 @@ public abstract class AbstractHibernateQuery extends Query {
     public Query or(Criterion a, Criterion b) {
         AbstractHibernateCriterionAdapter adapter = getHibernateCriterionAdapter();
         addToCriteria(Restrictions.or(adapter.toHibernateCriterion(this, a, alias), adapter.toHibernateCriterion(this, b, alias)));
+        recordCriterion(new Query.Disjunction().add(a).add(b));
         return this;
     }
 
     @Override
     public Query allEq(Map<String, Object> values) {
         addToCriteria(Restrictions.allEq(values));
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            recordCriterion(new Query.Equals(entry.getKey(), entry.getValue()));
+        }
         return this;
     }
 
     @Override
     public Query ge(String property, Object value) {
         addToCriteria(Restrictions.ge(calculatePropertyName(property), value));
+        recordCriterion(new Query.GreaterThanEquals(property, value));
         return this;
     }
 
     @Override
     public Query le(String property, Object value) {
         addToCriteria(Restrictions.le(calculatePropertyName(property), value));
+        recordCriterion(new Query.LessThanEquals(property, value));
         return this;
     }
 
     @Override
     public Query gte(String property, Object value) {
         addToCriteria(Restrictions.ge(calculatePropertyName(property), value));
+        recordCriterion(new Query.GreaterThanEquals(property, value));
         return this;
     }
 
     @Override
     public Query lte(String property, Object value) {
         addToCriteria(Restrictions.le(calculatePropertyName(property), value));
+        recordCriterion(new Query.LessThanEquals(property, value));
         return this;
     }
 
     @Override
     public Query lt(String property, Object value) {
         addToCriteria(Restrictions.lt(calculatePropertyName(property), value));
+        recordCriterion(new Query.LessThan(property, value));
         return this;
     }
 
     @Override
     public Query in(String property, List values) {
         addToCriteria(Restrictions.in(calculatePropertyName(property), values));
+        recordCriterion(new Query.In(property, values));
         return this;
     }
 
     @Override
     public Query between(String property, Object start, Object end) {
         addToCriteria(Restrictions.between(calculatePropertyName(property), start, end));
+        recordCriterion(new Query.Between(property, start, end));
         return this;
     }
 
     @Override
     public Query like(String property, String expr) {
         addToCriteria(Restrictions.like(calculatePropertyName(property), calculatePropertyName(expr)));
+        recordCriterion(new Query.Like(property, expr));
         return this;
     }
 
     @Override
     public Query ilike(String property, String expr) {
         addToCriteria(Restrictions.ilike(calculatePropertyName(property), calculatePropertyName(expr)));
+        recordCriterion(new Query.ILike(property, expr));
         return this;
     }
 
     @Override
     public Query rlike(String property, String expr) {
         addToCriteria(createRlikeExpression(calculatePropertyName(property), calculatePropertyName(expr)));
+        hqlRenderable = false;
         return this;
     }
 
     @Override
     public AssociationQuery createQuery(String associationName) {
+        hqlRenderable = false;
         final PersistentProperty property = entity.getPropertyByName(calculatePropertyName(associationName));
         if (property != null && (property instanceof Association)) {
             String alias = generateAlias(associationName);
@@ -614,6 +654,7 @@ public abstract class AbstractHibernateQuery extends Query {
 
     @Override
     public Query lock(boolean lock) {
+        hqlRenderable = false;
         criteria.setCacheable(false);
         criteria.setLockMode(LockMode.PESSIMISTIC_WRITE);
         return super.lock(lock);
@@ -702,6 +743,7 @@ public abstract class AbstractHibernateQuery extends Query {
     @Override
     public Query join(String property) {
         this.hasJoins = true;
+        this.hqlRenderable = false;
         if (criteria != null)
             criteria.setFetchMode(property, FetchMode.JOIN);
         else if (detachedCriteria != null)
@@ -712,6 +754,7 @@ public abstract class AbstractHibernateQuery extends Query {
     @Override
     public Query select(String property) {
         this.hasJoins = true;
+        this.hqlRenderable = false;
         if (criteria != null)
             criteria.setFetchMode(property, FetchMode.SELECT);
         else if (detachedCriteria != null)
@@ -732,13 +775,20 @@ public abstract class AbstractHibernateQuery extends Query {
             }
         }
 
-        if (projectionLength < 2) {
-            criteria.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
-        }
-
         applyDefaultSortOrderAndCaching();
         applyFetchStrategies();
 
+        if (projectionLength < 2 && isToManyJoinPresent()) {
+            if (projectionLength == 1 && isIdProjection() && criteria instanceof CriteriaImpl &&
+                    !((CriteriaImpl) criteria).iterateOrderings().hasNext()) {
+                // the distinct ids are the distinct root entities, which the database can find
+                criteria.setProjection(Projections.distinct(hibernateProjectionList.getHibernateProjectionList()));
+            }
+            else {
+                criteria.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
+            }
+        }
+
         return listForCriteria();
     }
 
@@ -749,26 +799,90 @@ public abstract class AbstractHibernateQuery extends Query {
             publisher.publishEvent(new PreQueryEvent(datastore, this));
         }
 
-        List results = criteria.list();
+        org.hibernate.query.Query hqlQuery = createHqlQuery();
+        List results = hqlQuery != null ? hqlQuery.list() : listCriteria();
         if (publisher != null) {
             publisher.publishEvent(new PostQueryEvent(datastore, this, results));
         }
         return results;
     }
 
+    /**
+     * Lists the results of the criteria. A page of root entities that joins a collection is listed by id, so that
+     * the joined rows are not paged
+     *
+     * @return The results
+     */
+    protected List listCriteria() {
+        List page = GrailsHibernateQueryUtils.listByIdPage(entity, criteria);
+        return page != null ? page : criteria.list();
+    }
+
+    /**
+     * Renders the query as HQL, taking the HQL from the query template cache of the datastore if a query of the same shape
+     * was rendered before, and binds the values and the settings of the criteria
+     *
+     * @return The HQL query or null if the query has to be executed with the Criteria API
+     */
+    protected org.hibernate.query.Query createHqlQuery() {
+        if (!hqlRenderable || hasJoins || !fetchStrategies.isEmpty() || !(criteria instanceof CriteriaImpl)) {
+            return null;
+        }
+        Datastore datastore = session.getDatastore();
+        if (!(datastore instanceof AbstractHibernateDatastore) || !((AbstractHibernateDatastore) datastore).isCriteriaTemplates()) {
+            return null;
+        }
+        QueryTemplateCache<String> templateCache = ((AbstractHibernateDatastore) datastore).getQueryTemplateCache();
+        HqlQueryRenderer renderer = new HqlQueryRenderer(entity, hqlCriteria, hqlProjections, orderBy);
+        String shape = renderer.prepare();
+        if (shape == null) {
+            return null;
+        }
+        String hql = templateCache.get(entity, HQL_TEMPLATE_PREFIX + shape, key -> renderer.render());
+        return renderer.createQuery(hql, (CriteriaImpl) criteria);
+    }
+
+    /**
+     * Whether the query joins a collection, so that the same root entity can be in more than one row and the results
+     * have to be made distinct
+     *
+     * @return True if a collection is joined
+     */
+    protected boolean isToManyJoinPresent() {
+        for (Map.Entry<String, FetchType> entry : fetchStrategies.entrySet()) {
+            if (entry.getValue() == FetchType.EAGER && GrailsHibernateQueryUtils.isToManyPath(entity, entry.getKey())) {
+                return true;
+            }
+        }
+        return GrailsHibernateQueryUtils.isToManyJoinPresent(entity, criteria);
+    }
+
+    private boolean isIdProjection() {
+        return hqlProjections.size() == 1 && hqlProjections.get(0) instanceof IdProjection;
+    }
+
+    protected void recordCriterion(Criterion criterion) {
+        // criteria of an association query are only known by their alias, so such queries are not rendered
+        if (alias != null) {
+            hqlRenderable = false;
+        }
+        else {
+            hqlCriteria.add(criterion);
+        }
+    }
+
     protected void applyDefaultSortOrderAndCaching() {
         if (this.orderBy.isEmpty() && entity != null) {
             // don't apply default sorting, if projections present
             if (hibernateProjectionList != null && !hibernateProjectionList.isEmpty()) return;
 
-            Mapping mapping = AbstractGrailsDomainBinder.getMapping(entity.getJavaClass());
-            if (mapping != null) {
-                if (queryCache == null && mapping.getCache() != null && mapping.getCache().isEnabled()) {
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(entity.getJavaClass());
+            if (queryDefaults != null) {
+                if (queryCache == null && queryDefaults.isCacheable()) {
                     criteria.setCacheable(true);
                 }
 
-                Map sortMap = mapping.getSort().getNamesAndDirections();
-                DynamicFinder.applySortForMap(this, sortMap, true);
+                DynamicFinder.applySortForMap(this, queryDefaults.getSortOrders(), true);
 
             }
         }
@@ -805,9 +919,11 @@ public abstract class AbstractHibernateQuery extends Query {
         if (hibernateProjectionList != null) {
             criteria.setProjection(hibernateProjectionList.getHibernateProjectionList());
         }
-        criteria.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
         applyDefaultSortOrderAndCaching();
         applyFetchStrategies();
+        if (isToManyJoinPresent()) {
+            criteria.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
+        }
 
         Datastore datastore = session.getDatastore();
         ApplicationEventPublisher publisher = datastore.getApplicationEventPublisher();
@@ -838,7 +954,8 @@ public abstract class AbstractHibernateQuery extends Query {
         if (hibernateProjectionList != null && hibernateProjectionList.isRowCount()) {
             criteria.setFirstResult(0);
         }
-        List results = criteria.list();
+        org.hibernate.query.Query hqlQuery = createHqlQuery();
+        List results = hqlQuery != null ? hqlQuery.list() : criteria.list();
         if (results.size() > 0) {
             return proxyHandler.unwrap(results.get(0));
         }
@@ -964,27 +1081,40 @@ public abstract class AbstractHibernateQuery extends Query {
         }
 
 
+        protected void recordProjection(Projection projection) {
+            if (alias != null) {
+                hqlRenderable = false;
+            }
+            else {
+                hqlProjections.add(projection);
+            }
+        }
+
         @Override
         public ProjectionList add(Projection p) {
             projectionList.add(new HibernateProjectionAdapter(p).toHibernateProjection());
+            recordProjection(p);
             return this;
         }
 
         @Override
         public org.grails.datastore.mapping.query.api.ProjectionList countDistinct(String property) {
             projectionList.add(Projections.countDistinct(calculatePropertyName(property)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.countDistinct(property));
             return this;
         }
 
         @Override
         public org.grails.datastore.mapping.query.api.ProjectionList distinct(String property) {
             projectionList.add(Projections.distinct(Projections.property(calculatePropertyName(property))));
+            recordProjection(org.grails.datastore.mapping.query.Projections.distinct(property));
             return this;
         }
 
         @Override
         public org.grails.datastore.mapping.query.api.ProjectionList rowCount() {
             projectionList.add(Projections.rowCount());
+            recordProjection(org.grails.datastore.mapping.query.Projections.count());
             this.rowCount = true;
             return this;
         }
@@ -992,12 +1122,14 @@ public abstract class AbstractHibernateQuery extends Query {
         @Override
         public ProjectionList id() {
             projectionList.add(Projections.id());
+            recordProjection(org.grails.datastore.mapping.query.Projections.id());
             return this;
         }
 
         @Override
         public ProjectionList count() {
             projectionList.add(Projections.rowCount());
+            recordProjection(org.grails.datastore.mapping.query.Projections.count());
             this.rowCount = true;
             return this;
         }
@@ -1005,35 +1137,41 @@ public abstract class AbstractHibernateQuery extends Query {
         @Override
         public ProjectionList property(String name) {
             projectionList.add(Projections.property(calculatePropertyName(name)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.property(name));
             return this;
         }
 
         @Override
         public ProjectionList sum(String name) {
             projectionList.add(Projections.sum(calculatePropertyName(name)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.sum(name));
             return this;
         }
 
         @Override
         public ProjectionList min(String name) {
             projectionList.add(Projections.min(calculatePropertyName(name)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.min(name));
             return this;
         }
 
         @Override
         public ProjectionList max(String name) {
             projectionList.add(Projections.max(calculatePropertyName(name)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.max(name));
             return this;
         }
 
         @Override
         public ProjectionList avg(String name) {
             projectionList.add(Projections.avg(calculatePropertyName(name)));
+            recordProjection(org.grails.datastore.mapping.query.Projections.avg(name));
             return this;
         }
 
         @Override
         public ProjectionList distinct() {
+            hqlRenderable = false;
             if (criteria != null)
                 criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
             else if (detachedCriteria != null)
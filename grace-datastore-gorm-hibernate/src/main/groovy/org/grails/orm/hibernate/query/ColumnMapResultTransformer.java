@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.transform.ResultTransformer;
+
+/**
+ * Transforms each row into a map of its column labels to its values, in the order of the columns
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public final class ColumnMapResultTransformer implements ResultTransformer {
+
+    public static final ColumnMapResultTransformer INSTANCE = new ColumnMapResultTransformer();
+
+    private static final long serialVersionUID = 1L;
+
+    private ColumnMapResultTransformer() {
+    }
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        Map<String, Object> row = new LinkedHashMap<>((int) (tuple.length / 0.75f) + 1);
+        for (int i = 0; i < tuple.length; i++) {
+            String alias = aliases != null && i < aliases.length ? aliases[i] : null;
+            row.put(alias != null ? alias : String.valueOf(i), tuple[i]);
+        }
+        return row;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List transformList(List collection) {
+        return collection;
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import groovy.lang.GString;
+
+/**
+ * Translates the static parts of a {@link GString} query into a query with ordinal or named parameters in place of
+ * its values. The translations are cached by the static parts, which are the same string constants every time
+ * a given GString expression is evaluated, so that a query is only assembled once.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public final class GStringQueryTranslator {
+
+    /**
+     * The maximum number of translations kept per parameter style
+     */
+    public static final int MAX_ENTRIES = 1024;
+
+    /**
+     * The prefix of the names of the parameters of a named parameter query
+     */
+    public static final String PARAMETER_PREFIX = "p";
+
+    private static final Map<Key, String> ORDINAL_QUERIES = new ConcurrentHashMap<>();
+
+    private static final Map<Key, String> NAMED_QUERIES = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+
+    private static final LongAdder MISSES = new LongAdder();
+
+    private GStringQueryTranslator() {
+    }
+
+    /**
+     * @param query The query
+     * @return The query with a '?' in place of each value
+     */
+    public static String toOrdinalParameterQuery(GString query) {
+        return translate(ORDINAL_QUERIES, query, false);
+    }
+
+    /**
+     * @param query The query
+     * @return The query with the parameters ':p0', ':p1' and so on in place of the values
+     */
+    public static String toNamedParameterQuery(GString query) {
+        return translate(NAMED_QUERIES, query, true);
+    }
+
+    /**
+     * @param index The index of a value of the query
+     * @return The name of the parameter of the value in a named parameter query
+     */
+    public static String parameterName(int index) {
+        return PARAMETER_PREFIX + index;
+    }
+
+    /**
+     * @return The number of translations that were found in the cache
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return The number of translations that had to be assembled
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Removes all translations and resets the counters
+     */
+    public static void clear() {
+        ORDINAL_QUERIES.clear();
+        NAMED_QUERIES.clear();
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    private static String translate(Map<Key, String> queries, GString query, boolean named) {
+        Key key = new Key(query.getStrings(), query.getValueCount());
+        String translated = queries.get(key);
+        if (translated != null) {
+            HITS.increment();
+            return translated;
+        }
+        MISSES.increment();
+        translated = assemble(key.strings, key.valueCount, named);
+        if (queries.size() >= MAX_ENTRIES) {
+            queries.clear();
+        }
+        queries.put(key, translated);
+        return translated;
+    }
+
+    private static String assemble(String[] strings, int valueCount, boolean named) {
+        StringBuilder queryString = new StringBuilder();
+        int i = 0;
+        for (String str : strings) {
+            queryString.append(str);
+            if (i < valueCount) {
+                if (named) {
+                    queryString.append(':').append(parameterName(i));
+                }
+                else {
+                    queryString.append('?');
+                }
+                i++;
+            }
+        }
+        return queryString.toString();
+    }
+
+    private static final class Key {
+
+        final String[] strings;
+
+        final int valueCount;
+
+        final int hash;
+
+        Key(String[] strings, int valueCount) {
+            this.strings = strings;
+            this.valueCount = valueCount;
+            this.hash = 31 * Arrays.hashCode(strings) + valueCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            // the static parts are usually the same constants, so the comparison is mostly by reference
+            return valueCount == other.valueCount && Arrays.equals(strings, other.strings);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -15,8 +15,15 @@
  */
 package org.grails.orm.hibernate.query;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import jakarta.persistence.FetchType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -29,18 +36,39 @@ import org.hibernate.Criteria;
 import org.hibernate.FetchMode;
 import org.hibernate.FlushMode;
 import org.hibernate.LockMode;
+import org.hibernate.dialect.DB2Dialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MariaDB102Dialect;
+import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL9Dialect;
+import org.hibernate.dialect.SQLServer2005Dialect;
+import org.hibernate.criterion.CriteriaSpecification;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.internal.CriteriaImpl;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.query.Query;
+import org.hibernate.transform.ResultTransformer;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
 import org.springframework.core.convert.ConversionService;
 
 import org.grails.datastore.gorm.finders.DynamicFinder;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.PersistentProperty;
 import org.grails.datastore.mapping.model.types.Association;
+import org.grails.datastore.mapping.model.types.Basic;
 import org.grails.datastore.mapping.model.types.Embedded;
+import org.grails.datastore.mapping.model.types.ToMany;
 import org.grails.datastore.mapping.reflect.ClassUtils;
 import org.grails.orm.hibernate.cfg.AbstractGrailsDomainBinder;
-import org.grails.orm.hibernate.cfg.Mapping;
+import org.grails.orm.hibernate.cfg.EntityQueryDefaults;
 
 /**
  * Utility methods for configuring Hibernate queries
@@ -50,6 +78,11 @@ import org.grails.orm.hibernate.cfg.Mapping;
  */
 public class GrailsHibernateQueryUtils {
 
+    /**
+     * The name of the SQL function that renders count(*) over()
+     */
+    public static final String WINDOW_COUNT_FUNCTION = "grails_count_over";
+
     /**
      * Populates criteria arguments for the given target class and arguments map
      *
@@ -132,12 +165,10 @@ public class GrailsHibernateQueryUtils {
             }
         }
         else if (useDefaultMapping) {
-            Mapping m = AbstractGrailsDomainBinder.getMapping(entity.getJavaClass());
-            if (m != null) {
-                Map sortMap = m.getSort().getNamesAndDirections();
-                for (Object sort : sortMap.keySet()) {
-                    final String order = DynamicFinder.ORDER_DESC.equalsIgnoreCase((String) sortMap.get(sort)) ? DynamicFinder.ORDER_DESC : DynamicFinder.ORDER_ASC;
-                    addOrderPossiblyNested(c, entity, (String) sort, order, true);
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(entity.getJavaClass());
+            if (queryDefaults != null) {
+                for (Map.Entry<String, String> sort : queryDefaults.getSortOrders().entrySet()) {
+                    addOrderPossiblyNested(c, entity, sort.getKey(), sort.getValue(), true);
                 }
             }
         }
@@ -194,12 +225,10 @@ public class GrailsHibernateQueryUtils {
             }
         }
         else if (useDefaultMapping) {
-            Mapping m = AbstractGrailsDomainBinder.getMapping(entity.getJavaClass());
-            if (m != null) {
-                Map sortMap = m.getSort().getNamesAndDirections();
-                for (Object sort : sortMap.keySet()) {
-                    final String order = DynamicFinder.ORDER_DESC.equalsIgnoreCase((String) sortMap.get(sort)) ? DynamicFinder.ORDER_DESC : DynamicFinder.ORDER_ASC;
-                    addOrderPossiblyNested(query, queryRoot, criteriaBuilder, entity, (String) sort, order, true);
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(entity.getJavaClass());
+            if (queryDefaults != null) {
+                for (Map.Entry<String, String> sort : queryDefaults.getSortOrders().entrySet()) {
+                    addOrderPossiblyNested(query, queryRoot, criteriaBuilder, entity, sort.getKey(), sort.getValue(), true);
                 }
             }
         }
@@ -369,8 +398,8 @@ public class GrailsHibernateQueryUtils {
      * @param criteria    The criteria
      */
     private static void cacheCriteriaByMapping(Class<?> targetClass, Criteria criteria) {
-        Mapping m = AbstractGrailsDomainBinder.getMapping(targetClass);
-        if (m != null && m.getCache() != null && m.getCache().getEnabled()) {
+        EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(targetClass);
+        if (queryDefaults != null && queryDefaults.isCacheable()) {
             criteria.setCacheable(true);
         }
     }
@@ -382,8 +411,8 @@ public class GrailsHibernateQueryUtils {
      * @param criteria    The criteria
      */
     private static void cacheCriteriaByMapping(Class<?> targetClass, Query criteria) {
-        Mapping m = AbstractGrailsDomainBinder.getMapping(targetClass);
-        if (m != null && m.getCache() != null && m.getCache().getEnabled()) {
+        EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(targetClass);
+        if (queryDefaults != null && queryDefaults.isCacheable()) {
             criteria.setCacheable(true);
         }
     }
@@ -432,4 +461,248 @@ public class GrailsHibernateQueryUtils {
         return FetchMode.DEFAULT;
     }
 
+    /**
+     * Whether the given criteria join a collection, either through an alias, a join fetch or an association that the
+     * mapping fetches eagerly. Only then can a root entity appear in more than one row of the results, so that the results
+     * need {@link org.hibernate.criterion.CriteriaSpecification#DISTINCT_ROOT_ENTITY}.
+     * Paths that cannot be resolved are assumed to join a collection.
+     *
+     * @param entity The root entity
+     * @param criteria The criteria
+     * @return True if a collection is joined
+     */
+    public static boolean isToManyJoinPresent(PersistentEntity entity, Criteria criteria) {
+        if (entity == null || !(criteria instanceof CriteriaImpl)) {
+            return true;
+        }
+        if (isEagerToManyReachable(entity)) {
+            return true;
+        }
+        CriteriaImpl criteriaImpl = (CriteriaImpl) criteria;
+        for (Association<?> association : entity.getAssociations()) {
+            if (association instanceof ToMany && criteriaImpl.getFetchMode(association.getName()) == FetchMode.JOIN) {
+                return true;
+            }
+        }
+        Map<String, String> aliasPaths = new HashMap<>();
+        for (Iterator<?> i = criteriaImpl.iterateSubcriteria(); i.hasNext(); ) {
+            CriteriaImpl.Subcriteria subcriteria = (CriteriaImpl.Subcriteria) i.next();
+            String path = subcriteria.getPath();
+            int dot = path.indexOf('.');
+            if (dot > -1 && aliasPaths.containsKey(path.substring(0, dot))) {
+                path = aliasPaths.get(path.substring(0, dot)) + path.substring(dot);
+            }
+            if (subcriteria.getAlias() != null) {
+                aliasPaths.put(subcriteria.getAlias(), path);
+            }
+            if (isToManyPath(entity, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a path of properties of the given entity navigates a collection
+     *
+     * @param entity The root entity
+     * @param path The dot separated path
+     * @return True if the path navigates a collection or cannot be resolved
+     */
+    public static boolean isToManyPath(PersistentEntity entity, String path) {
+        PersistentEntity current = entity;
+        for (String name : path.split("\\.")) {
+            if (current == null) {
+                return true;
+            }
+            PersistentProperty property = current.getPropertyByName(name);
+            if (property instanceof ToMany || property instanceof Basic) {
+                return true;
+            }
+            if (!(property instanceof Association)) {
+                return true;
+            }
+            current = ((Association<?>) property).getAssociatedEntity();
+        }
+        return false;
+    }
+
+    private static boolean isEagerToManyReachable(PersistentEntity entity) {
+        EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(entity.getJavaClass());
+        Boolean reachable = queryDefaults != null ? queryDefaults.getCollectionJoined() : null;
+        if (reachable == null) {
+            reachable = isEagerToManyReachable(entity, new HashSet<>());
+            if (queryDefaults != null) {
+                queryDefaults.setCollectionJoined(reachable);
+            }
+        }
+        return reachable;
+    }
+
+    private static boolean isEagerToManyReachable(PersistentEntity entity, Set<String> visited) {
+        if (!visited.add(entity.getName())) {
+            return false;
+        }
+        for (Association<?> association : entity.getAssociations()) {
+            if (association.getFetchStrategy() != FetchType.EAGER && !(association instanceof Embedded)) {
+                continue;
+            }
+            // an eagerly fetched collection is joined, and so are the eager collections of eagerly fetched entities
+            if (association instanceof ToMany || association instanceof Basic) {
+                return true;
+            }
+            PersistentEntity associatedEntity = association.getAssociatedEntity();
+            if (associatedEntity != null && isEagerToManyReachable(associatedEntity, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists a page of root entities of criteria that join a collection in two queries. The distinct ids of the page are
+     * selected first, with the restrictions, joins and orderings of the criteria, and the entities of the page are then
+     * loaded by id with their fetched associations. Paging over the joined rows instead would cut the collections of
+     * the entities at the edges of the page and return pages that are shorter than the maximum.
+     *
+     * @param entity The root entity
+     * @param criteria The criteria
+     * @return The page or null if the criteria are not paged, have a projection, lock the rows, do not join a collection
+     * or are ordered by properties that are not columns of the root entity
+     */
+    @SuppressWarnings("rawtypes")
+    public static List listByIdPage(PersistentEntity entity, Criteria criteria) {
+        if (entity == null || !(criteria instanceof CriteriaImpl)) {
+            return null;
+        }
+        CriteriaImpl criteriaImpl = (CriteriaImpl) criteria;
+        boolean paged = (criteriaImpl.getMaxResults() != null && criteriaImpl.getMaxResults() > 0) ||
+                (criteriaImpl.getFirstResult() != null && criteriaImpl.getFirstResult() > 0);
+        PersistentProperty identity = entity.getIdentity();
+        if (!paged || criteriaImpl.getProjection() != null || identity == null || entity.getCompositeIdentity() != null ||
+                !isToManyJoinPresent(entity, criteria)) {
+            return null;
+        }
+        for (LockMode lockMode : criteriaImpl.getLockModes().values()) {
+            // the rows are locked by the query that selects them
+            if (lockMode.greaterThan(LockMode.READ)) {
+                return null;
+            }
+        }
+        SharedSessionContractImplementor session = criteriaImpl.getSession();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entity.getJavaClass());
+        String lowercaseFunction = session.getFactory().getJdbcServices().getDialect().getLowercaseFunction();
+
+        // the columns of the orderings have to be selected as well, since the ids are distinct
+        org.hibernate.criterion.ProjectionList idProjection = Projections.projectionList().add(Projections.id());
+        for (Iterator<?> i = criteriaImpl.iterateOrderings(); i.hasNext(); ) {
+            CriteriaImpl.OrderEntry entry = (CriteriaImpl.OrderEntry) i.next();
+            Order order = entry.getOrder();
+            String propertyName = order.getPropertyName();
+            PersistentProperty property = propertyName.equals(identity.getName()) ? identity : entity.getPropertyByName(propertyName);
+            if (entry.getCriteria() != criteriaImpl || property == null || property instanceof Association) {
+                return null;
+            }
+            if (order.isIgnoreCase() && CharSequence.class.isAssignableFrom(property.getType())) {
+                if (!(persister instanceof AbstractEntityPersister)) {
+                    return null;
+                }
+                String[] columns = ((AbstractEntityPersister) persister).getPropertyColumnNames(propertyName);
+                if (columns.length != 1) {
+                    return null;
+                }
+                String columnAlias = "order" + idProjection.getLength() + '_';
+                idProjection.add(Projections.sqlProjection(lowercaseFunction + "({alias}." + columns[0] + ") as " + columnAlias,
+                        new String[] { columnAlias }, new Type[] { StandardBasicTypes.STRING }));
+            }
+            else {
+                idProjection.add(Projections.property(propertyName));
+            }
+        }
+
+        ResultTransformer resultTransformer = criteriaImpl.getResultTransformer();
+        List rows;
+        criteriaImpl.setProjection(Projections.distinct(idProjection));
+        try {
+            rows = criteriaImpl.list();
+        }
+        finally {
+            criteriaImpl.setProjection(null);
+            criteriaImpl.setResultTransformer(resultTransformer);
+        }
+        List<Object> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(row instanceof Object[] ? ((Object[]) row)[0] : row);
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList();
+        }
+
+        CriteriaImpl byId = new CriteriaImpl(criteriaImpl.getEntityOrClassName(), session);
+        for (Association<?> association : entity.getAssociations()) {
+            FetchMode fetchMode = criteriaImpl.getFetchMode(association.getName());
+            if (fetchMode != null) {
+                byId.setFetchMode(association.getName(), fetchMode);
+            }
+        }
+        if (criteriaImpl.getTimeout() != null) {
+            byId.setTimeout(criteriaImpl.getTimeout());
+        }
+        if (criteriaImpl.getFetchSize() != null) {
+            byId.setFetchSize(criteriaImpl.getFetchSize());
+        }
+        if (criteriaImpl.isReadOnlyInitialized()) {
+            byId.setReadOnly(criteriaImpl.isReadOnly());
+        }
+        byId.add(Restrictions.in(identity.getName(), ids));
+        byId.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
+        return orderByIds(entity.getJavaClass(), ids, byId.list(), session);
+    }
+
+    /**
+     * Orders entities that were loaded by id in the order of the ids
+     *
+     * @param entityClass The class of the entities
+     * @param ids The ids in the order of the results
+     * @param entities The entities
+     * @param session The session the entities were loaded with
+     * @return The ordered entities
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static List orderByIds(Class<?> entityClass, List<?> ids, List<?> entities, SharedSessionContractImplementor session) {
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        Map<Object, Object> entitiesById = new HashMap<>(entities.size() * 2);
+        for (Object entity : entities) {
+            Object id = entity instanceof HibernateProxy ?
+                    ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier() :
+                    persister.getIdentifier(entity, session);
+            entitiesById.put(id, entity);
+        }
+        List ordered = new ArrayList(ids.size());
+        for (Object id : ids) {
+            Object entity = entitiesById.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Whether the given dialect supports the count(*) over() window function. PostgreSQL supports window functions
+     * from 8.4, so the PostgreSQL dialects are supported from {@link PostgreSQL9Dialect}
+     *
+     * @param dialect The dialect
+     * @return True if it does
+     */
+    public static boolean supportsWindowCount(Dialect dialect) {
+        return dialect instanceof H2Dialect ||
+                dialect instanceof PostgreSQL9Dialect ||
+                dialect instanceof MySQL8Dialect ||
+                dialect instanceof MariaDB102Dialect ||
+                dialect instanceof Oracle8iDialect ||
+                dialect instanceof SQLServer2005Dialect ||
+                dialect instanceof DB2Dialect;
+    }
+
 }
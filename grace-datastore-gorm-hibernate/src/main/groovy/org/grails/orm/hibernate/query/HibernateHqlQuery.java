@@ -2,6 +2,8 @@ package org.grails.orm.hibernate.query;
 
 import java.util.List;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.springframework.context.ApplicationEventPublisher;
 
 import org.grails.datastore.mapping.core.Datastore;
@@ -51,4 +53,16 @@ public class HibernateHqlQuery extends Query {
         }
     }
 
+    /**
+     * Executes the query with a forward-only cursor. Since the results are not known upfront
+     * only the {@link PreQueryEvent} is published.
+     *
+     * @return The scrollable results
+     */
+    public ScrollableResults scroll() {
+        Datastore datastore = getSession().getDatastore();
+        datastore.getApplicationEventPublisher().publishEvent(new PreQueryEvent(datastore, this));
+        return query.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
 }
@@ -66,9 +66,13 @@ public class HibernateQuery extends AbstractHibernateQuery {
     }
 
     /**
+     * Obtains the Hibernate criteria. Since the criteria may be modified directly, the query is executed with the Criteria API
+     * from then on, rather than rendered as HQL
+     *
      * @return The hibernate criteria
      */
     public Criteria getHibernateCriteria() {
+        this.hqlRenderable = false;
         return this.criteria;
     }
 
@@ -122,7 +126,10 @@ public class HibernateQuery extends AbstractHibernateQuery {
                 CriteriaImpl.Subcriteria sub = (CriteriaImpl.Subcriteria) subcriteriaIterator.next();
                 newCriteria.createAlias(sub.getPath(), sub.getAlias(), sub.getJoinType(), sub.getWithClause());
             }
-            return new HibernateQuery(newCriteria, hibernateSession, entity);
+            HibernateQuery query = new HibernateQuery(newCriteria, hibernateSession, entity);
+            query.hqlCriteria.addAll(hqlCriteria);
+            query.hqlRenderable = hqlRenderable;
+            return query;
         });
     }
 
@@ -22,6 +22,8 @@ public interface HibernateQueryConstants {
 
     String ARGUMENT_ORDER = "order";
 
+    String ARGUMENT_AFTER = "after";
+
     String ARGUMENT_SORT = "sort";
 
     String ORDER_DESC = "desc";
@@ -36,6 +38,20 @@ public interface HibernateQueryConstants {
 
     String ARGUMENT_LOCK = "lock";
 
+    String ARGUMENT_EVICT_EVERY = "evictEvery";
+
+    String ARGUMENT_CLEAR_SESSION = "clearSession";
+
+    String ARGUMENT_BATCH_SIZE = "batchSize";
+
+    String ARGUMENT_RESULT_TYPE = "resultType";
+
+    String RESULT_TYPE_ENTITY = "entity";
+
+    String RESULT_TYPE_MAP = "map";
+
+    String RESULT_TYPE_SCALAR = "scalar";
+
     String CONFIG_PROPERTY_CACHE_QUERIES = "grails.hibernate.cache.queries";
 
     String CONFIG_PROPERTY_OSIV_READONLY = "grails.hibernate.osiv.readonly";
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.hibernate.criterion.CriteriaSpecification;
+import org.hibernate.internal.CriteriaImpl;
+
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.model.PersistentProperty;
+import org.grails.datastore.mapping.model.types.Association;
+import org.grails.datastore.mapping.model.types.Embedded;
+import org.grails.datastore.mapping.model.types.ToMany;
+import org.grails.datastore.mapping.query.Query;
+import org.grails.datastore.mapping.query.api.QueryableCriteria;
+
+/**
+ * Renders the criteria, projections and orders of a {@link Query} into a parameterized HQL query.
+ * Rendering happens in two steps: {@link #prepare()} derives the shape of the query, which does not depend on the values,
+ * and collects the values of the parameters, then {@link #render()} produces the HQL for that shape, so that the HQL can be
+ * cached by shape and a repeated query only has to bind its parameters.
+ *
+ * Only queries of simple properties of the root entity are rendered, which covers most dynamic finders and where queries.
+ * Association criteria, subqueries, function calls and size or regular expression criteria are not rendered, and
+ * {@link #prepare()} returns null for them so that the query is executed with the Criteria API instead.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class HqlQueryRenderer {
+
+    /**
+     * The alias of the root entity in the rendered query
+     */
+    public static final String ROOT_ALIAS = "root_";
+
+    /**
+     * The prefix of the names of the parameters of the rendered query
+     */
+    public static final String PARAMETER_PREFIX = "p";
+
+    private final PersistentEntity entity;
+
+    private final List<Query.Criterion> criteria;
+
+    private final List<Query.Projection> projections;
+
+    private final List<Query.Order> orders;
+
+    private final List<Object> parameters = new ArrayList<>();
+
+    private int parameterCount;
+
+    /**
+     * @param entity The root entity
+     * @param criteria The criteria, which are combined with 'and'
+     * @param projections The projections or an empty list to select the entity
+     * @param orders The orders
+     */
+    public HqlQueryRenderer(PersistentEntity entity, List<Query.Criterion> criteria, List<Query.Projection> projections, List<Query.Order> orders) {
+        this.entity = entity;
+        this.criteria = criteria;
+        this.projections = projections != null ? projections : Collections.emptyList();
+        this.orders = orders != null ? orders : Collections.emptyList();
+    }
+
+    /**
+     * Derives the shape of the query and collects the values of its parameters
+     *
+     * @return The shape or null if the query cannot be rendered as HQL
+     */
+    public String prepare() {
+        parameters.clear();
+        parameterCount = 0;
+        if (entity.getIdentity() == null) {
+            return null;
+        }
+        StringBuilder shape = new StringBuilder();
+        if (!appendSelect(shape) || !appendWhere(shape, false) || !appendGroupBy(shape) || !appendOrders(shape)) {
+            parameters.clear();
+            return null;
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Renders the query that was prepared. The parameters are named in the order of {@link #getParameters()}
+     *
+     * @return The HQL query
+     */
+    public String render() {
+        parameterCount = 0;
+        StringBuilder hql = new StringBuilder("select ");
+        appendSelect(hql);
+        hql.append(" from ").append(entity.getJavaClass().getName()).append(" as ").append(ROOT_ALIAS);
+        appendWhere(hql, true);
+        appendGroupBy(hql);
+        appendOrders(hql);
+        return hql.toString();
+    }
+
+    /**
+     * @return The values of the parameters collected by {@link #prepare()}
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Creates a query for HQL rendered from a query of the same shape, binds the parameters collected by {@link #prepare()}
+     * and copies the settings of the given criteria, such as pagination, caching and read-only
+     *
+     * @param hql The HQL
+     * @param criteria The criteria the query replaces
+     * @return The HQL query
+     */
+    @SuppressWarnings("rawtypes")
+    public org.hibernate.query.Query createQuery(String hql, CriteriaImpl criteria) {
+        org.hibernate.query.Query query = criteria.getSession().createQuery(hql);
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            if (value instanceof Collection) {
+                query.setParameterList(parameterName(i), (Collection) value);
+            }
+            else {
+                query.setParameter(parameterName(i), value);
+            }
+        }
+        if (criteria.getMaxResults() != null) {
+            query.setMaxResults(criteria.getMaxResults());
+        }
+        if (criteria.getFirstResult() != null) {
+            query.setFirstResult(criteria.getFirstResult());
+        }
+        if (criteria.getFetchSize() != null) {
+            query.setFetchSize(criteria.getFetchSize());
+        }
+        if (criteria.getTimeout() != null) {
+            query.setTimeout(criteria.getTimeout());
+        }
+        if (criteria.getCacheable()) {
+            query.setCacheable(true);
+            if (criteria.getCacheRegion() != null) {
+                query.setCacheRegion(criteria.getCacheRegion());
+            }
+        }
+        if (criteria.isReadOnlyInitialized()) {
+            query.setReadOnly(criteria.isReadOnly());
+        }
+        if (criteria.getResultTransformer() == CriteriaSpecification.DISTINCT_ROOT_ENTITY) {
+            query.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
+        }
+        return query;
+    }
+
+    /**
+     * @param index The index of a parameter
+     * @return The name of the parameter in the rendered query
+     */
+    public static String parameterName(int index) {
+        return PARAMETER_PREFIX + index;
+    }
+
+    protected boolean appendSelect(StringBuilder out) {
+        if (projections.isEmpty()) {
+            out.append(ROOT_ALIAS);
+            return true;
+        }
+        for (int i = 0; i < projections.size(); i++) {
+            Query.Projection projection = projections.get(i);
+            Class<?> type = projection.getClass();
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (type == Query.CountProjection.class) {
+                out.append("count(").append(ROOT_ALIAS).append(')');
+                continue;
+            }
+            if (type == Query.IdProjection.class) {
+                appendPath(out, entity.getIdentity().getName());
+                continue;
+            }
+            if (!(projection instanceof Query.PropertyProjection)) {
+                return false;
+            }
+            String name = ((Query.PropertyProjection) projection).getPropertyName();
+            // selecting an association would add an implicit inner join that the criteria do not have
+            if (!isValueProperty(name) || getProperty(name) instanceof Association) {
+                return false;
+            }
+            if (type == Query.PropertyProjection.class || type == Query.GroupPropertyProjection.class) {
+                appendPath(out, name);
+            }
+            else if (type == Query.DistinctPropertyProjection.class && i == 0) {
+                out.append("distinct ");
+                appendPath(out, name);
+            }
+            else if (type == Query.CountDistinctProjection.class) {
+                out.append("count(distinct ");
+                appendPath(out, name);
+                out.append(')');
+            }
+            else if (type == Query.SumProjection.class) {
+                appendFunction(out, "sum", name);
+            }
+            else if (type == Query.MinProjection.class) {
+                appendFunction(out, "min", name);
+            }
+            else if (type == Query.MaxProjection.class) {
+                appendFunction(out, "max", name);
+            }
+            else if (type == Query.AvgProjection.class) {
+                appendFunction(out, "avg", name);
+            }
+            else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean appendWhere(StringBuilder out, boolean render) {
+        for (int i = 0; i < criteria.size(); i++) {
+            out.append(i == 0 ? " where " : " and ");
+            if (!appendCriterion(out, criteria.get(i), render)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean appendGroupBy(StringBuilder out) {
+        boolean first = true;
+        for (Query.Projection projection : projections) {
+            if (projection.getClass() == Query.GroupPropertyProjection.class) {
+                out.append(first ? " group by " : ", ");
+                appendPath(out, ((Query.PropertyProjection) projection).getPropertyName());
+                first = false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean appendOrders(StringBuilder out) {
+        for (int i = 0; i < orders.size(); i++) {
+            Query.Order order = orders.get(i);
+            String name = order.getProperty();
+            if (!isValueProperty(name)) {
+                return false;
+            }
+            out.append(i == 0 ? " order by " : ", ");
+            PersistentProperty property = getProperty(name);
+            if (order.isIgnoreCase() && property != null && CharSequence.class.isAssignableFrom(property.getType())) {
+                appendFunction(out, "lower", name);
+            }
+            else {
+                appendPath(out, name);
+            }
+            out.append(order.getDirection() == Query.Order.Direction.DESC ? " desc" : " asc");
+        }
+        return true;
+    }
+
+    protected boolean appendCriterion(StringBuilder out, Query.Criterion criterion, boolean render) {
+        Class<?> type = criterion.getClass();
+        if (type == Query.Conjunction.class) {
+            return appendJunction(out, ((Query.Junction) criterion).getCriteria(), " and ", false, render);
+        }
+        if (type == Query.Disjunction.class) {
+            return appendJunction(out, ((Query.Junction) criterion).getCriteria(), " or ", false, render);
+        }
+        if (type == Query.Negation.class) {
+            return appendJunction(out, ((Query.Junction) criterion).getCriteria(), " or ", true, render);
+        }
+        if (type == Query.IdEquals.class) {
+            appendComparison(out, entity.getIdentity().getName(), "=", ((Query.IdEquals) criterion).getValue(), render);
+            return true;
+        }
+        if (criterion instanceof Query.PropertyComparisonCriterion) {
+            return appendPropertyComparison(out, (Query.PropertyComparisonCriterion) criterion);
+        }
+        if (type == Query.IsNull.class || type == Query.IsNotNull.class) {
+            String name = ((Query.PropertyNameCriterion) criterion).getProperty();
+            if (!isValueProperty(name)) {
+                return false;
+            }
+            appendPath(out, name);
+            out.append(type == Query.IsNull.class ? " is null" : " is not null");
+            return true;
+        }
+        if (type == Query.IsEmpty.class || type == Query.IsNotEmpty.class) {
+            String name = ((Query.PropertyNameCriterion) criterion).getProperty();
+            if (!(getProperty(name) instanceof ToMany)) {
+                return false;
+            }
+            appendPath(out, name);
+            out.append(type == Query.IsEmpty.class ? " is empty" : " is not empty");
+            return true;
+        }
+        if (type == Query.In.class) {
+            return appendIn(out, (Query.In) criterion, render);
+        }
+        if (type == Query.Between.class) {
+            Query.Between between = (Query.Between) criterion;
+            if (!isValueProperty(between.getProperty()) || isSubquery(between.getFrom()) || isSubquery(between.getTo())) {
+                return false;
+            }
+            if (render) {
+                appendPath(out, between.getProperty());
+                out.append(" between :").append(parameterName(parameterCount++)).append(" and :").append(parameterName(parameterCount++));
+            }
+            else {
+                out.append(between.getProperty()).append(" between??");
+                parameters.add(between.getFrom());
+                parameters.add(between.getTo());
+            }
+            return true;
+        }
+        if (!(criterion instanceof Query.PropertyCriterion)) {
+            return false;
+        }
+        Query.PropertyCriterion propertyCriterion = (Query.PropertyCriterion) criterion;
+        String name = propertyCriterion.getProperty();
+        Object value = propertyCriterion.getValue();
+        if (!isValueProperty(name) || isSubquery(value)) {
+            return false;
+        }
+        if (value == null && (type == Query.Equals.class || type == Query.NotEquals.class)) {
+            // Hibernate turns comparisons with null into null checks
+            appendPath(out, name);
+            out.append(type == Query.Equals.class ? " is null" : " is not null");
+            return true;
+        }
+        String operator = getComparisonOperator(type);
+        if (operator != null) {
+            appendComparison(out, name, operator, value, render);
+            return true;
+        }
+        if (type == Query.ILike.class) {
+            if (render) {
+                appendFunction(out, "lower", name);
+                out.append(" like :").append(parameterName(parameterCount++));
+            }
+            else {
+                out.append(name).append(" ilike?");
+                parameters.add(value != null ? value.toString().toLowerCase(Locale.ROOT) : null);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    protected boolean appendJunction(StringBuilder out, List<Query.Criterion> children, String connector, boolean negated, boolean render) {
+        if (negated) {
+            out.append("not ");
+        }
+        if (children.isEmpty()) {
+            // an empty junction matches everything, like an empty Hibernate junction
+            out.append("1=1");
+            return true;
+        }
+        out.append('(');
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                out.append(connector);
+            }
+            if (!appendCriterion(out, children.get(i), render)) {
+                return false;
+            }
+        }
+        out.append(')');
+        return true;
+    }
+
+    protected boolean appendIn(StringBuilder out, Query.In in, boolean render) {
+        String name = in.getProperty();
+        if (in.getSubquery() != null || !isValueProperty(name)) {
+            return false;
+        }
+        Collection<?> values = in.getValues();
+        if (values == null || values.isEmpty()) {
+            out.append(render ? "1=0" : name + " in()");
+            return true;
+        }
+        if (render) {
+            appendPath(out, name);
+            out.append(" in (:").append(parameterName(parameterCount++)).append(')');
+        }
+        else {
+            out.append(name).append(" in?");
+            parameters.add(values);
+        }
+        return true;
+    }
+
+    protected boolean appendPropertyComparison(StringBuilder out, Query.PropertyComparisonCriterion criterion) {
+        Class<?> type = criterion.getClass();
+        String operator;
+        if (type == Query.EqualsProperty.class) {
+            operator = " = ";
+        }
+        else if (type == Query.NotEqualsProperty.class) {
+            operator = " <> ";
+        }
+        else if (type == Query.GreaterThanProperty.class) {
+            operator = " > ";
+        }
+        else if (type == Query.GreaterThanEqualsProperty.class) {
+            operator = " >= ";
+        }
+        else if (type == Query.LessThanProperty.class) {
+            operator = " < ";
+        }
+        else if (type == Query.LessThanEqualsProperty.class) {
+            operator = " <= ";
+        }
+        else {
+            return false;
+        }
+        String name = criterion.getProperty();
+        String otherName = criterion.getOtherProperty();
+        if (!isValueProperty(name) || !isValueProperty(otherName)) {
+            return false;
+        }
+        appendPath(out, name);
+        out.append(operator);
+        appendPath(out, otherName);
+        return true;
+    }
+
+    protected void appendComparison(StringBuilder out, String name, String operator, Object value, boolean render) {
+        if (render) {
+            appendPath(out, name);
+            out.append(' ').append(operator).append(" :").append(parameterName(parameterCount++));
+        }
+        else {
+            out.append(name).append(' ').append(operator).append('?');
+            parameters.add(value);
+        }
+    }
+
+    protected static String getComparisonOperator(Class<?> type) {
+        if (type == Query.Equals.class) {
+            return "=";
+        }
+        if (type == Query.NotEquals.class) {
+            return "<>";
+        }
+        if (type == Query.GreaterThan.class) {
+            return ">";
+        }
+        if (type == Query.GreaterThanEquals.class) {
+            return ">=";
+        }
+        if (type == Query.LessThan.class) {
+            return "<";
+        }
+        if (type == Query.LessThanEquals.class) {
+            return "<=";
+        }
+        if (type == Query.Like.class) {
+            return "like";
+        }
+        return null;
+    }
+
+    private static void appendPath(StringBuilder out, String name) {
+        out.append(ROOT_ALIAS).append('.').append(name);
+    }
+
+    private static void appendFunction(StringBuilder out, String function, String name) {
+        out.append(function).append('(');
+        appendPath(out, name);
+        out.append(')');
+    }
+
+    private static boolean isSubquery(Object value) {
+        return value instanceof QueryableCriteria || value instanceof org.hibernate.criterion.DetachedCriteria;
+    }
+
+    private PersistentProperty getProperty(String name) {
+        if (name == null || name.indexOf('.') > -1) {
+            return null;
+        }
+        PersistentProperty identity = entity.getIdentity();
+        if (identity != null && identity.getName().equals(name)) {
+            return identity;
+        }
+        return entity.getPropertyByName(name);
+    }
+
+    /**
+     * @param name The name of a property
+     * @return Whether the property is a property of the root entity that holds a single value
+     */
+    private boolean isValueProperty(String name) {
+        PersistentProperty property = getProperty(name);
+        return property != null && !(property instanceof ToMany) && !(property instanceof Embedded);
+    }
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.Parameter;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.ClassUtils;
+
+import org.grails.datastore.gorm.finders.DynamicFinder;
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.model.PersistentProperty;
+import org.grails.datastore.mapping.reflect.EntityReflector;
+import org.grails.orm.hibernate.cfg.AbstractGrailsDomainBinder;
+import org.grails.orm.hibernate.cfg.EntityQueryDefaults;
+import org.grails.orm.hibernate.exceptions.GrailsQueryException;
+
+/**
+ * Implements keyset (seek) pagination. The sort properties plus the identifier are turned into a
+ * predicate that seeks past the last row of the previous page, so the cost of a page does not depend on
+ * its position. The position is handed out as an opaque cursor token.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class KeysetPagination {
+
+    private static final String SEPARATOR = ",";
+
+    private final PersistentEntity entity;
+
+    private final ConversionService conversionService;
+
+    private final List<SortKey> sortKeys = new ArrayList<>();
+
+    private final Map<String, Object> queryArguments;
+
+    private final int max;
+
+    private final Object[] after;
+
+    private final Map<Parameter<?>, Object> parameters = new LinkedHashMap<>();
+
+    /**
+     * @param entity The entity
+     * @param argMap The query arguments, including sort, order, ignoreCase, max and after
+     * @param conversionService The conversion service
+     */
+    @SuppressWarnings("unchecked")
+    public KeysetPagination(PersistentEntity entity, Map argMap, ConversionService conversionService) {
+        this.entity = entity;
+        this.conversionService = conversionService;
+        PersistentProperty identity = entity.getIdentity();
+        if (identity == null) {
+            throw new GrailsQueryException("Keyset pagination is not supported for entity [" + entity.getName() + "] without a single identifier");
+        }
+        resolveSortKeys(argMap);
+        if (!containsSortKey(identity.getName())) {
+            sortKeys.add(new SortKey(identity.getName(), identity.getType(), false, false));
+        }
+
+        Object maxParam = argMap.get(DynamicFinder.ARGUMENT_MAX);
+        this.max = maxParam != null ? conversionService.convert(maxParam, Integer.class) : -1;
+
+        this.queryArguments = new LinkedHashMap<>(argMap);
+        queryArguments.remove(DynamicFinder.ARGUMENT_SORT);
+        queryArguments.remove(DynamicFinder.ARGUMENT_ORDER);
+        queryArguments.remove(DynamicFinder.ARGUMENT_IGNORE_CASE);
+        queryArguments.remove(DynamicFinder.ARGUMENT_MAX);
+        queryArguments.remove(DynamicFinder.ARGUMENT_OFFSET);
+        queryArguments.remove(HibernateQueryConstants.ARGUMENT_AFTER);
+
+        this.after = resolveAfter(argMap.get(HibernateQueryConstants.ARGUMENT_AFTER));
+    }
+
+    /**
+     * @return The query arguments that remain once the pagination arguments are removed
+     */
+    public Map<String, Object> getQueryArguments() {
+        return queryArguments;
+    }
+
+    /**
+     * @return The page size or -1 if there is none
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Adds the ordering and the seek predicate to the given query. The sort values of the predicate are
+     * parameters, which have to be bound with {@link #bindParameters(Query)} once the query is created
+     *
+     * @param query The query
+     * @param queryRoot The query root
+     * @param criteriaBuilder The criteria builder
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void apply(CriteriaQuery query, Root queryRoot, CriteriaBuilder criteriaBuilder) {
+        List<Order> orders = new ArrayList<>(sortKeys.size());
+        for (SortKey sortKey : sortKeys) {
+            Expression path = sortKey.path(queryRoot, criteriaBuilder);
+            orders.add(sortKey.descending ? criteriaBuilder.desc(path) : criteriaBuilder.asc(path));
+        }
+        query.orderBy(orders);
+
+        parameters.clear();
+        if (after != null) {
+            Expression[] values = new Expression[sortKeys.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = sortKeys.get(i).value(after[i], criteriaBuilder);
+            }
+            List<Predicate> seek = new ArrayList<>(sortKeys.size());
+            for (int i = 0; i < sortKeys.size(); i++) {
+                List<Predicate> conjunction = new ArrayList<>(i + 1);
+                for (int j = 0; j < i; j++) {
+                    SortKey previous = sortKeys.get(j);
+                    conjunction.add(criteriaBuilder.equal(previous.path(queryRoot, criteriaBuilder), values[j]));
+                }
+                SortKey sortKey = sortKeys.get(i);
+                Expression path = sortKey.path(queryRoot, criteriaBuilder);
+                conjunction.add(sortKey.descending ? criteriaBuilder.lessThan(path, values[i]) : criteriaBuilder.greaterThan(path, values[i]));
+                seek.add(criteriaBuilder.and(conjunction.toArray(new Predicate[0])));
+            }
+            Predicate restriction = query.getRestriction();
+            Predicate seekPredicate = criteriaBuilder.or(seek.toArray(new Predicate[0]));
+            query.where(restriction != null ? criteriaBuilder.and(restriction, seekPredicate) : seekPredicate);
+        }
+    }
+
+    /**
+     * Binds the sort values of the seek predicate added by {@link #apply(CriteriaQuery, Root, CriteriaBuilder)}
+     *
+     * @param query The query created from the criteria query
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void bindParameters(Query query) {
+        for (Map.Entry<Parameter<?>, Object> parameter : parameters.entrySet()) {
+            query.setParameter((Parameter) parameter.getKey(), parameter.getValue());
+        }
+    }
+
+    /**
+     * Creates the result list for the rows of a query that fetched up to max + 1 rows
+     *
+     * @param results The results
+     * @return The page with the cursor of the next page, if there is one
+     */
+    public <E> KeysetResultList<E> createResultList(List<E> results) {
+        if (max < 0 || results.size() <= max) {
+            return new KeysetResultList<>(results, null);
+        }
+        List<E> page = new ArrayList<>(results.subList(0, max));
+        return new KeysetResultList<>(page, page.isEmpty() ? null : encode(page.get(page.size() - 1)));
+    }
+
+    /**
+     * Encodes the sort values of the given instance as a cursor token
+     *
+     * @param instance The instance
+     * @return The cursor token
+     */
+    public String encode(Object instance) {
+        EntityReflector reflector = entity.getReflector();
+        StringBuilder token = new StringBuilder(encodePart(getSignature()));
+        for (SortKey sortKey : sortKeys) {
+            Object value = reflector.getProperty(instance, sortKey.property);
+            if (value == null) {
+                throw new GrailsQueryException("Keyset pagination requires non-null values for sort property [" + sortKey.property + "] of entity [" + entity.getName() + "]");
+            }
+            String encoded;
+            if (value instanceof Timestamp) {
+                // keep the fraction below a millisecond, otherwise rows within the same millisecond are repeated
+                encoded = ((Timestamp) value).getTime() + "." + ((Timestamp) value).getNanos();
+            }
+            else if (value instanceof Date) {
+                encoded = String.valueOf(((Date) value).getTime());
+            }
+            else if (value instanceof Enum) {
+                encoded = ((Enum<?>) value).name();
+            }
+            else {
+                encoded = value.toString();
+            }
+            token.append(SEPARATOR).append(encodePart(encoded));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the sort values of the given cursor token
+     *
+     * @param token The cursor token
+     * @return The sort values
+     */
+    public Object[] decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        }
+        catch (IllegalArgumentException e) {
+            throw new GrailsQueryException("Invalid keyset pagination cursor [" + token + "]", e);
+        }
+        if (parts.length != sortKeys.size() + 1 || !getSignature().equals(decodePart(parts[0]))) {
+            throw new GrailsQueryException("Keyset pagination cursor [" + token + "] does not match the sort order of the query");
+        }
+        Object[] values = new Object[sortKeys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sortKeys.get(i).convert(decodePart(parts[i + 1]));
+        }
+        return values;
+    }
+
+    protected String getSignature() {
+        StringBuilder signature = new StringBuilder(entity.getName());
+        for (SortKey sortKey : sortKeys) {
+            signature.append(':').append(sortKey.property).append(sortKey.descending ? "-" : "+");
+        }
+        return signature.toString();
+    }
+
+    private Object[] resolveAfter(Object afterParam) {
+        if (afterParam == null) {
+            return null;
+        }
+        if (afterParam instanceof CharSequence) {
+            String token = afterParam.toString();
+            return token.isEmpty() ? null : decode(token);
+        }
+        Object[] values;
+        if (afterParam instanceof Collection) {
+            values = ((Collection<?>) afterParam).toArray();
+        }
+        else if (afterParam.getClass().isArray()) {
+            values = (Object[]) afterParam;
+        }
+        else {
+            values = new Object[] { afterParam };
+        }
+        if (values.length != sortKeys.size()) {
+            throw new GrailsQueryException("Keyset pagination requires a value for each of the sort properties " + getSignature());
+        }
+        Object[] converted = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            converted[i] = sortKeys.get(i).convert(values[i]);
+        }
+        return converted;
+    }
+
+    private void resolveSortKeys(Map argMap) {
+        Object sortObj = argMap.get(DynamicFinder.ARGUMENT_SORT);
+        boolean ignoreCase = true;
+        Object caseArg = argMap.get(DynamicFinder.ARGUMENT_IGNORE_CASE);
+        if (caseArg instanceof Boolean) {
+            ignoreCase = (Boolean) caseArg;
+        }
+        if (sortObj instanceof Map) {
+            addSortKeys((Map) sortObj, ignoreCase);
+        }
+        else if (sortObj != null) {
+            addSortKey(sortObj.toString(), (String) argMap.get(DynamicFinder.ARGUMENT_ORDER), ignoreCase);
+        }
+        else {
+            EntityQueryDefaults queryDefaults = AbstractGrailsDomainBinder.getQueryDefaults(entity.getJavaClass());
+            if (queryDefaults != null) {
+                addSortKeys(queryDefaults.getSortOrders(), true);
+            }
+        }
+    }
+
+    private void addSortKeys(Map sortMap, boolean ignoreCase) {
+        for (Object sort : sortMap.keySet()) {
+            Object order = sortMap.get(sort);
+            addSortKey(sort.toString(), order != null ? order.toString() : null, ignoreCase);
+        }
+    }
+
+    private void addSortKey(String sort, String order, boolean ignoreCase) {
+        PersistentProperty property = entity.getPropertyByName(sort);
+        if (property == null && entity.getIdentity().getName().equals(sort)) {
+            property = entity.getIdentity();
+        }
+        if (property == null || sort.indexOf('.') > -1) {
+            throw new GrailsQueryException("Keyset pagination only supports sorting by properties of entity [" + entity.getName() + "], not [" + sort + "]");
+        }
+        if (!containsSortKey(sort)) {
+            boolean descending = DynamicFinder.ORDER_DESC.equalsIgnoreCase(order);
+            sortKeys.add(new SortKey(sort, property.getType(), descending, ignoreCase && property.getType() == String.class));
+        }
+    }
+
+    private boolean containsSortKey(String property) {
+        for (SortKey sortKey : sortKeys) {
+            if (sortKey.property.equals(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String encodePart(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decodePart(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private class SortKey {
+
+        final String property;
+
+        final Class<?> type;
+
+        final boolean descending;
+
+        final boolean ignoreCase;
+
+        SortKey(String property, Class<?> type, boolean descending, boolean ignoreCase) {
+            this.property = property;
+            this.type = type;
+            this.descending = descending;
+            this.ignoreCase = ignoreCase;
+        }
+
+        @SuppressWarnings("unchecked")
+        Expression path(Root queryRoot, CriteriaBuilder criteriaBuilder) {
+            Expression path = queryRoot.get(property);
+            return ignoreCase ? criteriaBuilder.upper(path) : path;
+        }
+
+        @SuppressWarnings("unchecked")
+        Expression value(Object value, CriteriaBuilder criteriaBuilder) {
+            ParameterExpression parameter = criteriaBuilder.parameter(ClassUtils.resolvePrimitiveIfNecessary(type));
+            parameters.put(parameter, value);
+            return ignoreCase ? criteriaBuilder.upper(parameter) : parameter;
+        }
+
+        Object convert(Object value) {
+            if (value == null) {
+                throw new GrailsQueryException("Keyset pagination requires non-null values for sort property [" + property + "]");
+            }
+            if (type.isInstance(value)) {
+                return value;
+            }
+            if (Date.class.isAssignableFrom(type) && value instanceof String) {
+                String time = (String) value;
+                int fraction = time.indexOf('.');
+                if (fraction < 0 && type != Timestamp.class) {
+                    return new Date(Long.parseLong(time));
+                }
+                Timestamp timestamp = new Timestamp(Long.parseLong(fraction < 0 ? time : time.substring(0, fraction)));
+                if (fraction > -1) {
+                    timestamp.setNanos(Integer.parseInt(time.substring(fraction + 1)));
+                }
+                return timestamp;
+            }
+            if (Temporal.class.isAssignableFrom(type) && value instanceof CharSequence) {
+                try {
+                    Method parse = type.getMethod("parse", CharSequence.class);
+                    return parse.invoke(null, value);
+                }
+                catch (ReflectiveOperationException e) {
+                    throw new GrailsQueryException("Cannot convert [" + value + "] for sort property [" + property + "]", e);
+                }
+            }
+            return conversionService.convert(value, type);
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A page of results returned by keyset pagination, together with the cursor of the next page
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ * @see KeysetPagination
+ */
+public class KeysetResultList<E> extends AbstractList<E> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<E> resultList;
+
+    private final String nextCursor;
+
+    public KeysetResultList(List<E> resultList, String nextCursor) {
+        this.resultList = resultList;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return The opaque cursor to pass as the 'after' argument to obtain the next page or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return Whether there is a next page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public E get(int index) {
+        return resultList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return resultList.size();
+    }
+
+}
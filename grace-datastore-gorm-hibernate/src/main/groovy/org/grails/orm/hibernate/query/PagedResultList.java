@@ -16,6 +16,9 @@
 package org.grails.orm.hibernate.query;
 
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -27,6 +30,7 @@ import org.hibernate.query.Query;
 
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.orm.hibernate.GrailsHibernateTemplate;
+import org.grails.orm.hibernate.exceptions.GrailsQueryException;
 
 public class PagedResultList extends grails.gorm.PagedResultList {
 
@@ -40,6 +44,12 @@ public class PagedResultList extends grails.gorm.PagedResultList {
 
     private transient GrailsHibernateTemplate hibernateTemplate;
 
+    private transient Future<Integer> totalCountFuture;
+
+    private transient TotalCountCache totalCountCache;
+
+    private String totalCountKey;
+
     public PagedResultList(GrailsHibernateTemplate template,
             PersistentEntity entity,
             HibernateHqlQuery hibernateHqlQuery,
@@ -54,6 +64,28 @@ public class PagedResultList extends grails.gorm.PagedResultList {
         this.entity = entity;
     }
 
+    /**
+     * Creates a list for results that were already fetched, such as by a query that computed the total count alongside the rows
+     *
+     * @param totalCount The total count or {@link Integer#MIN_VALUE} if it is not known yet
+     */
+    public PagedResultList(GrailsHibernateTemplate template,
+            PersistentEntity entity,
+            List resultList,
+            int totalCount,
+            CriteriaQuery criteriaQuery,
+            Root queryRoot,
+            CriteriaBuilder criteriaBuilder) {
+        super(null);
+        this.resultList = resultList;
+        this.totalCount = totalCount;
+        hibernateTemplate = template;
+        this.criteriaQuery = criteriaQuery;
+        this.queryRoot = queryRoot;
+        this.criteriaBuilder = criteriaBuilder;
+        this.entity = entity;
+    }
+
     @Override
     protected void initialize() {
         // no-op, already initialized
@@ -62,18 +94,75 @@ public class PagedResultList extends grails.gorm.PagedResultList {
     @Override
     public int getTotalCount() {
         if (totalCount == Integer.MIN_VALUE) {
-            totalCount = hibernateTemplate.execute(new GrailsHibernateTemplate.HibernateCallback<Integer>() {
-                public Integer doInHibernate(Session session) throws HibernateException, SQLException {
-                    final CriteriaQuery finalQuery = criteriaQuery.select(criteriaBuilder.count(queryRoot)).distinct(true);
-                    final Query query = session.createQuery(finalQuery);
-                    hibernateTemplate.applySettings(query);
-                    return ((Number) query.uniqueResult()).intValue();
-                }
-            });
+            if (totalCountFuture != null) {
+                totalCount = awaitTotalCount();
+            }
+            else {
+                totalCount = hibernateTemplate.execute(new GrailsHibernateTemplate.HibernateCallback<Integer>() {
+                    public Integer doInHibernate(Session session) throws HibernateException, SQLException {
+                        return count(session, hibernateTemplate, criteriaQuery, queryRoot, criteriaBuilder);
+                    }
+                });
+            }
+            if (totalCountCache != null) {
+                totalCountCache.put(entity, totalCountKey, totalCount);
+            }
         }
         return totalCount;
     }
 
+    /**
+     * Uses the result of a count query that was started when the page was queried
+     *
+     * @param totalCountFuture The future count
+     */
+    public void setTotalCountFuture(Future<Integer> totalCountFuture) {
+        this.totalCountFuture = totalCountFuture;
+    }
+
+    /**
+     * Stores the total count in the given cache once it is known
+     *
+     * @param totalCountCache The cache
+     * @param key The normalized query
+     */
+    public void cacheTotalCount(TotalCountCache totalCountCache, String key) {
+        this.totalCountCache = totalCountCache;
+        this.totalCountKey = key;
+    }
+
+    /**
+     * Counts the distinct root entities matched by the given query
+     *
+     * @return The count
+     */
+    public static int count(Session session, GrailsHibernateTemplate template, CriteriaQuery criteriaQuery, Root queryRoot, CriteriaBuilder criteriaBuilder) {
+        final CriteriaQuery finalQuery = criteriaQuery.select(criteriaBuilder.count(queryRoot)).distinct(true);
+        final Query query = session.createQuery(finalQuery);
+        template.applySettings(query);
+        return ((Number) query.uniqueResult()).intValue();
+    }
+
+    private int awaitTotalCount() {
+        try {
+            return totalCountFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrailsQueryException("Interrupted while waiting for the total count of [" + entity.getName() + "]", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GrailsQueryException("Error counting the results of [" + entity.getName() + "]", cause);
+        }
+        finally {
+            totalCountFuture = null;
+        }
+    }
+
     public void setTotalCount(int totalCount) {
         this.totalCount = totalCount;
     }
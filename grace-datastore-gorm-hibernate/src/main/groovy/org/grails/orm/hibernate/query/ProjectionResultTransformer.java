@@ -0,0 +1,261 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.transform.ResultTransformer;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.ClassUtils;
+
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.model.PersistentProperty;
+import org.grails.datastore.mapping.model.types.Association;
+import org.grails.datastore.mapping.reflect.NameUtils;
+import org.grails.orm.hibernate.exceptions.GrailsQueryException;
+
+/**
+ * Builds instances of a Java record or interface directly from the columns of a projection, so that
+ * no entity is loaded into the persistence context. The components of the record, or the getters of the interface,
+ * determine the properties that are selected.
+ *
+ * @param <P> The projection type
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class ProjectionResultTransformer<P> implements ResultTransformer {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return Shape.of(type);
+        }
+    };
+
+    private final Class<P> type;
+
+    private final transient Shape shape;
+
+    private final transient ConversionService conversionService;
+
+    protected ProjectionResultTransformer(Class<P> type, Shape shape, ConversionService conversionService) {
+        this.type = type;
+        this.shape = shape;
+        this.conversionService = conversionService;
+    }
+
+    /**
+     * Creates a transformer for the given projection type
+     *
+     * @param type A record or an interface
+     * @param entity The entity that is queried
+     * @param conversionService The conversion service used if a column does not match the type of its component
+     * @return The transformer
+     * @throws GrailsQueryException If the type is not a record or interface, or refers to a property the entity does not have
+     */
+    public static <P> ProjectionResultTransformer<P> forType(Class<P> type, PersistentEntity entity, ConversionService conversionService) {
+        Shape shape = SHAPES.get(type);
+        for (String name : shape.propertyNames) {
+            PersistentProperty property = entity.getPropertyByName(name);
+            PersistentProperty identity = entity.getIdentity();
+            boolean isIdentity = identity != null && identity.getName().equals(name);
+            if (!isIdentity && (property == null || property instanceof Association)) {
+                throw new GrailsQueryException("Projection [" + type.getName() + "] refers to [" + name +
+                        "], which is not a simple property of entity [" + entity.getName() + "]");
+            }
+        }
+        return new ProjectionResultTransformer<>(type, shape, conversionService);
+    }
+
+    /**
+     * @return The names of the properties to select, in the order the values are expected
+     */
+    public List<String> getPropertyNames() {
+        return shape.propertyNames;
+    }
+
+    /**
+     * @return The projection type
+     */
+    public Class<P> getType() {
+        return type;
+    }
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        Object[] values = new Object[shape.valueTypes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convert(tuple[i], shape.valueTypes[i]);
+        }
+        if (shape.constructor != null) {
+            try {
+                return shape.constructor.newInstance(values);
+            }
+            catch (InvocationTargetException e) {
+                throw new GrailsQueryException("Cannot create projection [" + type.getName() + "]: " + e.getCause().getMessage(), e.getCause());
+            }
+            catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw new GrailsQueryException("Cannot create projection [" + type.getName() + "]: " + e.getMessage(), e);
+            }
+        }
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new ProjectionInvocationHandler(shape, values));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List transformList(List collection) {
+        return collection;
+    }
+
+    protected Object convert(Object value, Class<?> valueType) {
+        if (value == null || ClassUtils.resolvePrimitiveIfNecessary(valueType).isInstance(value)) {
+            return value;
+        }
+        if (conversionService != null && conversionService.canConvert(value.getClass(), valueType)) {
+            return conversionService.convert(value, valueType);
+        }
+        return value;
+    }
+
+    /**
+     * The properties and the means of instantiation of a projection type
+     */
+    static final class Shape {
+
+        final List<String> propertyNames;
+
+        final Class<?>[] valueTypes;
+
+        final Constructor<?> constructor;
+
+        final Map<Method, Integer> accessors;
+
+        private Shape(List<String> propertyNames, Class<?>[] valueTypes, Constructor<?> constructor, Map<Method, Integer> accessors) {
+            this.propertyNames = Collections.unmodifiableList(propertyNames);
+            this.valueTypes = valueTypes;
+            this.constructor = constructor;
+            this.accessors = accessors;
+        }
+
+        static Shape of(Class<?> type) {
+            if (type.isRecord()) {
+                RecordComponent[] components = type.getRecordComponents();
+                List<String> names = new ArrayList<>(components.length);
+                Class<?>[] valueTypes = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    names.add(components[i].getName());
+                    valueTypes[i] = components[i].getType();
+                }
+                try {
+                    Constructor<?> constructor = type.getDeclaredConstructor(valueTypes);
+                    constructor.setAccessible(true);
+                    return new Shape(names, valueTypes, constructor, Collections.emptyMap());
+                }
+                catch (NoSuchMethodException e) {
+                    throw new GrailsQueryException("Record [" + type.getName() + "] has no canonical constructor", e);
+                }
+            }
+            if (type.isInterface()) {
+                List<String> names = new ArrayList<>();
+                List<Class<?>> valueTypes = new ArrayList<>();
+                Map<Method, Integer> accessors = new HashMap<>();
+                // the order of getMethods() is unspecified, so the getters are sorted to select the properties in a stable order
+                Method[] methods = type.getMethods();
+                Arrays.sort(methods, Comparator.comparing(Method::getName));
+                for (Method method : methods) {
+                    if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) {
+                        continue;
+                    }
+                    String name = NameUtils.getPropertyNameForGetterOrSetter(method.getName());
+                    if (name == null) {
+                        throw new GrailsQueryException("Method [" + method.getName() + "] of projection [" + type.getName() + "] is not a getter");
+                    }
+                    int index = names.indexOf(name);
+                    if (index == -1) {
+                        index = names.size();
+                        names.add(name);
+                        valueTypes.add(method.getReturnType());
+                    }
+                    accessors.put(method, index);
+                }
+                return new Shape(names, valueTypes.toArray(new Class<?>[0]), null, accessors);
+            }
+            throw new GrailsQueryException("Projection [" + type.getName() + "] must be a record or an interface");
+        }
+
+    }
+
+    private static final class ProjectionInvocationHandler implements InvocationHandler {
+
+        private final Shape shape;
+
+        private final Object[] values;
+
+        ProjectionInvocationHandler(Shape shape, Object[] values) {
+            this.shape = shape;
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Integer index = shape.accessors.get(method);
+            if (index != null) {
+                return values[index];
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            switch (method.getName()) {
+                case "equals":
+                    Object other = args[0];
+                    return other != null && Proxy.isProxyClass(other.getClass()) &&
+                            Proxy.getInvocationHandler(other) instanceof ProjectionInvocationHandler &&
+                            ((ProjectionInvocationHandler) Proxy.getInvocationHandler(other)).shape == shape &&
+                            Arrays.equals(values, ((ProjectionInvocationHandler) Proxy.getInvocationHandler(other)).values);
+                case "hashCode":
+                    return Arrays.hashCode(values);
+                case "toString":
+                    StringBuilder builder = new StringBuilder(proxy.getClass().getInterfaces()[0].getSimpleName()).append('[');
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            builder.append(", ");
+                        }
+                        builder.append(shape.propertyNames.get(i)).append('=').append(values[i]);
+                    }
+                    return builder.append(']').toString();
+                default:
+                    throw new UnsupportedOperationException("Method [" + method.getName() + "] is not supported by projections");
+            }
+        }
+
+    }
+
+}
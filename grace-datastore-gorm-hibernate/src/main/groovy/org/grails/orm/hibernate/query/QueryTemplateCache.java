@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.grails.datastore.mapping.model.PersistentEntity;
+
+/**
+ * A cache of compiled query templates, keyed by entity and the shape of the query.
+ * The number of templates per entity is capped, so that queries built from arbitrary keys cannot grow it unbounded.
+ *
+ * @param <T> The type of the templates
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class QueryTemplateCache<T> {
+
+    private final int maxPerEntity;
+
+    private final Map<String, Map<String, T>> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxPerEntity The maximum number of templates kept per entity
+     */
+    public QueryTemplateCache(int maxPerEntity) {
+        this.maxPerEntity = maxPerEntity;
+    }
+
+    /**
+     * Obtains the template for the given shape, compiling it if it is not cached
+     *
+     * @param entity The entity
+     * @param key The normalized shape of the query
+     * @param compiler Compiles the template from the key
+     * @return The template
+     */
+    public T get(PersistentEntity entity, String key, Function<String, T> compiler) {
+        Map<String, T> entityTemplates = templates.computeIfAbsent(entity.getName(), name -> new ConcurrentHashMap<>());
+        T template = entityTemplates.get(key);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        template = compiler.apply(key);
+        if (entityTemplates.size() >= maxPerEntity) {
+            entityTemplates.clear();
+        }
+        entityTemplates.put(key, template);
+        return template;
+    }
+
+    /**
+     * @return The number of lookups that found a cached template
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to compile a template
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @param entity The entity
+     * @return The number of templates cached for the entity
+     */
+    public int size(PersistentEntity entity) {
+        Map<String, T> entityTemplates = templates.get(entity.getName());
+        return entityTemplates == null ? 0 : entityTemplates.size();
+    }
+
+    /**
+     * Removes all templates and resets the counters
+     */
+    public void clear() {
+        templates.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.model.PersistentProperty;
+import org.grails.datastore.mapping.model.types.Association;
+import org.grails.datastore.mapping.model.types.Embedded;
+import org.grails.datastore.mapping.reflect.EntityReflector;
+import org.grails.orm.hibernate.exceptions.GrailsQueryException;
+
+/**
+ * Writes the rows of a query as CSV or JSON Lines while they are read from the cursor, so that the results are never
+ * held in memory. Rows of scalar projections are written as they are, entities are written with the values of the
+ * given columns, or of their identity and simple properties.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class ResultExporter {
+
+    /**
+     * The argument for the format, either 'csv' or 'jsonl'
+     */
+    public static final String ARGUMENT_FORMAT = "format";
+
+    /**
+     * The argument for the names of the columns
+     */
+    public static final String ARGUMENT_COLUMNS = "columns";
+
+    /**
+     * The argument for whether to write the header row of a CSV export
+     */
+    public static final String ARGUMENT_HEADER = "header";
+
+    /**
+     * The argument for the size of the output buffer in characters
+     */
+    public static final String ARGUMENT_BUFFER_SIZE = "bufferSize";
+
+    /**
+     * The size of the output buffer used when none is specified
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The supported formats
+     */
+    public enum Format {
+
+        CSV,
+
+        JSONL;
+
+        /**
+         * @param value The name of the format, case insensitive, or null for CSV
+         * @return The format
+         */
+        public static Format of(Object value) {
+            if (value == null) {
+                return CSV;
+            }
+            if (value instanceof Format) {
+                return (Format) value;
+            }
+            String name = value.toString().toUpperCase(Locale.ENGLISH);
+            if ("JSON".equals(name) || "NDJSON".equals(name)) {
+                return JSONL;
+            }
+            try {
+                return valueOf(name);
+            }
+            catch (IllegalArgumentException e) {
+                throw new GrailsQueryException("Unsupported export format [" + value + "], use 'csv' or 'jsonl'");
+            }
+        }
+
+    }
+
+    private final Format format;
+
+    private final PersistentEntity entity;
+
+    private final List<String> columns;
+
+    private final String[] aliases;
+
+    private final boolean header;
+
+    private final int bufferSize;
+
+    /**
+     * @param format The format
+     * @param entity The entity that is queried
+     * @param columns The names of the columns or null to derive them from the first row
+     * @param aliases The aliases of the selected values of the query or null if they are unknown
+     * @param header Whether to write the header row of a CSV export
+     * @param bufferSize The size of the output buffer in characters
+     */
+    public ResultExporter(Format format, PersistentEntity entity, List<String> columns, String[] aliases, boolean header, int bufferSize) {
+        this.format = format;
+        this.entity = entity;
+        this.columns = columns;
+        this.aliases = aliases;
+        this.header = header;
+        this.bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Writes the given rows to the output stream, which is flushed but not closed
+     *
+     * @param rows The rows, either entities, arrays of projected values or single values
+     * @param out The output stream
+     * @return The number of rows written
+     * @throws IOException If the rows cannot be written
+     */
+    public long export(Stream<?> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+        List<String> names = columns;
+        EntityReflector reflector = entity.getReflector();
+        long count = 0;
+        Iterator<?> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            Object row = iterator.next();
+            if (names == null) {
+                names = resolveColumns(row);
+            }
+            if (count == 0 && header && format == Format.CSV) {
+                writeCsv(writer, names.toArray());
+            }
+            Object[] values = read(row, names, reflector);
+            if (format == Format.CSV) {
+                writeCsv(writer, values);
+            }
+            else {
+                writeJson(writer, names, values);
+            }
+            count++;
+        }
+        if (count == 0 && header && format == Format.CSV && names != null) {
+            writeCsv(writer, names.toArray());
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * @param entity The entity
+     * @return The identity and the simple properties of the entity
+     */
+    public static List<String> defaultColumns(PersistentEntity entity) {
+        List<String> names = new ArrayList<>();
+        PersistentProperty identity = entity.getIdentity();
+        if (identity != null) {
+            names.add(identity.getName());
+        }
+        for (PersistentProperty property : entity.getPersistentProperties()) {
+            if (!(property instanceof Association) && !(property instanceof Embedded)) {
+                names.add(property.getName());
+            }
+        }
+        return names;
+    }
+
+    protected List<String> resolveColumns(Object row) {
+        if (entity.getJavaClass().isInstance(row)) {
+            return defaultColumns(entity);
+        }
+        int size = row instanceof Object[] ? ((Object[]) row).length : 1;
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String alias = aliases != null && aliases.length == size ? aliases[i] : null;
+            // Hibernate uses the position as the alias of values that have none
+            names.add(alias == null || alias.isEmpty() || Character.isDigit(alias.charAt(0)) ? "column" + (i + 1) : alias);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    protected Object[] read(Object row, List<String> names, EntityReflector reflector) {
+        if (row instanceof Object[]) {
+            return (Object[]) row;
+        }
+        if (entity.getJavaClass().isInstance(row)) {
+            Object[] values = new Object[names.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = reflector.getProperty(row, names.get(i));
+            }
+            return values;
+        }
+        return new Object[] { row };
+    }
+
+    protected void writeCsv(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = format(value);
+            if (text.indexOf(',') > -1 || text.indexOf('"') > -1 || text.indexOf('\n') > -1 || text.indexOf('\r') > -1) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            }
+            else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    protected void writeJson(Writer writer, List<String> names, Object[] values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeJsonString(writer, i < names.size() ? names.get(i) : "column" + (i + 1));
+            writer.write(':');
+            Object value = values[i];
+            if (value == null) {
+                writer.write("null");
+            }
+            else if (value instanceof Boolean) {
+                writer.write(value.toString());
+            }
+            else if (value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                writer.write(Double.isNaN(number) || Double.isInfinite(number) ? "null" : value.toString());
+            }
+            else {
+                writeJsonString(writer, format(value));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    protected String format(Object value) {
+        if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return Instant.ofEpochMilli(((Date) value).getTime()).toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    private static void writeJsonString(Writer writer, String text) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+}
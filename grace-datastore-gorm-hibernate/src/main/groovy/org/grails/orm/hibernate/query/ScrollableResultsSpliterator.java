@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * A {@link Spliterator} over forward-only {@link ScrollableResults} that releases the rows it has
+ * handed out from the session every N rows, so that large results can be streamed with constant heap.
+ * Every instance that entered the session while the results are streamed is released, including the
+ * associated instances loaded with the rows and the instances the consumer loads itself, while the
+ * instances that were in the session before are kept. Changes to released instances that were not
+ * flushed are lost.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class ScrollableResultsSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    /**
+     * The fetch size used when none is specified
+     */
+    public static final int DEFAULT_FETCH_SIZE = 100;
+
+    private final Session session;
+
+    private final ScrollableResults results;
+
+    private final int evictEvery;
+
+    private final boolean clearSession;
+
+    private final Set<EntityKey> retained;
+
+    private long count;
+
+    private boolean closed;
+
+    /**
+     * @param session The session the results are bound to
+     * @param results The results
+     * @param evictEvery The number of rows after which the streamed instances are released. 0 disables it
+     * @param clearSession Whether to clear the whole session instead of evicting the instances loaded while streaming
+     */
+    public ScrollableResultsSpliterator(Session session, ScrollableResults results, int evictEvery, boolean clearSession) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.session = session;
+        this.results = results;
+        this.evictEvery = evictEvery;
+        this.clearSession = clearSession;
+        this.retained = evictEvery > 0 && !clearSession ? getEntityKeys() : Collections.emptySet();
+    }
+
+    /**
+     * Creates a sequential stream over the given results that closes the cursor when the stream is closed
+     *
+     * @see #ScrollableResultsSpliterator(Session, ScrollableResults, int, boolean)
+     */
+    public static <T> Stream<T> stream(Session session, ScrollableResults results, int evictEvery, boolean clearSession) {
+        ScrollableResultsSpliterator<T> spliterator = new ScrollableResultsSpliterator<>(session, results, evictEvery, clearSession);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        if (evictEvery > 0 && count > 0 && count % evictEvery == 0) {
+            // the consumer is done with the previous rows at this point
+            release();
+        }
+        if (!results.next()) {
+            if (evictEvery > 0) {
+                release();
+            }
+            close();
+            return false;
+        }
+        Object[] row = results.get();
+        Object value = row.length == 1 ? row[0] : row;
+        count++;
+        action.accept((T) value);
+        return true;
+    }
+
+    /**
+     * Closes the underlying cursor
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            results.close();
+        }
+    }
+
+    protected void release() {
+        if (clearSession) {
+            session.clear();
+        }
+        else {
+            for (Map.Entry<Object, EntityEntry> entry : getPersistenceContext().reentrantSafeEntityEntries()) {
+                if (!retained.contains(entry.getValue().getEntityKey()) && session.contains(entry.getKey())) {
+                    // evicting an instance may have cascaded to instances later in the array
+                    session.evict(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private Set<EntityKey> getEntityKeys() {
+        Map.Entry<Object, EntityEntry>[] entries = getPersistenceContext().reentrantSafeEntityEntries();
+        Set<EntityKey> keys = new HashSet<>(entries.length);
+        for (Map.Entry<Object, EntityEntry> entry : entries) {
+            keys.add(entry.getValue().getEntityKey());
+        }
+        return keys;
+    }
+
+    private PersistenceContext getPersistenceContext() {
+        return ((SessionImplementor) session).getPersistenceContext();
+    }
+
+}
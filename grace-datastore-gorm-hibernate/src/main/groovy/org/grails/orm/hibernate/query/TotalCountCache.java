@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.grails.orm.hibernate.query;
+
+import java.sql.Timestamp;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationEvent;
+
+import org.grails.datastore.mapping.engine.event.AbstractPersistenceEvent;
+import org.grails.datastore.mapping.engine.event.PersistenceEventListener;
+import org.grails.datastore.mapping.engine.event.PostDeleteEvent;
+import org.grails.datastore.mapping.engine.event.PostInsertEvent;
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.orm.hibernate.AbstractHibernateDatastore;
+
+/**
+ * A short lived cache of the total counts of paginated queries, keyed by entity and normalized query.
+ * The counts of an entity are invalidated when an instance of it is inserted or deleted.
+ *
+ * @author Michael Yan
+ * @since 2023.1
+ */
+public class TotalCountCache implements PersistenceEventListener {
+
+    /**
+     * The maximum number of counts kept per entity
+     */
+    public static final int MAX_ENTRIES_PER_ENTITY = 1000;
+
+    private final long timeToLive;
+
+    private final Map<String, Map<String, CachedCount>> counts = new ConcurrentHashMap<>();
+
+    /**
+     * @param timeToLive The time in milliseconds after which a count expires
+     */
+    public TotalCountCache(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Creates the key of a count from the shape of the query and the values of its parameters. Only values whose string
+     * form identifies them are part of a key, so that different queries cannot share a count
+     *
+     * @param prefix The kind of query
+     * @param shape The shape of the query, which does not depend on the values
+     * @param parameters The values of the parameters
+     * @return The key or null if a value has no string form that identifies it, in which case the count is not cached
+     */
+    public static String createKey(String prefix, String shape, List<Object> parameters) {
+        StringBuilder key = new StringBuilder(prefix).append('|').append(shape);
+        for (Object parameter : parameters) {
+            key.append('|');
+            if (!appendValue(key, parameter)) {
+                return null;
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean appendValue(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append("null");
+        }
+        else if (value instanceof Collection) {
+            key.append('[');
+            for (Object element : (Collection<?>) value) {
+                if (!appendValue(key, element)) {
+                    return false;
+                }
+                key.append(',');
+            }
+            key.append(']');
+        }
+        else if (value instanceof Timestamp) {
+            key.append(Timestamp.class.getName()).append(':').append(((Timestamp) value).getTime()).append('.').append(((Timestamp) value).getNanos());
+        }
+        else if (value instanceof Date) {
+            key.append(Date.class.getName()).append(':').append(((Date) value).getTime());
+        }
+        else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character ||
+                value instanceof Enum || value instanceof TemporalAccessor || value instanceof UUID) {
+            String text = value.toString();
+            // the length keeps separators within a value from running into the next value
+            key.append(value.getClass().getName()).append(':').append(text.length()).append(':').append(text);
+        }
+        else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param entity The entity
+     * @param key The normalized query
+     * @return The cached count or null if there is none or it expired
+     */
+    public Integer get(PersistentEntity entity, String key) {
+        Map<String, CachedCount> entityCounts = counts.get(entity.getName());
+        if (entityCounts == null) {
+            return null;
+        }
+        CachedCount cachedCount = entityCounts.get(key);
+        if (cachedCount == null) {
+            return null;
+        }
+        if (cachedCount.expires < System.currentTimeMillis()) {
+            entityCounts.remove(key, cachedCount);
+            return null;
+        }
+        return cachedCount.count;
+    }
+
+    /**
+     * @param entity The entity
+     * @param key The normalized query
+     * @param count The count
+     */
+    public void put(PersistentEntity entity, String key, int count) {
+        Map<String, CachedCount> entityCounts = counts.computeIfAbsent(entity.getName(), name -> new ConcurrentHashMap<>());
+        if (entityCounts.size() >= MAX_ENTRIES_PER_ENTITY) {
+            entityCounts.clear();
+        }
+        entityCounts.put(key, new CachedCount(count, System.currentTimeMillis() + timeToLive));
+    }
+
+    /**
+     * Removes the counts of the given entity and the entities it inherits from
+     *
+     * @param entity The entity
+     */
+    public void invalidate(PersistentEntity entity) {
+        for (PersistentEntity current = entity; current != null; current = current.getParentEntity()) {
+            counts.remove(current.getName());
+        }
+    }
+
+    /**
+     * Removes all counts
+     */
+    public void clear() {
+        counts.clear();
+    }
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return PostInsertEvent.class.isAssignableFrom(eventType) || PostDeleteEvent.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public boolean supportsSourceType(Class<?> sourceType) {
+        return AbstractHibernateDatastore.class.isAssignableFrom(sourceType);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof AbstractPersistenceEvent) {
+            PersistentEntity entity = ((AbstractPersistenceEvent) event).getEntity();
+            if (entity != null) {
+                invalidate(entity);
+            }
+        }
+    }
+
+    private static final class CachedCount {
+
+        final int count;
+
+        final long expires;
+
+        CachedCount(int count, long expires) {
+            this.count = count;
+            this.expires = expires;
+        }
+
+    }
+
+}
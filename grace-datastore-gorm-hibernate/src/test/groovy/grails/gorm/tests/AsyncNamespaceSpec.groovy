@@ -0,0 +1,105 @@
+package grails.gorm.tests
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class AsyncNamespaceSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:asyncNamespaceDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.async.poolSize': 2
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Manuscript)
+
+    void setup() {
+        Manuscript.withTransaction {
+            new Manuscript(title: "The Hobbit", author: "Tolkien").save()
+            new Manuscript(title: "The Silmarillion", author: "Tolkien").save()
+            new Manuscript(title: "Dune", author: "Herbert").save(flush: true)
+        }
+    }
+
+    void cleanup() {
+        Manuscript.withTransaction {
+            Manuscript.executeUpdate("delete from Manuscript")
+        }
+    }
+
+    void "test dynamic finders return a future"() {
+        when:
+        CompletableFuture<Object> future = Manuscript.async.findAllByAuthor("Tolkien", [sort: 'title'])
+
+        then:
+        future.get(10, TimeUnit.SECONDS)*.title == ["The Hobbit", "The Silmarillion"]
+    }
+
+    void "test static methods return a future"() {
+        expect:
+        Manuscript.async.count().get(10, TimeUnit.SECONDS) == 3
+        Manuscript.async.findByTitle("Dune").get(10, TimeUnit.SECONDS).author == "Herbert"
+    }
+
+    void "test a task runs on another thread in its own transaction"() {
+        given:
+        Thread caller = Thread.currentThread()
+
+        when:
+        Map result = Manuscript.async.task {
+            new Manuscript(title: "Emma", author: "Austen").save(flush: true)
+            [thread: Thread.currentThread(), transaction: TransactionSynchronizationManager.isActualTransactionActive()]
+        }.get(10, TimeUnit.SECONDS)
+
+        then:
+        !result.thread.is(caller)
+        result.transaction
+        Manuscript.withTransaction { Manuscript.countByAuthor("Austen") } == 1
+    }
+
+    void "test the transaction of a failed task is rolled back"() {
+        when:
+        Manuscript.async.task {
+            new Manuscript(title: "Lost", author: "Nobody").save(flush: true)
+            throw new IllegalStateException("failed")
+        }.get(10, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof IllegalStateException
+        Manuscript.withTransaction { Manuscript.countByAuthor("Nobody") } == 0
+    }
+
+    void "test tasks run concurrently"() {
+        given:"a barrier that is only passed once both tasks are running at the same time"
+        CyclicBarrier barrier = new CyclicBarrier(2)
+
+        when:
+        List<CompletableFuture<Object>> futures = (1..2).collect {
+            Manuscript.async.task {
+                barrier.await(10, TimeUnit.SECONDS)
+                Manuscript.countByAuthor("Tolkien")
+            }
+        }
+
+        then:
+        CompletableFuture.allOf(futures as CompletableFuture[]).get(20, TimeUnit.SECONDS) == null
+        futures*.join() == [2, 2]
+    }
+}
+
+@Entity
+class Manuscript implements HibernateEntity<Manuscript> {
+    String title
+    String author
+}
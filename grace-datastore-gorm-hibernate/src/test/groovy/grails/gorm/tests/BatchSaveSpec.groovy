@@ -0,0 +1,166 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.transactions.Rollback
+import org.grails.datastore.mapping.validation.ValidationException
+import org.grails.orm.hibernate.BatchSaveResult
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.Session
+import org.hibernate.stat.Statistics
+import org.springframework.dao.DataAccessException
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class BatchSaveSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:batchSaveDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.generate_statistics': 'true'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Shipment)
+
+    @Rollback
+    void "test save all instances in batches"() {
+        given:
+        List<Shipment> shipments = (1..25).collect { new Shipment(code: "S$it", weight: it) }
+        Statistics statistics = datastore.sessionFactory.statistics
+        statistics.clear()
+
+        when:
+        BatchSaveResult result = Shipment.saveAll(shipments, [batchSize: 10])
+
+        then:
+        !result.hasErrors()
+        result.savedCount == 25
+        result.ids == shipments*.id
+        statistics.entityInsertCount == 25
+        !currentSession.contains(shipments[0])
+        Shipment.count() == 25
+    }
+
+    @Rollback
+    void "test invalid instances are reported and the others are saved"() {
+        given:
+        List<Shipment> shipments = [new Shipment(code: "A", weight: 1), new Shipment(code: "B", weight: -1), new Shipment(code: "C", weight: 3)]
+
+        when:
+        BatchSaveResult result = Shipment.insertAll(shipments, [batchSize: 2])
+
+        then:
+        result.hasErrors()
+        result.invalid == [shipments[1]]
+        shipments[1].errors.hasFieldErrors('weight')
+        result.savedCount == 2
+        Shipment.count() == 2
+    }
+
+    @Rollback
+    void "test invalid instances fail the batch with failOnError"() {
+        when:
+        Shipment.saveAll([new Shipment(code: "A", weight: -1)], [failOnError: true])
+
+        then:
+        thrown(ValidationException)
+    }
+
+    void "test a chunk that fails to be written is rolled back without losing the other chunks"() {
+        given:
+        Shipment.withNewTransaction {
+            new Shipment(code: "DUPLICATE", weight: 1).save(flush: true)
+        }
+        List<Shipment> shipments = (1..9).collect { new Shipment(code: it == 5 ? "DUPLICATE" : "C$it", weight: it) }
+
+        when:
+        BatchSaveResult result = Shipment.saveAll(shipments, [batchSize: 3, validate: false])
+
+        then:
+        result.failures.size() == 1
+        result.failures[0].index == 1
+        result.failures[0].instances == shipments[3..5]
+        result.failures[0].instances.every { it.id == null }
+        result.savedCount == 6
+
+        and: "the other chunks are committed"
+        Shipment.withNewTransaction { Shipment.count() } == 7
+        Shipment.withNewTransaction { Shipment.findAllByCodeLike("C%")*.weight.sort() } == [1, 2, 3, 7, 8, 9]
+
+        cleanup:
+        Shipment.withNewTransaction {
+            Shipment.executeUpdate("delete from Shipment")
+        }
+    }
+
+    @Rollback
+    void "test a chunk that fails to be written within a transaction fails the transaction"() {
+        given:
+        new Shipment(code: "DUPLICATE", weight: 1).save(flush: true)
+        List<Shipment> shipments = (1..6).collect { new Shipment(code: it == 5 ? "DUPLICATE" : "C$it", weight: it) }
+
+        when:
+        Shipment.saveAll(shipments, [batchSize: 3, validate: false])
+
+        then:
+        thrown(DataAccessException)
+        shipments[3..5].every { it.id == null }
+    }
+
+    @Rollback
+    void "test the session is kept by default within a transaction"() {
+        given:
+        Shipment existing = new Shipment(code: "D", weight: 1).save(flush: true)
+        List<Shipment> shipments = [new Shipment(code: "G", weight: 2)]
+
+        when:
+        Shipment.saveAll(shipments, [:])
+
+        then:
+        currentSession.contains(existing)
+        !currentSession.contains(shipments[0])
+        Shipment.count() == 2
+    }
+
+    @Rollback
+    void "test the session is cleared with clearSession"() {
+        given:
+        Shipment existing = new Shipment(code: "H", weight: 1).save(flush: true)
+
+        when:
+        Shipment.saveAll([new Shipment(code: "I", weight: 2)], [clearSession: true])
+
+        then:
+        !currentSession.contains(existing)
+        Shipment.count() == 2
+    }
+
+    @Rollback
+    void "test the session is kept when clearSession is false"() {
+        given:
+        Shipment existing = new Shipment(code: "E", weight: 1).save(flush: true)
+
+        when:
+        Shipment.saveAll([new Shipment(code: "F", weight: 2)], [clearSession: false])
+
+        then:
+        currentSession.contains(existing)
+        Shipment.count() == 2
+    }
+
+    private Session getCurrentSession() {
+        datastore.sessionFactory.currentSession
+    }
+}
+
+@Entity
+class Shipment implements HibernateEntity<Shipment> {
+    String code
+    Integer weight
+
+    static constraints = {
+        code unique: true
+        weight min: 0
+    }
+}
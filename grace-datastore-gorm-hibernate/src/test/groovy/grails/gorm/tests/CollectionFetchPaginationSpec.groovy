@@ -0,0 +1,91 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.FetchMode
+import org.hibernate.Hibernate
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class CollectionFetchPaginationSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:collectionFetchPaginationDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Bookcase, BookcaseVolume)
+
+    @Rollback
+    void "test pages that fetch a collection contain whole instances"() {
+        given:
+        createBookcases()
+
+        when:
+        List<Bookcase> listed = Bookcase.list(max: 2, offset: 1, sort: 'name', fetch: [volumes: 'join'])
+        List<Bookcase> found = Bookcase.findAllByNameLike('%', [max: 2, sort: 'name', order: 'desc', fetch: [volumes: 'join']])
+        List<Bookcase> criteria = Bookcase.withCriteria {
+            fetchMode 'volumes', FetchMode.JOIN
+            order 'name'
+            maxResults 2
+        }
+        List<Bookcase> paged = Bookcase.createCriteria().list(max: 2, offset: 1) {
+            fetchMode 'volumes', FetchMode.JOIN
+            order 'name', 'desc'
+        }
+
+        then:
+        listed*.name == ['Birch', 'Cedar']
+        found*.name == ['Cedar', 'Birch']
+        criteria*.name == ['Ash', 'Birch']
+        paged*.name == ['Birch', 'Ash']
+        (listed + found + criteria + paged).every { Hibernate.isInitialized(it.volumes) && it.volumes.size() == 3 }
+        listed.totalCount == 3
+        paged.totalCount == 3
+    }
+
+    @Rollback
+    void "test pages that filter on a collection contain each instance once"() {
+        given:
+        createBookcases()
+
+        expect:
+        Bookcase.withCriteria {
+            volumes {
+                like 'title', 'Vol%'
+            }
+            order 'name'
+            firstResult 1
+            maxResults 2
+        }*.name == ['Birch', 'Cedar']
+        Bookcase.where { volumes.title == 'Vol 2' }.list(max: 1, sort: 'name')*.name == ['Ash']
+    }
+
+    private void createBookcases() {
+        for (String name in ['Cedar', 'Ash', 'Birch']) {
+            Bookcase bookcase = new Bookcase(name: name)
+            for (int i in 1..3) {
+                bookcase.addToVolumes(title: "Vol $i")
+            }
+            bookcase.save()
+        }
+        datastore.currentSession.flush()
+        datastore.currentSession.clear()
+    }
+}
+
+@Entity
+class Bookcase {
+    String name
+    static hasMany = [volumes: BookcaseVolume]
+}
+
+@Entity
+class BookcaseVolume {
+    String title
+    static belongsTo = [bookcase: Bookcase]
+}
@@ -0,0 +1,196 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import grails.orm.HibernateCriteriaBuilder
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.QueryTemplateCache
+import org.hibernate.dialect.H2Dialect
+import org.hibernate.internal.CriteriaImpl
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class CriteriaClosureTemplateSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:criteriaClosureTemplateDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Kettle, KettleStore)
+
+    void setup() {
+        datastore.queryTemplateCache.clear()
+    }
+
+    @Rollback
+    void "test criteria closures rendered as HQL return the same results as criteria"() {
+        given:
+        createKettles()
+
+        expect:
+        Kettle.withCriteria { eq 'brand', 'Acme'; order 'litres' }*.litres == [1, 2]
+        Kettle.withCriteria { or { eq 'brand', 'Boil'; isNull 'color' }; order 'litres', 'desc' }*.litres == [4, 3]
+        Kettle.withCriteria { not { eq 'brand', 'Acme' }; order 'litres' }*.litres == [3, 4]
+        Kettle.withCriteria { between 'litres', 2, 3; ilike 'brand', 'A%'; order 'litres' }*.litres == [2]
+        Kettle.withCriteria { 'in'('color', ['red', 'white']); order 'litres' }*.litres == [1, 3]
+        Kettle.withCriteria { eq 'color', null }*.litres == [4]
+        Kettle.withCriteria { projections { max 'litres' }; eq 'brand', 'Acme' } == [2]
+        Kettle.withCriteria { projections { groupProperty 'brand'; count() }; order 'brand' }.collect { it as List } == [['Acme', 2L], ['Boil', 2L]]
+        Kettle.createCriteria().count { gt 'litres', 1 } == 3
+        Kettle.createCriteria().get { eq 'litres', 3 }.brand == 'Boil'
+        Kettle.createCriteria().list { order 'litres'; maxResults 2; firstResult 1 }*.litres == [2, 3]
+    }
+
+    @Rollback
+    void "test calls of the same closure only render the criteria once"() {
+        given:
+        createKettles()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<List<Kettle>> results = ['Acme', 'Boil', 'None'].collect { String brand ->
+            Kettle.withCriteria { eq 'brand', brand; order 'litres' }
+        }
+
+        then:
+        results.collect { it*.litres } == [[1, 2], [3, 4], []]
+        cache.missCount == 1
+        cache.hitCount == 2
+    }
+
+    @Rollback
+    void "test a closure with criteria that depend on the values is cached per shape"() {
+        given:
+        createKettles()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<List<Kettle>> results = [['red'], null, ['white'], []].collect { List<String> colors ->
+            Kettle.withCriteria {
+                if (colors) {
+                    'in'('color', colors)
+                }
+                else {
+                    isNull 'color'
+                }
+            }
+        }
+
+        then:
+        results.collect { it*.litres } == [[1], [4], [3], [4]]
+        cache.missCount == 2
+        cache.hitCount == 2
+    }
+
+    @Rollback
+    void "test a closure rendered before only records its criteria"() {
+        given:
+        createKettles()
+        String brand = 'Acme'
+        Closure byBrand = { eq 'brand', brand; order 'litres' }
+        Kettle.withCriteria(byBrand)
+
+        when:
+        brand = 'Boil'
+        HibernateCriteriaBuilder builder = (HibernateCriteriaBuilder) Kettle.createCriteria()
+        List<Kettle> results = builder.list(byBrand)
+        CriteriaImpl criteria = (CriteriaImpl) builder.instance
+
+        then:
+        results*.litres == [3, 4]
+        !criteria.iterateExpressionEntries().hasNext()
+        !criteria.iterateOrderings().hasNext()
+    }
+
+    @Rollback
+    void "test closures with criteria of the same shape share the template"() {
+        given:
+        createKettles()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<Kettle> acme = Kettle.withCriteria { eq 'brand', 'Acme'; order 'litres' }
+        List<Kettle> boil = Kettle.withCriteria { eq 'brand', 'Boil'; order 'litres' }
+
+        then:
+        acme*.litres == [1, 2]
+        boil*.litres == [3, 4]
+        cache.missCount == 1
+        cache.hitCount == 1
+    }
+
+    @Rollback
+    void "test a closure rendered before runs again as criteria when it cannot be rendered"() {
+        given:
+        createKettles()
+        boolean sql = false
+        Closure criteria = {
+            if (sql) {
+                sqlRestriction 'litres > 2'
+            }
+            else {
+                eq 'brand', 'Acme'
+            }
+            order 'litres'
+        }
+
+        when:
+        List<Kettle> rendered = Kettle.withCriteria(criteria)
+        sql = true
+        List<Kettle> executed = Kettle.withCriteria(criteria)
+
+        then:
+        rendered*.litres == [1, 2]
+        executed*.litres == [3, 4]
+    }
+
+    @Rollback
+    void "test closures that cannot be rendered are executed as criteria"() {
+        given:
+        createKettles()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<Kettle> inStore = Kettle.withCriteria { store { eq 'name', 'Main' }; order 'litres' }
+        List<Kettle> sql = Kettle.withCriteria { sqlRestriction 'litres > 2'; order 'litres' }
+        List<Kettle> joined = Kettle.withCriteria { join 'store'; eq 'brand', 'Acme'; order 'litres' }
+        List<Kettle> ignoringCase = Kettle.withCriteria { eq 'brand', 'acme', [ignoreCase: true] }
+
+        then:
+        inStore*.litres == [1, 2]
+        sql*.litres == [3, 4]
+        joined*.litres == [1, 2]
+        ignoringCase.size() == 2
+        cache.missCount == 0
+        cache.hitCount == 0
+    }
+
+    private void createKettles() {
+        KettleStore store = new KettleStore(name: 'Main').save()
+        new Kettle(brand: 'Acme', litres: 1, color: 'red', store: store).save()
+        new Kettle(brand: 'Acme', litres: 2, color: 'black', store: store).save()
+        new Kettle(brand: 'Boil', litres: 3, color: 'white').save()
+        new Kettle(brand: 'Boil', litres: 4).save(flush: true)
+    }
+}
+
+@Entity
+class Kettle {
+    String brand
+    Integer litres
+    String color
+    KettleStore store
+
+    static constraints = {
+        color nullable: true
+        store nullable: true
+    }
+}
+
+@Entity
+class KettleStore {
+    String name
+}
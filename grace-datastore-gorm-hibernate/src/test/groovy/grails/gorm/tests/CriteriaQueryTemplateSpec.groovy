@@ -0,0 +1,173 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.datastore.mapping.query.Projections
+import org.grails.datastore.mapping.query.Query
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.HqlQueryRenderer
+import org.grails.orm.hibernate.query.QueryTemplateCache
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class CriteriaQueryTemplateSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:criteriaQueryTemplateDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Lantern, LanternShop)
+
+    void setup() {
+        datastore.queryTemplateCache.clear()
+    }
+
+    void "test the criteria of a query are rendered as parameterized HQL"() {
+        given:
+        def entity = datastore.mappingContext.getPersistentEntity(Lantern.name)
+        List<Query.Criterion> criteria = [
+                new Query.Equals('color', 'red'),
+                new Query.Disjunction().add(new Query.GreaterThan('wattage', 2)).add(new Query.IsNull('maker')),
+                new Query.In('maker', ['Acme', 'Lumen'])
+        ]
+        HqlQueryRenderer renderer = new HqlQueryRenderer(entity, criteria, [], [new Query.Order('wattage', Query.Order.Direction.DESC)])
+
+        when:
+        String shape = renderer.prepare()
+
+        then:
+        shape != null
+        renderer.parameters == ['red', 2, ['Acme', 'Lumen']]
+        renderer.render() == "select root_ from ${Lantern.name} as root_ where root_.color = :p0 and (root_.wattage > :p1 or root_.maker is null) " +
+                "and root_.maker in (:p2) order by root_.wattage desc"
+    }
+
+    void "test association and subquery criteria are not rendered"() {
+        given:
+        def entity = datastore.mappingContext.getPersistentEntity(Lantern.name)
+
+        expect:
+        new HqlQueryRenderer(entity, [new Query.Equals('shop.name', 'Main')], [], []).prepare() == null
+        new HqlQueryRenderer(entity, [new Query.RLike('color', 'r.*')], [], []).prepare() == null
+        new HqlQueryRenderer(entity, [new Query.Equals('color', 'red')], [], []).prepare() != null
+    }
+
+    void "test comparisons with null are rendered as null checks"() {
+        given:
+        def entity = datastore.mappingContext.getPersistentEntity(Lantern.name)
+        HqlQueryRenderer renderer = new HqlQueryRenderer(entity, [new Query.Equals('maker', null), new Query.NotEquals('color', null)], [], [])
+
+        when:
+        renderer.prepare()
+
+        then:
+        renderer.parameters == []
+        renderer.render() == "select root_ from ${Lantern.name} as root_ where root_.maker is null and root_.color is not null"
+    }
+
+    void "test association projections are not rendered"() {
+        given:
+        def entity = datastore.mappingContext.getPersistentEntity(Lantern.name)
+
+        expect:
+        new HqlQueryRenderer(entity, [], [Projections.property('shop')], []).prepare() == null
+        new HqlQueryRenderer(entity, [], [Projections.property('color')], []).prepare() != null
+    }
+
+    @Rollback
+    void "test queries with null values and association projections return the same results as criteria"() {
+        given:
+        createLanterns()
+
+        expect:
+        Lantern.where { maker == null }.list()*.wattage == [4]
+        Lantern.where { maker != null }.list(sort: 'wattage')*.wattage == [1, 2, 3]
+        Lantern.where { wattage > 0 }.property('shop').list().size() == 4
+    }
+
+    @Rollback
+    void "test dynamic finders and where queries return the same results as criteria"() {
+        given:
+        createLanterns()
+
+        expect:
+        Lantern.findAllByColor('red', [sort: 'wattage'])*.wattage == [1, 3]
+        Lantern.findAllByColorOrWattageGreaterThan('blue', 2, [sort: 'wattage'])*.wattage == [2, 3, 4]
+        Lantern.findAllByWattageBetween(2, 3, [sort: 'wattage', order: 'desc'])*.wattage == [3, 2]
+        Lantern.findAllByMakerIsNull()*.wattage == [4]
+        Lantern.findAllByColorIlike('RE%', [sort: 'wattage', max: 1, offset: 1])*.wattage == [3]
+        Lantern.findAllByMakerInList(['Acme'], [sort: 'wattage'])*.wattage == [1, 2]
+        Lantern.findByWattage(3).color == 'red'
+        Lantern.countByColor('red') == 2
+
+        Lantern.where { color == 'red' || maker == null }.list(sort: 'wattage')*.wattage ==
+                Lantern.withCriteria { or { eq 'color', 'red'; isNull 'maker' }; order 'wattage' }*.wattage
+        Lantern.where { !(color == 'red') }.list(sort: 'wattage')*.wattage == [2, 4]
+        Lantern.where { wattage > 1 }.count() == 3
+        Lantern.where { color == 'red' }.projections { max 'wattage' }.get() == 3
+        Lantern.where { wattage >= 2 }.property('color').list(sort: 'wattage') == ['blue', 'red', 'green']
+    }
+
+    @Rollback
+    void "test queries of the same shape reuse the rendered HQL"() {
+        given:
+        createLanterns()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        Lantern.findAllByColorAndWattage('red', 1)
+        Lantern.findAllByColorAndWattage('blue', 2)
+        Lantern.findAllByColorAndWattage('green', 4)
+
+        then:
+        cache.missCount == 1
+        cache.hitCount == 2
+    }
+
+    @Rollback
+    void "test queries that cannot be rendered use criteria"() {
+        given:
+        createLanterns()
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<Lantern> lanterns = Lantern.where { shop.name == 'Main' }.list(sort: 'wattage')
+        List<Lantern> joined = Lantern.findAllByColor('red', [fetch: [shop: 'join'], sort: 'wattage'])
+
+        then:
+        lanterns*.wattage == [1, 2]
+        joined*.wattage == [1, 3]
+        cache.missCount == 0
+        cache.hitCount == 0
+    }
+
+    private void createLanterns() {
+        LanternShop shop = new LanternShop(name: 'Main').save()
+        new Lantern(color: 'red', wattage: 1, maker: 'Acme', shop: shop).save()
+        new Lantern(color: 'blue', wattage: 2, maker: 'Acme', shop: shop).save()
+        new Lantern(color: 'red', wattage: 3, maker: 'Lumen').save()
+        new Lantern(color: 'green', wattage: 4).save(flush: true)
+    }
+}
+
+@Entity
+class Lantern {
+    String color
+    Integer wattage
+    String maker
+    LanternShop shop
+
+    static constraints = {
+        maker nullable: true
+        shop nullable: true
+    }
+}
+
+@Entity
+class LanternShop {
+    String name
+}
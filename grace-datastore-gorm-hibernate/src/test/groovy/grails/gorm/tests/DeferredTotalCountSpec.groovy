@@ -0,0 +1,174 @@
+package grails.gorm.tests
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+import grails.gorm.PagedResultList
+import grails.gorm.annotation.Entity
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.TotalCountCache
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class DeferredTotalCountSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:deferredCountDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.pagination.asyncCount': true,
+            'hibernate.pagination.countCacheTtl': 60000
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Receipt)
+    @Shared PersistentEntity entity
+
+    void setupSpec() {
+        entity = datastore.mappingContext.getPersistentEntity(Receipt.name)
+        // the count runs on a separate connection, so the data has to be committed
+        Receipt.withTransaction {
+            for (i in 1..15) {
+                new Receipt(amount: i).save()
+            }
+        }
+    }
+
+    void setup() {
+        datastore.totalCountCache.clear()
+    }
+
+    void "test the total count is obtained on a separate session"() {
+        when:
+        PagedResultList<Receipt> page = Receipt.withTransaction {
+            (PagedResultList<Receipt>) Receipt.list(max: 4, sort: 'amount')
+        }
+
+        then:
+        datastore.asyncCount
+        page*.amount == [1, 2, 3, 4]
+        page.totalCount == 15
+        datastore.totalCountCache.get(entity, TotalCountCache.createKey('list', '', [])) == 15
+    }
+
+    void "test a cached total count is invalidated by an insert"() {
+        given:
+        datastore.totalCountCache.put(entity, TotalCountCache.createKey('list', '', []), 42)
+
+        when:
+        int cachedTotal = Receipt.withTransaction {
+            ((PagedResultList<Receipt>) Receipt.list(max: 4)).totalCount
+        }
+
+        then:
+        cachedTotal == 42
+
+        when:
+        Receipt.withTransaction {
+            new Receipt(amount: 100).save(flush: true)
+        }
+        int total = Receipt.withTransaction {
+            ((PagedResultList<Receipt>) Receipt.list(max: 4)).totalCount
+        }
+
+        then:
+        total == 16
+
+        cleanup:
+        Receipt.withTransaction {
+            Receipt.findByAmount(100)?.delete(flush: true)
+        }
+    }
+
+    void "test the total count of criteria queries is cached by restriction"() {
+        when:
+        PagedResultList<Receipt> page = Receipt.withTransaction {
+            (PagedResultList<Receipt>) Receipt.createCriteria().list(max: 2) {
+                gt('amount', 10)
+            }
+        }
+
+        then:
+        page.size() == 2
+        page.totalCount == 5
+
+        when:
+        page = Receipt.withTransaction {
+            (PagedResultList<Receipt>) Receipt.createCriteria().list(max: 2) {
+                gt('amount', 12)
+            }
+        }
+
+        then:
+        page.totalCount == 3
+    }
+
+    void "test the total count of criteria queries with subqueries is not shared"() {
+        when:
+        PagedResultList<Receipt> page = Receipt.withTransaction {
+            (PagedResultList<Receipt>) Receipt.createCriteria().list(max: 2) {
+                'in'('amount', Receipt.where { amount > 10 }.property('amount'))
+            }
+        }
+
+        then:
+        page.totalCount == 5
+
+        when:
+        page = Receipt.withTransaction {
+            (PagedResultList<Receipt>) Receipt.createCriteria().list(max: 2) {
+                'in'('amount', Receipt.where { amount > 12 }.property('amount'))
+            }
+        }
+
+        then:
+        page.totalCount == 3
+    }
+
+    void "test the total count of list is cached by every argument except those of the page"() {
+        when:
+        Receipt.withTransaction {
+            ((PagedResultList<Receipt>) Receipt.list(max: 4, offset: 4, sort: 'amount', readOnly: true)).totalCount
+        }
+
+        then:
+        datastore.totalCountCache.get(entity, TotalCountCache.createKey('list', 'readOnly', [true])) == 15
+        datastore.totalCountCache.get(entity, TotalCountCache.createKey('list', '', [])) == null
+    }
+
+    void "test the count executor is bounded and runs further counts on the calling thread"() {
+        given:
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) datastore.countExecutor
+        CountDownLatch started = new CountDownLatch(datastore.countPoolSize)
+        CountDownLatch release = new CountDownLatch(1)
+        datastore.countPoolSize.times {
+            executor.execute {
+                started.countDown()
+                release.await()
+            }
+        }
+        started.await(10, TimeUnit.SECONDS)
+
+        when:
+        Thread caller = Thread.currentThread()
+        Thread counter = executor.submit({ Thread.currentThread() } as Callable<Thread>).get()
+        List<Integer> totals = Receipt.withTransaction {
+            (1..3).collect { int i -> ((PagedResultList<Receipt>) Receipt.createCriteria().list(max: 2) { gt('amount', i) }).totalCount }
+        }
+
+        then:
+        executor.maximumPoolSize == 2
+        counter.is(caller)
+        totals == [14, 13, 12]
+
+        cleanup:
+        release.countDown()
+    }
+}
+
+@Entity
+class Receipt {
+    Integer amount
+}
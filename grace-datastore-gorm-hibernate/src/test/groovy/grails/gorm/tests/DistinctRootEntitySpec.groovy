@@ -0,0 +1,81 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils
+import org.hibernate.Criteria
+import org.hibernate.FetchMode
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class DistinctRootEntitySpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:distinctRootEntityDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Shelf, ShelfBook, ShelfLabel)
+
+    @Rollback
+    void "test a to-many join is only detected when a collection is fetched or joined"() {
+        given:
+        def shelf = datastore.mappingContext.getPersistentEntity(Shelf.name)
+        def label = datastore.mappingContext.getPersistentEntity(ShelfLabel.name)
+        Criteria plain = datastore.sessionFactory.currentSession.createCriteria(Shelf)
+        Criteria fetched = datastore.sessionFactory.currentSession.createCriteria(Shelf).setFetchMode('books', FetchMode.JOIN)
+        Criteria joined = datastore.sessionFactory.currentSession.createCriteria(Shelf)
+        joined.createCriteria('books')
+
+        expect:
+        !GrailsHibernateQueryUtils.isToManyJoinPresent(shelf, plain)
+        GrailsHibernateQueryUtils.isToManyJoinPresent(shelf, fetched)
+        GrailsHibernateQueryUtils.isToManyJoinPresent(shelf, joined)
+        GrailsHibernateQueryUtils.isToManyJoinPresent(label, datastore.sessionFactory.currentSession.createCriteria(ShelfLabel))
+        GrailsHibernateQueryUtils.isToManyPath(shelf, 'books')
+        !GrailsHibernateQueryUtils.isToManyPath(shelf, 'name')
+    }
+
+    @Rollback
+    void "test queries with and without collection joins return each root once"() {
+        given:
+        Shelf shelf = new Shelf(name: 'A')
+        shelf.addToBooks(title: 'One')
+        shelf.addToBooks(title: 'Two')
+        shelf.save()
+        new Shelf(name: 'B').save(flush: true)
+        datastore.currentSession.clear()
+
+        expect:
+        Shelf.list(sort: 'name')*.name == ['A', 'B']
+        Shelf.list(fetch: [books: 'join'], sort: 'name')*.name == ['A', 'B']
+        Shelf.withCriteria { books { like 'title', 'T%' } }*.name == ['A']
+        Shelf.withCriteria { fetchMode 'books', FetchMode.JOIN; order 'name' }.collect { it.books.size() } == [2, 0]
+        Shelf.findAllWhere(name: 'A').size() == 1
+    }
+}
+
+@Entity
+class Shelf {
+    String name
+    static hasMany = [books: ShelfBook]
+}
+
+@Entity
+class ShelfBook {
+    String title
+    static belongsTo = [shelf: Shelf]
+}
+
+@Entity
+class ShelfLabel {
+    String text
+    static hasMany = [tags: String]
+    static mapping = {
+        tags fetch: 'join'
+    }
+}
@@ -0,0 +1,86 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.cfg.AbstractGrailsDomainBinder
+import org.grails.orm.hibernate.cfg.EntityQueryDefaults
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class EntityQueryDefaultsSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:entityQueryDefaultsDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Candle, CandleBox)
+
+    void "test the query defaults are computed from the mapping"() {
+        when:
+        EntityQueryDefaults candle = AbstractGrailsDomainBinder.getQueryDefaults(Candle)
+        EntityQueryDefaults box = AbstractGrailsDomainBinder.getQueryDefaults(CandleBox)
+
+        then:
+        candle.mapping.is(AbstractGrailsDomainBinder.getMapping(Candle))
+        candle.sortOrders == [height: 'desc', scent: 'asc']
+        !candle.cacheable
+        box.sortOrders == [label: 'asc']
+        AbstractGrailsDomainBinder.getQueryDefaults(String) == null
+    }
+
+    void "test the query defaults are read concurrently"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(4)
+
+        when:
+        List<EntityQueryDefaults> defaults = executor.invokeAll((1..100).collect {
+            { -> AbstractGrailsDomainBinder.getQueryDefaults(Candle) } as Callable<EntityQueryDefaults>
+        })*.get()
+
+        then:
+        defaults.every { it.is(AbstractGrailsDomainBinder.getQueryDefaults(Candle)) }
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    @Rollback
+    void "test queries are sorted by the mapping"() {
+        given:
+        new Candle(height: 2, scent: 'b').save()
+        new Candle(height: 3, scent: 'a').save()
+        new Candle(height: 2, scent: 'a').save(flush: true)
+
+        expect:
+        Candle.list().collect { "$it.height$it.scent" } == ['3a', '2a', '2b']
+        Candle.findAllByHeightGreaterThan(0).collect { "$it.height$it.scent" } == ['3a', '2a', '2b']
+    }
+}
+
+@Entity
+class Candle {
+    Integer height
+    String scent
+
+    static mapping = {
+        sort height: 'desc', scent: 'asc'
+    }
+}
+
+@Entity
+class CandleBox {
+    String label
+
+    static mapping = {
+        sort 'label'
+    }
+}
@@ -0,0 +1,129 @@
+package grails.gorm.tests
+
+import java.nio.channels.Channels
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.exceptions.GrailsQueryException
+import org.hibernate.Session
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ExportSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:exportDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, ExportInvoice)
+
+    void setup() {
+        ExportInvoice.withTransaction {
+            new ExportInvoice(number: "A-1", customer: "Acme", total: 10).save()
+            new ExportInvoice(number: "A-2", customer: "Smith, Jones & \"Partners\"", total: 20).save()
+            new ExportInvoice(number: "A-3", customer: "Globex", total: 30).save(flush: true)
+        }
+    }
+
+    void cleanup() {
+        ExportInvoice.withTransaction {
+            ExportInvoice.executeUpdate("delete from ExportInvoice")
+        }
+    }
+
+    void "test instances are exported as CSV"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+        when:
+        long count = ExportInvoice.exportAll([columns: ['number', 'customer', 'total'], sort: 'number'], out)
+
+        then:
+        count == 3
+        out.toString("UTF-8").readLines() == [
+                'number,customer,total',
+                'A-1,Acme,10',
+                'A-2,"Smith, Jones & ""Partners""",20',
+                'A-3,Globex,30'
+        ]
+    }
+
+    void "test the default columns are the identity and simple properties"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+        when:
+        ExportInvoice.exportAll([sort: 'number', max: 1], out)
+
+        then:
+        out.toString("UTF-8").readLines()[0].split(',').toList().containsAll(['id', 'number', 'customer', 'total'])
+        out.toString("UTF-8").readLines().size() == 2
+    }
+
+    void "test projections of a criteria query are exported as JSON Lines to a channel"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+        when:
+        long count = ExportInvoice.exportAll([format: 'jsonl', columns: ['number', 'total'], sort: 'number'], Channels.newChannel(out)) {
+            gt 'total', 15
+            projections {
+                property 'number'
+                property 'total'
+            }
+        }
+
+        then:
+        count == 2
+        out.toString("UTF-8").readLines() == [
+                '{"number":"A-2","total":20}',
+                '{"number":"A-3","total":30}'
+        ]
+    }
+
+    void "test HQL scalar projections are named after their aliases"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+        when:
+        long count = ExportInvoice.exportAll("select i.number as number, i.customer as customer from ExportInvoice i where i.total < :limit order by i.number",
+                [limit: 25], [format: 'jsonl'], out)
+
+        then:
+        count == 2
+        out.toString("UTF-8").readLines() == [
+                '{"number":"A-1","customer":"Acme"}',
+                '{"number":"A-2","customer":"Smith, Jones & \\"Partners\\""}'
+        ]
+    }
+
+    void "test exported instances are released from an open session"() {
+        when:
+        Map result = ExportInvoice.withTransaction {
+            long count = ExportInvoice.exportAll([fetchSize: 2], new ByteArrayOutputStream())
+            ExportInvoice.withSession { Session session -> [count: count, contained: session.statistics.entityCount] }
+        }
+
+        then:
+        result.count == 3
+        result.contained == 0
+    }
+
+    void "test an unknown format is rejected"() {
+        when:
+        ExportInvoice.exportAll([format: 'xml'], new ByteArrayOutputStream())
+
+        then:
+        thrown(GrailsQueryException)
+    }
+}
+
+@Entity
+class ExportInvoice implements HibernateEntity<ExportInvoice> {
+    String number
+    String customer
+    Integer total
+}
@@ -0,0 +1,111 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.QueryTemplateCache
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class FindWhereTemplateSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:findWhereTemplateDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.queryTemplates.maxPerEntity': 3
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Pet, PetOwner)
+
+    void setup() {
+        datastore.queryTemplateCache.clear()
+    }
+
+    @Rollback
+    void "test findWhere and findAllWhere match values and nulls"() {
+        given:
+        PetOwner owner = new PetOwner(name: "Ann").save()
+        new Pet(name: "Rex", species: "dog", age: 3, owner: owner).save()
+        new Pet(name: "Tom", species: "cat", age: 5, owner: owner).save()
+        new Pet(name: "Fido", species: "dog", age: 7).save(flush: true)
+
+        expect:
+        Pet.findWhere(name: "Rex", species: "dog").age == 3
+        Pet.findWhere(name: "Rex", species: "cat") == null
+        Pet.findAllWhere(species: "dog", owner: null)*.name == ["Fido"]
+        Pet.findAllWhere(owner: owner, [sort: "name", order: "desc"])*.name == ["Tom", "Rex"]
+        Pet.findAllWhere(species: "dog", [sort: "age", max: 1, offset: 1])*.name == ["Fido"]
+        Pet.findAllWhere(age: "5")*.name == ["Tom"]
+        Pet.findWhere(species: "${'c'}at").name == "Tom"
+    }
+
+    @Rollback
+    void "test templates are cached by the shape of the query"() {
+        given:
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+        new Pet(name: "Rex", species: "dog", age: 3).save(flush: true)
+
+        when:
+        Pet.findAllWhere(name: "Rex", species: "dog")
+        Pet.findAllWhere(species: "cat", name: "Tom")
+        Pet.findAllWhere(species: "dog", name: null)
+
+        then:
+        cache.missCount == 2
+        cache.hitCount == 1
+        cache.size(datastore.mappingContext.getPersistentEntity(Pet.name)) == 2
+    }
+
+    @Rollback
+    void "test the number of templates per entity is capped"() {
+        given:
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+        def entity = datastore.mappingContext.getPersistentEntity(Pet.name)
+
+        when:
+        Pet.findAllWhere(name: "a")
+        Pet.findAllWhere(species: "a")
+        Pet.findAllWhere(age: 1)
+        Pet.findAllWhere(name: "a", species: "b")
+
+        then:
+        cache.missCount == 4
+        cache.size(entity) <= 3
+    }
+
+    @Rollback
+    void "test arguments that cannot be templated use criteria"() {
+        given:
+        PetOwner owner = new PetOwner(name: "Bob").save()
+        new Pet(name: "Rex", species: "dog", age: 3, owner: owner).save(flush: true)
+        QueryTemplateCache<String> cache = datastore.queryTemplateCache
+
+        when:
+        List<Pet> pets = Pet.findAllWhere([species: "dog"], [fetch: [owner: 'join']])
+
+        then:
+        pets*.name == ["Rex"]
+        cache.missCount == 0
+        cache.hitCount == 0
+    }
+}
+
+@Entity
+class Pet {
+    String name
+    String species
+    Integer age
+    PetOwner owner
+
+    static constraints = {
+        owner nullable: true
+    }
+}
+
+@Entity
+class PetOwner {
+    String name
+}
@@ -0,0 +1,92 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.stat.Statistics
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class GetAllSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:getAllDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.generate_statistics': 'true',
+            'hibernate.multiLoad.batchSize': 3
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, GetAllItem)
+
+    void "test getAll returns instances in the order of the ids"() {
+        given:
+        List<Long> ids = (1..10).collect { new GetAllItem(name: "Item $it").save(flush: true).id }
+        datastore.sessionFactory.currentSession.clear()
+
+        when:
+        List<GetAllItem> items = GetAllItem.getAll(ids.reverse())
+
+        then:
+        datastore.multiLoadBatchSize == 3
+        items.size() == 10
+        items*.id == ids.reverse()
+    }
+
+    void "test getAll returns null for missing ids and handles duplicates"() {
+        given:
+        Long id1 = new GetAllItem(name: "One").save(flush: true).id
+        Long id2 = new GetAllItem(name: "Two").save(flush: true).id
+        datastore.sessionFactory.currentSession.clear()
+
+        when:
+        List<GetAllItem> items = GetAllItem.getAll(id2, 999L, id1, id2)
+
+        then:
+        items.size() == 4
+        items[0].name == "Two"
+        items[1] == null
+        items[2].name == "One"
+        items[3].is(items[0])
+    }
+
+    void "test getAll resolves instances already in the session without querying"() {
+        given:
+        List<Long> ids = (1..4).collect { new GetAllItem(name: "Item $it").save(flush: true).id }
+        Statistics statistics = datastore.sessionFactory.statistics
+        statistics.clear()
+
+        when:
+        List<GetAllItem> items = GetAllItem.getAll(ids)
+
+        then:
+        items*.id == ids
+        statistics.prepareStatementCount == 0
+    }
+
+    void "test getAll queries the database in batches"() {
+        given:
+        List<Long> ids = (1..7).collect { new GetAllItem(name: "Item $it").save(flush: true).id }
+        datastore.sessionFactory.currentSession.clear()
+        Statistics statistics = datastore.sessionFactory.statistics
+        statistics.clear()
+
+        when:
+        List<GetAllItem> items = GetAllItem.getAll(ids)
+
+        then:
+        items*.id == ids
+        statistics.prepareStatementCount == 3
+    }
+
+    void "test getAll with no ids"() {
+        expect:
+        GetAllItem.getAll([]) == []
+    }
+}
+
+@Entity
+class GetAllItem {
+    String name
+}
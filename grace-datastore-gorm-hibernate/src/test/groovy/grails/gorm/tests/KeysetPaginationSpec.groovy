@@ -0,0 +1,134 @@
+package grails.gorm.tests
+
+import java.sql.Timestamp
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.exceptions.GrailsQueryException
+import org.grails.orm.hibernate.query.KeysetResultList
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class KeysetPaginationSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:keysetDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.generate_statistics': 'true'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Ticket, KeysetReading)
+
+    void setup() {
+        // duplicate priorities make sure the identifier is used as a tie breaker
+        for (i in 1..23) {
+            new Ticket(title: "Ticket ${i.toString().padLeft(2, '0')}", priority: i % 4).save()
+        }
+        datastore.sessionFactory.currentSession.flush()
+        datastore.sessionFactory.currentSession.clear()
+    }
+
+    void "test walk all pages with the cursor"() {
+        given:
+        List<Long> expected = Ticket.list().sort { Ticket a, Ticket b -> b.priority <=> a.priority ?: a.id <=> b.id }*.id
+
+        when:
+        List<Long> seen = []
+        int pages = 0
+        KeysetResultList<Ticket> page = (KeysetResultList<Ticket>) Ticket.list(max: 5, sort: 'priority', order: 'desc', after: null)
+        while (true) {
+            pages++
+            seen.addAll(page*.id)
+            if (!page.hasNext()) break
+            page = (KeysetResultList<Ticket>) Ticket.list(max: 5, sort: 'priority', order: 'desc', after: page.nextCursor)
+        }
+
+        then:
+        pages == 5
+        seen == expected
+    }
+
+    void "test pass the sort values of the last row"() {
+        given:
+        Ticket last = Ticket.findByTitle('Ticket 05')
+
+        when:
+        List<Ticket> page = Ticket.list(max: 3, sort: 'title', after: [last.title, last.id])
+
+        then:
+        page*.title == ['Ticket 06', 'Ticket 07', 'Ticket 08']
+    }
+
+    void "test the sort values are bound as parameters"() {
+        given:
+        new Ticket(title: "Ticket 05' or 'x' = 'x", priority: 1).save(flush: true)
+        datastore.sessionFactory.statistics.clear()
+        Ticket last = Ticket.findByTitle("Ticket 05' or 'x' = 'x")
+
+        when:
+        List<Ticket> page = Ticket.list(max: 2, sort: 'title', after: [last.title, last.id])
+
+        then:
+        page*.title == ['Ticket 06', 'Ticket 07']
+        datastore.sessionFactory.statistics.queries.every { String query -> !query.contains("or 'x'") }
+    }
+
+    void "test walk rows whose timestamps share a millisecond with the cursor"() {
+        given:
+        long millis = System.currentTimeMillis()
+        List<Long> expected = (1..4).collect { int i ->
+            Timestamp takenAt = new Timestamp(millis)
+            takenAt.setNanos(takenAt.nanos + i * 1000)
+            new KeysetReading(takenAt: takenAt, level: i).save(flush: true).id
+        }
+        datastore.sessionFactory.currentSession.clear()
+
+        when:
+        List<Long> seen = []
+        KeysetResultList<KeysetReading> page = (KeysetResultList<KeysetReading>) KeysetReading.list(max: 1, sort: 'takenAt', order: 'desc', after: null)
+        while (true) {
+            seen.addAll(page*.id)
+            if (!page.hasNext()) break
+            page = (KeysetResultList<KeysetReading>) KeysetReading.list(max: 1, sort: 'takenAt', order: 'desc', after: page.nextCursor)
+        }
+
+        then:
+        seen == expected.reverse()
+    }
+
+    void "test the last page has no cursor"() {
+        when:
+        KeysetResultList<Ticket> page = (KeysetResultList<Ticket>) Ticket.list(max: 50, sort: 'title', after: '')
+
+        then:
+        page.size() == 23
+        !page.hasNext()
+        page.nextCursor == null
+    }
+
+    void "test a cursor cannot be used with a different sort order"() {
+        given:
+        KeysetResultList<Ticket> page = (KeysetResultList<Ticket>) Ticket.list(max: 5, sort: 'title', after: null)
+
+        when:
+        Ticket.list(max: 5, sort: 'priority', after: page.nextCursor)
+
+        then:
+        thrown(GrailsQueryException)
+    }
+}
+
+@Entity
+class Ticket {
+    String title
+    Integer priority
+}
+
+@Entity
+class KeysetReading {
+    Date takenAt
+    Integer level
+}
@@ -0,0 +1,101 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.dialect.H2Dialect
+import org.hibernate.engine.spi.SessionImplementor
+import org.springframework.jdbc.datasource.ConnectionHolder
+import org.springframework.jdbc.datasource.ConnectionProxy
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.sql.Connection
+
+class LazyConnectionSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:lazyConnectionDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.transaction.lazyConnection': true
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Lamp)
+
+    void "test a read-only transaction obtains its connection on the first statement"() {
+        when:
+        Map result = Lamp.withNewTransaction(readOnly: true) {
+            Connection connection = currentConnection()
+            boolean obtainedAtBegin = isObtained(connection)
+            Lamp.count()
+            [obtainedAtBegin: obtainedAtBegin, obtained: isObtained(connection), readOnly: ((ConnectionProxy) connection).targetConnection.readOnly]
+        }
+
+        then:
+        !result.obtainedAtBegin
+        result.obtained
+        result.readOnly
+    }
+
+    void "test a transaction that executes no statements never obtains a connection"() {
+        when:
+        boolean obtained = Lamp.withNewTransaction {
+            isObtained(currentConnection())
+        }
+
+        then:
+        !obtained
+    }
+
+    void "test the isolation level is applied when the connection is obtained"() {
+        when:
+        int isolation = Lamp.withNewTransaction(isolationLevel: TransactionDefinition.ISOLATION_SERIALIZABLE) {
+            new Lamp(watts: 40).save(flush: true)
+            ((ConnectionProxy) currentConnection()).targetConnection.transactionIsolation
+        }
+
+        then:
+        isolation == Connection.TRANSACTION_SERIALIZABLE
+        Lamp.withNewTransaction { Lamp.count() } == 1
+    }
+
+    void "test a new session does not use the connection of the current transaction"() {
+        given:
+        def transactionDataSource = datastore.transactionManager.dataSource
+
+        when:
+        Map result = Lamp.withNewTransaction {
+            new Lamp(watts: 60).save(flush: true)
+            Object bound = TransactionSynchronizationManager.getResource(transactionDataSource)
+            Object boundInNewSession = Lamp.withNewSession {
+                TransactionSynchronizationManager.getResource(transactionDataSource)
+            }
+            [bound: bound, boundInNewSession: boundInNewSession, restored: TransactionSynchronizationManager.getResource(transactionDataSource)]
+        }
+
+        then:
+        result.bound instanceof ConnectionHolder
+        result.boundInNewSession == null
+        result.restored.is(result.bound)
+
+        cleanup:
+        Lamp.withNewTransaction { Lamp.executeUpdate("delete from Lamp") }
+    }
+
+    private Connection currentConnection() {
+        ((SessionImplementor) datastore.sessionFactory.currentSession).connection()
+    }
+
+    private static boolean isObtained(Connection connection) {
+        // the lazy connection proxy describes its target connection once it has been obtained
+        !connection.toString().contains('target DataSource')
+    }
+}
+
+@Entity
+class Lamp {
+    Integer watts
+}
@@ -0,0 +1,67 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.LazySessionHolder
+import org.hibernate.FlushMode
+import org.hibernate.Session
+import org.hibernate.dialect.H2Dialect
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class LazySessionHolderSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:lazySessionHolderDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.osiv.lazy': true
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, LazyLantern)
+
+    void "test the lazy setting is read from the configuration"() {
+        expect:
+        datastore.osivLazy
+    }
+
+    void "test the session is opened on first use"() {
+        given:
+        int opened = 0
+        LazySessionHolder holder = new LazySessionHolder({ ->
+            opened++
+            datastore.openSession()
+        })
+        TransactionSynchronizationManager.bindResource(datastore.sessionFactory, holder)
+
+        when:
+        holder.setFlushMode(FlushMode.MANUAL)
+
+        then:
+        !holder.sessionOpened
+        opened == 0
+
+        when:
+        Session session = datastore.sessionFactory.currentSession
+        LazyLantern.count()
+
+        then:
+        holder.sessionOpened
+        opened == 1
+        session.is(holder.session)
+        session.hibernateFlushMode == FlushMode.MANUAL
+
+        cleanup:
+        TransactionSynchronizationManager.unbindResource(datastore.sessionFactory)
+        if (holder.sessionOpened) {
+            holder.session.close()
+        }
+    }
+}
+
+@Entity
+class LazyLantern {
+    String colour
+}
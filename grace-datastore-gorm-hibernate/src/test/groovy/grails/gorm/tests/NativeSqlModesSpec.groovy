@@ -0,0 +1,102 @@
+package grails.gorm.tests
+
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.exceptions.GrailsQueryException
+import org.grails.orm.hibernate.query.GStringQueryTranslator
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class NativeSqlModesSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:nativeSqlModesDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Crate)
+
+    void setup() {
+        new Crate(label: "apples", weight: 10).save()
+        new Crate(label: "pears", weight: 20).save()
+        new Crate(label: "plums", weight: 30).save(flush: true)
+    }
+
+    void "test scalar rows are returned without registering the entity"() {
+        when:
+        List labels = Crate.findAllWithSql("select label from crate order by label", [resultType: 'scalar'])
+        List rows = Crate.findAllWithSql("select label, weight from crate order by label", [resultType: 'scalar', max: 2])
+
+        then:
+        labels == ["apples", "pears", "plums"]
+        rows.size() == 2
+        rows[0] instanceof Object[]
+        rows[0][0] == "apples"
+        rows[0][1] == 10
+    }
+
+    void "test rows are returned as maps in the order of the columns"() {
+        given:
+        int minimum = 15
+
+        when:
+        List<Map> rows = Crate.findAllWithSql("select label, weight from crate where weight > $minimum order by label", [resultType: 'map'])
+
+        then:
+        rows.size() == 2
+        rows[0].keySet()*.toLowerCase() == ["label", "weight"]
+        rows*.values()*.toList() == [["pears", 20], ["plums", 30]]
+    }
+
+    void "test the results of a SQL query are streamed"() {
+        when:
+        Stream<Crate> crates = Crate.findAllStreamWithSql("select * from crate order by label")
+        List<String> labels = crates.map { Crate crate -> crate.label }.collect(Collectors.toList())
+        crates.close()
+
+        and:
+        Stream weights = Crate.findAllStreamWithSql("select weight from crate order by weight", [resultType: 'scalar', fetchSize: 2])
+        List streamedWeights = weights.collect(Collectors.toList())
+        weights.close()
+
+        then:
+        labels == ["apples", "pears", "plums"]
+        streamedWeights == [10, 20, 30]
+    }
+
+    void "test the translation of a GString query is cached"() {
+        given:
+        GStringQueryTranslator.clear()
+
+        when:
+        List<Integer> counts = [5, 15, 25].collect { int minimum ->
+            Crate.findAllWithSql("select * from crate where weight > $minimum").size()
+        }
+
+        then:
+        counts == [3, 2, 1]
+        GStringQueryTranslator.missCount == 1
+        GStringQueryTranslator.hitCount == 2
+    }
+
+    void "test an unknown result type is rejected"() {
+        when:
+        Crate.findAllWithSql("select * from crate", [resultType: 'xml'])
+
+        then:
+        thrown(GrailsQueryException)
+    }
+}
+
+@Entity
+class Crate implements HibernateEntity<Crate> {
+    String label
+    Integer weight
+}
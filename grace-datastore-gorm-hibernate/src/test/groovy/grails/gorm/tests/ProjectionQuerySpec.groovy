@@ -0,0 +1,87 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.exceptions.GrailsQueryException
+import org.hibernate.Session
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class ProjectionQuerySpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:projectionQueryDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Novel)
+
+    void setup() {
+        new Novel(title: "Dune", pages: 412, blurb: "Spice").save()
+        new Novel(title: "Emma", pages: 474, blurb: "Matchmaking").save()
+        new Novel(title: "Ulysses", pages: 730, blurb: "Dublin").save(flush: true)
+        currentSession.clear()
+    }
+
+    void "test find all as records"() {
+        when:
+        List<NovelSummary> summaries = Novel.findAll(NovelSummary, [sort: 'pages', order: 'desc']) {
+            gt 'pages', 450
+        }
+
+        then:
+        summaries == [new NovelSummary("Ulysses", 730), new NovelSummary("Emma", 474)]
+        currentSession.statistics.entityCount == 0
+    }
+
+    void "test find all as interfaces"() {
+        when:
+        List<NovelTitle> titles = Novel.findAll(NovelTitle, [sort: 'title', max: 2])
+
+        then:
+        titles*.title == ["Dune", "Emma"]
+        titles[0].id != null
+        titles[0].shout() == "DUNE"
+        titles[0].toString() == "NovelTitle[id=${titles[0].id}, title=Dune]"
+        currentSession.statistics.entityCount == 0
+    }
+
+    void "test projections must refer to properties of the entity"() {
+        when:
+        Novel.findAll(UnknownSummary) {
+            eq 'title', 'Dune'
+        }
+
+        then:
+        thrown(GrailsQueryException)
+    }
+
+    private Session getCurrentSession() {
+        datastore.sessionFactory.currentSession
+    }
+}
+
+record NovelSummary(String title, Integer pages) {}
+
+record UnknownSummary(String title, String author) {}
+
+interface NovelTitle {
+    Long getId()
+
+    String getTitle()
+
+    default String shout() {
+        title.toUpperCase()
+    }
+}
+
+@Entity
+class Novel implements HibernateEntity<Novel> {
+    String title
+    Integer pages
+    String blurb
+}
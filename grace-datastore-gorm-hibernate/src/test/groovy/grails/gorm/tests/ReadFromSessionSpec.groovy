@@ -0,0 +1,73 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.Session
+import org.hibernate.dialect.H2Dialect
+import org.hibernate.stat.Statistics
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ReadFromSessionSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:readFromSessionDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.generate_statistics': 'true'
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Pamphlet)
+
+    @Rollback
+    void "test read returns the instance already in the session without a query"() {
+        given:
+        Pamphlet pamphlet = new Pamphlet(title: "Intro").save(flush: true)
+        Statistics statistics = datastore.sessionFactory.statistics
+        statistics.clear()
+
+        when:
+        Pamphlet read = Pamphlet.read(pamphlet.id)
+
+        then:
+        read.is(pamphlet)
+        statistics.prepareStatementCount == 0
+    }
+
+    @Rollback
+    void "test read loads a read-only instance"() {
+        given:
+        Session session = datastore.sessionFactory.currentSession
+        Long id = new Pamphlet(title: "Guide").save(flush: true).id
+        session.clear()
+
+        when:
+        Pamphlet read = Pamphlet.read(id)
+
+        then:
+        read.title == "Guide"
+        session.isReadOnly(read)
+        !session.isDefaultReadOnly()
+
+        when:
+        read.title = "Changed"
+        session.flush()
+        session.clear()
+
+        then:
+        Pamphlet.get(id).title == "Guide"
+    }
+
+    @Rollback
+    void "test read of a non existent instance"() {
+        expect:
+        Pamphlet.read(1000) == null
+    }
+}
+
+@Entity
+class Pamphlet {
+    String title
+}
@@ -0,0 +1,109 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.connections.HibernateConnectionSource
+import org.grails.orm.hibernate.connections.ReplicaRoutingDataSource
+import org.hibernate.dialect.H2Dialect
+import org.springframework.transaction.TransactionStatus
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DriverManager
+
+class ReplicaRoutingSpec extends Specification {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicaRoutingReplicaDB;DB_CLOSE_DELAY=-1"
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:replicaRoutingDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.replicas.urls': ['jdbc:h2:tcp://localhost:1/mem:replicaRoutingUnreachableDB', REPLICA_URL]
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Gauge)
+
+    @Shared Connection replicaConnection
+
+    void setupSpec() {
+        // the replica has different data than the primary, to tell which database a query ran against
+        replicaConnection = DriverManager.getConnection(REPLICA_URL)
+        replicaConnection.createStatement().withCloseable {
+            it.execute('create table gauge (id bigint not null primary key, version bigint not null, reading integer)')
+            it.execute('insert into gauge (id, version, reading) values (100, 0, 7), (101, 0, 8)')
+        }
+        Gauge.withTransaction {
+            new Gauge(reading: 1).save(flush: true)
+        }
+    }
+
+    void cleanupSpec() {
+        replicaConnection?.close()
+    }
+
+    void "test read-only transactions are routed to a replica"() {
+        expect:
+        datastore.replicated
+        Gauge.withTransaction(readOnly: true) { Gauge.count() } == 2
+        Gauge.withTransaction { Gauge.count() } == 1
+    }
+
+    void "test withReadOnly reads from a replica unless it joins a read-write transaction"() {
+        expect:
+        Gauge.withReadOnly { Gauge.count() } == 2
+        datastore.withReadOnly { Gauge.count() } == 2
+        Gauge.withTransaction {
+            Gauge.withReadOnly { Gauge.count() }
+        } == 1
+    }
+
+    void "test withReadOnly of the datastore and of a domain class run the same transaction"() {
+        when:
+        List<Boolean> readOnly = [Gauge, datastore].collect { target ->
+            target.withReadOnly { status ->
+                status instanceof TransactionStatus && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            }
+        }
+        Gauge.withReadOnly { throw new IOException("failed") }
+
+        then:
+        readOnly == [true, true]
+        thrown(IOException)
+
+        when:
+        datastore.withReadOnly { throw new IOException("failed") }
+
+        then:
+        thrown(IOException)
+    }
+
+    void "test read outside of a transaction reads from a replica"() {
+        expect:
+        Gauge.read(100).reading == 7
+        Gauge.withTransaction { Gauge.get(100) } == null
+    }
+
+    void "test a replica that fails to provide a connection is skipped"() {
+        given:
+        ReplicaRoutingDataSource routingDataSource = ((HibernateConnectionSource) datastore.connectionSources.defaultConnectionSource).replicaRoutingDataSource
+
+        when:
+        List<Long> counts = (1..4).collect {
+            Gauge.withTransaction(readOnly: true) { Gauge.count() }
+        }
+
+        then:
+        counts == [2L, 2L, 2L, 2L]
+        routingDataSource.availableReplicaCount == 1
+    }
+}
+
+@Entity
+class Gauge implements HibernateEntity<Gauge> {
+    Integer reading
+}
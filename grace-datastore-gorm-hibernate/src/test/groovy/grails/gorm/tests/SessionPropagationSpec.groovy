@@ -0,0 +1,101 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import org.grails.orm.hibernate.DefaultSessionBindingContext
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.SessionPropagation
+import org.hibernate.Session
+import org.hibernate.dialect.H2Dialect
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class SessionPropagationSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:sessionPropagationDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, PropagationKettle)
+
+    @Shared @AutoCleanup('shutdown') ExecutorService executor = Executors.newSingleThreadExecutor()
+
+    void "test a task inherits the session of the thread that created it"() {
+        when:
+        Map result = datastore.withNewSession { Session session ->
+            Callable<Session> task = datastore.propagateSession({ -> datastore.sessionFactory.currentSession } as Callable<Session>, SessionPropagation.INHERIT)
+            [parent: session, child: executor.submit(task).get()]
+        }
+
+        then:
+        result.child.is(result.parent)
+        executor.submit({ -> TransactionSynchronizationManager.resourceMap.isEmpty() } as Callable<Boolean>).get()
+    }
+
+    void "test an isolated task uses its own session that is closed when it completes"() {
+        when:
+        Map result = datastore.withNewSession { Session session ->
+            Callable<Session> task = datastore.propagateSession({ ->
+                PropagationKettle.count()
+                datastore.sessionFactory.currentSession
+            } as Callable<Session>, SessionPropagation.ISOLATE)
+            [parent: session, child: executor.submit(task).get()]
+        }
+
+        then:
+        !result.child.is(result.parent)
+        !result.child.open
+        executor.submit({ -> TransactionSynchronizationManager.resourceMap.isEmpty() } as Callable<Boolean>).get()
+    }
+
+    void "test an isolated task that does not use its session never opens one"() {
+        given:
+        boolean opened = true
+        Callable<Boolean> task = datastore.propagateSession({ ->
+            opened = TransactionSynchronizationManager.getResource(datastore.sessionFactory).sessionOpened
+        } as Callable<Boolean>, SessionPropagation.ISOLATE)
+
+        when:
+        executor.submit(task).get()
+
+        then:
+        !opened
+    }
+
+    void "test a task cannot inherit the session of a thread with an active transaction"() {
+        when:
+        PropagationKettle.withTransaction {
+            datastore.propagateSession({ -> null } as Callable<Object>, SessionPropagation.INHERIT)
+        }
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    void "test tasks bind their session where the current session is looked up"() {
+        given:
+        Callable<Map> task = datastore.propagateSession({ ->
+            [bound: datastore.sessionBindingContext.getSessionHolder(datastore.sessionFactory).session,
+             current: datastore.sessionFactory.currentSession]
+        } as Callable<Map>, SessionPropagation.ISOLATE)
+
+        when:
+        Map sessions = executor.submit(task).get()
+
+        then:
+        datastore.sessionBindingContext instanceof DefaultSessionBindingContext
+        sessions.bound.is(sessions.current)
+    }
+}
+
+@Entity
+class PropagationKettle {
+    String name
+}
@@ -0,0 +1,108 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.StatelessSession
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class StatelessSessionSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:statelessSessionDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, LogEntry)
+
+    void cleanup() {
+        LogEntry.withTransaction {
+            LogEntry.executeUpdate("delete from LogEntry")
+        }
+    }
+
+    void "test insert with a stateless session in its own transaction"() {
+        when:
+        datastore.withStatelessSession { StatelessSession session ->
+            for (i in 1..10) {
+                session.insert(new LogEntry(message: "Entry $i"))
+            }
+        }
+
+        then:
+        LogEntry.withTransaction { LogEntry.count() } == 10
+    }
+
+    void "test the stateless session is rolled back when the closure fails"() {
+        when:
+        datastore.withStatelessSession { StatelessSession session ->
+            session.insert(new LogEntry(message: "Lost"))
+            throw new IllegalStateException("failed")
+        }
+
+        then:
+        thrown(IllegalStateException)
+        LogEntry.withTransaction { LogEntry.count() } == 0
+    }
+
+    void "test the stateless session joins the current transaction"() {
+        when:
+        List<String> messages = LogEntry.withTransaction { status ->
+            new LogEntry(message: "Pending").save()
+            List<String> result = LogEntry.withStatelessSession { StatelessSession session ->
+                session.insert(new LogEntry(message: "Stateless"))
+                session.createQuery("select e.message from LogEntry e order by e.message").list()
+            }
+            status.setRollbackOnly()
+            return result
+        }
+
+        then:
+        messages == ["Pending", "Stateless"]
+        LogEntry.withTransaction { LogEntry.count() } == 0
+    }
+
+    void "test queries return detached instances"() {
+        given:
+        LogEntry.withTransaction {
+            new LogEntry(message: "Detached").save(flush: true)
+        }
+
+        when:
+        Map result = LogEntry.withTransaction {
+            List<LogEntry> entries = LogEntry.withStatelessSession { StatelessSession session ->
+                session.createQuery("from LogEntry").list()
+            }
+            [entries: entries, attached: entries.any { datastore.sessionFactory.currentSession.contains(it) }]
+        }
+
+        then:
+        result.entries*.message == ["Detached"]
+        !result.attached
+    }
+
+    void "test GORM methods within the closure use the current session"() {
+        given:
+        LogEntry.withTransaction {
+            new LogEntry(message: "Stateful").save(flush: true)
+        }
+
+        when:
+        boolean attached = LogEntry.withTransaction {
+            List<LogEntry> entries = LogEntry.withStatelessSession { StatelessSession session ->
+                LogEntry.list()
+            }
+            entries.every { datastore.sessionFactory.currentSession.contains(it) }
+        }
+
+        then:
+        attached
+    }
+}
+
+@Entity
+class LogEntry implements HibernateEntity<LogEntry> {
+    String message
+}
@@ -0,0 +1,137 @@
+package grails.gorm.tests
+
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.Session
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class StreamQuerySpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:streamDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, StreamedEvent, StreamedVenue)
+
+    void setup() {
+        for (i in 1..25) {
+            new StreamedEvent(name: "Event ${i.toString().padLeft(2, '0')}").save()
+        }
+        currentSession.flush()
+        currentSession.clear()
+    }
+
+    void "test stream all instances in order"() {
+        when:
+        Stream<StreamedEvent> stream = StreamedEvent.stream(sort: 'name', order: 'desc')
+        List<String> names = stream.map { StreamedEvent e -> e.name }.collect(Collectors.toList())
+        stream.close()
+
+        then:
+        names.size() == 25
+        names.first() == 'Event 25'
+        names.last() == 'Event 01'
+    }
+
+    void "test streamed instances are evicted from the session"() {
+        when:
+        int inSession = 0
+        Stream<StreamedEvent> stream = StreamedEvent.stream(sort: 'name', fetchSize: 5, evictEvery: 5)
+        stream.forEach { StreamedEvent e ->
+            inSession = Math.max(inSession, currentSession.statistics.entityCount)
+        }
+        stream.close()
+
+        then:
+        inSession <= 5
+        currentSession.statistics.entityCount == 0
+    }
+
+    void "test associated instances loaded while streaming are evicted and earlier instances are kept"() {
+        given:
+        List<StreamedVenue> venues = (1..5).collect { new StreamedVenue(name: "Venue $it").save() }
+        StreamedEvent.list().eachWithIndex { StreamedEvent e, int i -> e.venue = venues[i % 5] }
+        currentSession.flush()
+        currentSession.clear()
+        StreamedVenue kept = StreamedVenue.findByName('Venue 1')
+
+        when:
+        int inSession = 0
+        Stream<StreamedEvent> stream = StreamedEvent.stream(sort: 'name', fetchSize: 5, evictEvery: 5)
+        List<String> venueNames = stream.map { StreamedEvent e ->
+            inSession = Math.max(inSession, currentSession.statistics.entityCount)
+            e.venue.name
+        }.collect(Collectors.toList())
+        stream.close()
+
+        then:
+        venueNames.size() == 25
+        // 5 events, the venues they reference and the venue loaded before
+        inSession <= 11
+        currentSession.statistics.entityCount == 1
+        currentSession.contains(kept)
+    }
+
+    void "test the session is cleared when clearSession is set"() {
+        when:
+        int inSession = 0
+        Stream<StreamedEvent> stream = StreamedEvent.stream(sort: 'name', evictEvery: 10, clearSession: true)
+        long count = stream.peek { StreamedEvent e ->
+            inSession = Math.max(inSession, currentSession.statistics.entityCount)
+        }.count()
+        stream.close()
+
+        then:
+        count == 25
+        inSession <= 10
+    }
+
+    void "test stream the results of a HQL query"() {
+        when:
+        String pattern = 'Event 1%'
+        Stream<StreamedEvent> stream = StreamedEvent.findAllStream("from StreamedEvent e where e.name like $pattern order by e.name")
+        List<String> names = stream.map { StreamedEvent e -> e.name }.collect(Collectors.toList())
+        stream.close()
+
+        then:
+        names == (10..19).collect { "Event $it".toString() }
+    }
+
+    void "test stream with named parameters and max"() {
+        when:
+        Stream<StreamedEvent> stream = StreamedEvent.findAllStream("from StreamedEvent e where e.name like :name order by e.name", [name: 'Event 2%'], [max: 3])
+        List<String> names = stream.map { StreamedEvent e -> e.name }.collect(Collectors.toList())
+        stream.close()
+
+        then:
+        names == ['Event 20', 'Event 21', 'Event 22']
+    }
+
+    private Session getCurrentSession() {
+        datastore.sessionFactory.currentSession
+    }
+}
+
+@Entity
+class StreamedEvent implements HibernateEntity<StreamedEvent> {
+    String name
+    StreamedVenue venue
+
+    static constraints = {
+        venue nullable: true
+    }
+}
+
+@Entity
+class StreamedVenue {
+    String name
+}
@@ -0,0 +1,132 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import grails.orm.HibernateCriteriaBuilder
+import groovy.transform.CompileStatic
+import jakarta.persistence.criteria.JoinType
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.Criteria
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class TypedCriteriaBuilderSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:typedCriteriaBuilderDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Teapot, TeapotShop)
+
+    @Rollback
+    void "test the typed methods build the same criteria as the dynamic ones"() {
+        when:
+        Criteria dynamic = ((HibernateCriteriaBuilder) Teapot.createCriteria()).buildCriteria {
+            eq 'maker', 'Acme'
+            shop {
+                eq 'name', 'Main'
+            }
+            projections {
+                property 'cups'
+            }
+            maxResults 5
+        }
+        Criteria typed = TypedTeapotQueries.byMakerAndShop((HibernateCriteriaBuilder) Teapot.createCriteria(), 'Acme', 'Main')
+
+        then:
+        typed.toString() == dynamic.toString()
+    }
+
+    @Rollback
+    void "test statically compiled criteria closures are executed"() {
+        given:
+        TeapotShop shop = new TeapotShop(name: 'Main').save()
+        new Teapot(maker: 'Acme', cups: 2, shop: shop).save()
+        new Teapot(maker: 'Acme', cups: 4, shop: shop).save()
+        new Teapot(maker: 'Brew', cups: 6).save(flush: true)
+
+        expect:
+        TypedTeapotQueries.cupsInShop((HibernateCriteriaBuilder) Teapot.createCriteria(), 'Main') == [4, 2]
+        TypedTeapotQueries.countByMaker((HibernateCriteriaBuilder) Teapot.createCriteria(), 'Acme') == 2
+        TypedTeapotQueries.withoutShop((HibernateCriteriaBuilder) Teapot.createCriteria())*.cups == [6]
+    }
+
+    @Rollback
+    void "test navigating a property that is not an association fails"() {
+        when:
+        ((HibernateCriteriaBuilder) Teapot.createCriteria()).list {
+            association('maker') {
+                eq 'name', 'Acme'
+            }
+        }
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
+
+@CompileStatic
+class TypedTeapotQueries {
+
+    static Criteria byMakerAndShop(HibernateCriteriaBuilder builder, String maker, String shopName) {
+        builder.buildCriteria {
+            eq 'maker', maker
+            association('shop') {
+                eq 'name', shopName
+            }
+            projections {
+                property 'cups'
+            }
+            maxResults 5
+        }
+    }
+
+    static List<Integer> cupsInShop(HibernateCriteriaBuilder builder, String shopName) {
+        (List<Integer>) builder.list {
+            association('shop', JoinType.INNER) {
+                eq 'name', shopName
+            }
+            projections {
+                property 'cups'
+            }
+            order 'cups', 'desc'
+        }
+    }
+
+    static Number countByMaker(HibernateCriteriaBuilder builder, String maker) {
+        (Number) builder.count {
+            eq 'maker', maker
+        }
+    }
+
+    static List<Teapot> withoutShop(HibernateCriteriaBuilder builder) {
+        (List<Teapot>) builder.list {
+            or {
+                isNull 'shop'
+                lt 'cups', 0
+            }
+            firstResult 0
+            maxResults 10
+        }
+    }
+}
+
+@Entity
+class Teapot {
+    String maker
+    Integer cups
+    TeapotShop shop
+
+    static constraints = {
+        shop nullable: true
+    }
+}
+
+@Entity
+class TeapotShop {
+    String name
+}
@@ -0,0 +1,79 @@
+package grails.gorm.tests
+
+import grails.gorm.PagedResultList
+import grails.gorm.annotation.Entity
+import grails.gorm.transactions.Rollback
+import org.grails.orm.hibernate.HibernateDatastore
+import org.grails.orm.hibernate.query.GrailsHibernateQueryUtils
+import org.hibernate.dialect.H2Dialect
+import org.hibernate.dialect.PostgreSQL10Dialect
+import org.hibernate.dialect.PostgreSQL81Dialect
+import org.hibernate.dialect.PostgreSQL82Dialect
+import org.hibernate.dialect.PostgreSQL9Dialect
+import org.hibernate.stat.Statistics
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+@Rollback
+class WindowCountPaginationSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:windowCountDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.generate_statistics': 'true',
+            'hibernate.pagination.windowCount': true
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Invoice)
+
+    void setup() {
+        for (i in 1..12) {
+            new Invoice(number: "INV-${i.toString().padLeft(3, '0')}").save()
+        }
+        datastore.sessionFactory.currentSession.flush()
+        datastore.sessionFactory.currentSession.clear()
+    }
+
+    void "test the total count is obtained with the page query"() {
+        given:
+        Statistics statistics = datastore.sessionFactory.statistics
+        statistics.clear()
+
+        when:
+        PagedResultList<Invoice> page = (PagedResultList<Invoice>) Invoice.list(max: 5, offset: 5, sort: 'number')
+
+        then:
+        datastore.windowCount
+        page*.number == ['INV-006', 'INV-007', 'INV-008', 'INV-009', 'INV-010']
+        page.totalCount == 12
+        statistics.prepareStatementCount == 1
+    }
+
+    void "test a page past the end falls back to a count query"() {
+        when:
+        PagedResultList<Invoice> page = (PagedResultList<Invoice>) Invoice.list(max: 5, offset: 20)
+
+        then:
+        page.isEmpty()
+        page.totalCount == 12
+    }
+
+    void "test window counts are only used with dialects that support window functions"() {
+        expect:
+        GrailsHibernateQueryUtils.supportsWindowCount(dialect) == supported
+
+        where:
+        dialect                     | supported
+        new H2Dialect()             | true
+        new PostgreSQL81Dialect()   | false
+        new PostgreSQL82Dialect()   | false
+        new PostgreSQL9Dialect()    | true
+        new PostgreSQL10Dialect()   | true
+    }
+}
+
+@Entity
+class Invoice {
+    String number
+}
@@ -0,0 +1,160 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.dialect.H2Dialect
+import org.hibernate.stat.Statistics
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class MultiTenantGetSpec extends Specification {
+
+    @Shared @AutoCleanup HibernateDatastore datastore
+
+    void setupSpec() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+        Map config = [
+                "grails.gorm.multiTenancy.mode":MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR,
+                "grails.gorm.multiTenancy.tenantResolverClass":SystemPropertyTenantResolver.name,
+                'dataSource.url':"jdbc:h2:mem:multiTenantGetDB;LOCK_TIMEOUT=10000",
+                'dataSource.dialect': H2Dialect.name,
+                'dataSource.dbCreate': 'create-drop',
+                'hibernate.generate_statistics': 'true',
+                'hibernate.cache.use_second_level_cache': true,
+                'hibernate.cache.region.factory_class': 'org.hibernate.cache.ehcache.EhCacheRegionFactory'
+        ]
+        datastore = new HibernateDatastore(DatastoreUtils.createPropertyResolver(config), TenantNote)
+    }
+
+    void cleanup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void "test get resolves instances of the current tenant from the session"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        Statistics statistics = datastore.sessionFactory.statistics
+
+        when:
+        Map result = TenantNote.withTransaction {
+            TenantNote note = new TenantNote(text: "Hello").save(flush: true)
+            statistics.clear()
+            [note: TenantNote.get(note.id), same: TenantNote.get(note.id).is(note), statements: statistics.prepareStatementCount]
+        }
+
+        then:
+        result.note.text == "Hello"
+        result.same
+        result.statements == 0
+    }
+
+    void "test get does not return instances of another tenant"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        Long id = TenantNote.withTransaction {
+            new TenantNote(text: "Secret").save(flush: true).id
+        }
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "globex")
+        Map result = TenantNote.withTransaction {
+            TenantNote note = TenantNote.get(id)
+            [note: note, inSession: datastore.sessionFactory.currentSession.statistics.entityCount]
+        }
+
+        then:
+        result.note == null
+        result.inSession == 0
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+
+        then:
+        TenantNote.withTransaction { TenantNote.get(id)?.text } == "Secret"
+    }
+
+    void "test get does not load rows of another tenant"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        Long id = TenantNote.withTransaction {
+            new TenantNote(text: "Private").save(flush: true).id
+        }
+        datastore.sessionFactory.cache.evictAllRegions()
+        Statistics statistics = datastore.sessionFactory.statistics
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "globex")
+        statistics.clear()
+        TenantNote note = TenantNote.withTransaction { TenantNote.get(id) }
+
+        then:
+        note == null
+        statistics.entityLoadCount == 0
+    }
+
+    void "test get verifies the tenant of cached instances before loading them"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        Long id = TenantNote.withTransaction {
+            new TenantNote(text: "Cached").save(flush: true).id
+        }
+        datastore.sessionFactory.cache.evictAllRegions()
+        TenantNote.withTransaction { TenantNote.get(id) }
+        Statistics statistics = datastore.sessionFactory.statistics
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "globex")
+        statistics.clear()
+        TenantNote note = TenantNote.withTransaction { TenantNote.get(id) }
+
+        then:
+        datastore.sessionFactory.cache.containsEntity(TenantNote, id)
+        note == null
+        statistics.entityLoadCount == 0
+        statistics.prepareStatementCount == 0
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        statistics.clear()
+        String text = TenantNote.withTransaction { TenantNote.get(id)?.text }
+
+        then:
+        text == "Cached"
+        statistics.prepareStatementCount == 0
+    }
+
+    void "test read does not return instances of another tenant"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+        Long id = TenantNote.withTransaction {
+            new TenantNote(text: "Draft").save(flush: true).id
+        }
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "globex")
+
+        then:
+        TenantNote.withTransaction { TenantNote.read(id) } == null
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "acme")
+
+        then:
+        TenantNote.withTransaction { TenantNote.read(id)?.text } == "Draft"
+    }
+}
+
+@Entity
+class TenantNote implements MultiTenant<TenantNote> {
+    String text
+    String tenantId
+
+    static mapping = {
+        cache true
+    }
+}
@@ -0,0 +1,83 @@
+package grails.gorm.tests.multitenancy
+
+import java.util.concurrent.TimeUnit
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.multitenancy.AllTenantsResolver
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class SchemaAsyncNamespaceSpec extends Specification {
+
+    @Shared @AutoCleanup HibernateDatastore datastore
+
+    void setupSpec() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+        Map config = [
+                "grails.gorm.multiTenancy.mode":MultiTenancySettings.MultiTenancyMode.SCHEMA,
+                "grails.gorm.multiTenancy.tenantResolverClass":AsyncSchemaTenantResolver,
+                'dataSource.url':"jdbc:h2:mem:schemaAsyncNamespaceDB;LOCK_TIMEOUT=10000",
+                'dataSource.dialect': H2Dialect.name,
+                'dataSource.dbCreate': 'create-drop'
+        ]
+        datastore = new HibernateDatastore(DatastoreUtils.createPropertyResolver(config), SchemaManuscript)
+    }
+
+    void cleanup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void "test async methods run in the schema of the tenant of the caller"() {
+        given:
+        Tenants.withId("east") {
+            SchemaManuscript.withTransaction {
+                new SchemaManuscript(title: "Beowulf").save(flush: true)
+            }
+        }
+
+        when:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "east")
+        int eastCount = SchemaManuscript.async.count().get(10, TimeUnit.SECONDS) as int
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "west")
+        int westCount = SchemaManuscript.async.count().get(10, TimeUnit.SECONDS) as int
+
+        then:
+        eastCount == 1
+        westCount == 0
+    }
+
+    void "test an async task writes to the schema of the tenant of the caller"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "west")
+
+        when:
+        SchemaManuscript.async.task {
+            new SchemaManuscript(title: "Gawain").save(flush: true)
+        }.get(10, TimeUnit.SECONDS)
+
+        then:
+        Tenants.withId("west") { SchemaManuscript.withTransaction { SchemaManuscript.countByTitle("Gawain") } } == 1
+        Tenants.withId("east") { SchemaManuscript.withTransaction { SchemaManuscript.countByTitle("Gawain") } } == 0
+    }
+
+    static class AsyncSchemaTenantResolver extends SystemPropertyTenantResolver implements AllTenantsResolver {
+        @Override
+        Iterable<Serializable> resolveTenantIds() {
+            return ["east", "west"]
+        }
+    }
+}
+
+@Entity
+class SchemaManuscript implements HibernateEntity<SchemaManuscript>, MultiTenant<SchemaManuscript> {
+    String title
+}
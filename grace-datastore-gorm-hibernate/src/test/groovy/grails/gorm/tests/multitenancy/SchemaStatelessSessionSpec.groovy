@@ -0,0 +1,80 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.hibernate.HibernateEntity
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.multitenancy.AllTenantsResolver
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.StatelessSession
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class SchemaStatelessSessionSpec extends Specification {
+
+    @Shared @AutoCleanup HibernateDatastore datastore
+
+    void setupSpec() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+        Map config = [
+                "grails.gorm.multiTenancy.mode":MultiTenancySettings.MultiTenancyMode.SCHEMA,
+                "grails.gorm.multiTenancy.tenantResolverClass":SchemaTenantResolver,
+                'dataSource.url':"jdbc:h2:mem:schemaStatelessSessionDB;LOCK_TIMEOUT=10000",
+                'dataSource.dialect': H2Dialect.name,
+                'dataSource.dbCreate': 'create-drop'
+        ]
+        datastore = new HibernateDatastore(DatastoreUtils.createPropertyResolver(config), SchemaLogEntry)
+    }
+
+    void cleanup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void "test the stateless session uses the schema of the current tenant"() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "north")
+
+        when:
+        SchemaLogEntry.withStatelessSession { StatelessSession session ->
+            session.insert(new SchemaLogEntry(message: "North"))
+        }
+
+        then:
+        Tenants.withId("north") { SchemaLogEntry.withTransaction { SchemaLogEntry.count() } } == 1
+        Tenants.withId("south") { SchemaLogEntry.withTransaction { SchemaLogEntry.count() } } == 0
+    }
+
+    void "test the stateless session of a tenant does not read the rows of another tenant"() {
+        given:
+        Tenants.withId("south") {
+            SchemaLogEntry.withTransaction {
+                new SchemaLogEntry(message: "South").save(flush: true)
+            }
+        }
+
+        expect:
+        datastore.withStatelessSession("south") { StatelessSession session ->
+            session.createQuery("select e.message from SchemaLogEntry e").list()
+        } == ["South"]
+        datastore.withStatelessSession("north") { StatelessSession session ->
+            session.createQuery("select e.message from SchemaLogEntry e where e.message = 'South'").list()
+        } == []
+    }
+
+    static class SchemaTenantResolver extends SystemPropertyTenantResolver implements AllTenantsResolver {
+        @Override
+        Iterable<Serializable> resolveTenantIds() {
+            return ["north", "south"]
+        }
+    }
+}
+
+@Entity
+class SchemaLogEntry implements HibernateEntity<SchemaLogEntry>, MultiTenant<SchemaLogEntry> {
+    String message
+}
@@ -0,0 +1,134 @@
+package grails.gorm.tests.perf
+
+import grails.gorm.annotation.Entity
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.stat.Statistics
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+/**
+ * Compares the work getAll(..) does for many ids with the single IN query it used before, with Hibernate statistics
+ */
+class GetAllPerfSpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:getAllPerfDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': 'org.hibernate.dialect.H2Dialect',
+            'hibernate.generate_statistics': 'true',
+            'hibernate.cache.use_second_level_cache': true,
+            'hibernate.cache.region.factory_class': 'org.hibernate.cache.ehcache.EhCacheRegionFactory'
+    ]
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(config, Widget)
+    @Shared List<Long> ids
+
+    void setupSpec() {
+        ids = Widget.withTransaction {
+            List<Long> created = []
+            for (i in 0..<5000) {
+                created << new Widget(name: "Widget $i").save().id
+                if (i % 500 == 0) {
+                    datastore.sessionFactory.currentSession.flush()
+                    datastore.sessionFactory.currentSession.clear()
+                }
+            }
+            created
+        }
+        Collections.shuffle(ids, new Random(42))
+    }
+
+    void setup() {
+        datastore.sessionFactory.cache.evictAllRegions()
+        datastore.sessionFactory.statistics.clear()
+    }
+
+    void 'test getAll queries the database in batches when the instances are neither in the session nor in the cache'() {
+        given:
+        Statistics statistics = datastore.sessionFactory.statistics
+
+        when:"the ids are loaded with a single IN query, as getAll did before"
+        List<Widget> inQueryResults = Widget.withNewTransaction { loadWithSingleInQuery(ids) }
+        long inQueryStatements = statistics.prepareStatementCount
+        long inQueryLoads = statistics.entityLoadCount
+        datastore.sessionFactory.cache.evictAllRegions()
+        statistics.clear()
+
+        and:"the ids are loaded with getAll"
+        List<Widget> results = Widget.withNewTransaction { Widget.getAll(ids) }
+
+        then:"both load every instance, getAll in IN lists of the batch size"
+        inQueryResults*.id == ids
+        inQueryStatements == 1
+        inQueryLoads == 5000
+        results*.id == ids
+        statistics.prepareStatementCount == 10
+        statistics.entityLoadCount == 5000
+        statistics.secondLevelCacheHitCount == 0
+    }
+
+    void 'test getAll does not query the database when the instances are in the session'() {
+        given:
+        Statistics statistics = datastore.sessionFactory.statistics
+
+        when:
+        long inQueryStatements = 0
+        List<Widget> results = Widget.withNewTransaction {
+            Widget.getAll(ids)
+            statistics.clear()
+            loadWithSingleInQuery(ids)
+            inQueryStatements = statistics.prepareStatementCount
+            statistics.clear()
+            Widget.getAll(ids)
+        }
+
+        then:"the single IN query still goes to the database"
+        inQueryStatements == 1
+        results*.id == ids
+        statistics.prepareStatementCount == 0
+        statistics.entityLoadCount == 0
+        statistics.secondLevelCacheHitCount == 0
+    }
+
+    void 'test getAll does not query the database when the instances are in the second-level cache'() {
+        given:
+        Statistics statistics = datastore.sessionFactory.statistics
+        Widget.withNewTransaction { Widget.getAll(ids) }
+        statistics.clear()
+
+        when:"the ids are loaded with a single IN query"
+        Widget.withNewTransaction { loadWithSingleInQuery(ids) }
+        long inQueryStatements = statistics.prepareStatementCount
+        long inQueryLoads = statistics.entityLoadCount
+        long inQueryCacheHits = statistics.secondLevelCacheHitCount
+        statistics.clear()
+
+        and:"the ids are loaded with getAll"
+        List<Widget> results = Widget.withNewTransaction { Widget.getAll(ids) }
+
+        then:"the single IN query ignores the cache"
+        inQueryStatements == 1
+        inQueryLoads == 5000
+        inQueryCacheHits == 0
+        results*.id == ids
+        statistics.prepareStatementCount == 0
+        statistics.secondLevelCacheHitCount == 5000
+    }
+
+    /**
+     * Loads the given ids the way getAll(..) did before the session and the second-level cache were consulted
+     */
+    private List<Widget> loadWithSingleInQuery(List<Long> ids) {
+        Map<Long, Widget> instancesById = Widget.withCriteria { 'in'('id', ids) }.collectEntries { Widget widget -> [(widget.id): widget] }
+        ids.collect { Long id -> instancesById[id] }
+    }
+}
+
+@Entity
+class Widget {
+    String name
+
+    static mapping = {
+        cache true
+    }
+}
@@ -0,0 +1,157 @@
+package org.grails.orm.hibernate.connections
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+import grails.gorm.annotation.Entity
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.exceptions.ConfigurationException
+import org.grails.orm.hibernate.HibernateDatastore
+import org.hibernate.Session
+import org.hibernate.Transaction
+import org.hibernate.dialect.H2Dialect
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class FanOutQuerySpec extends Specification {
+
+    @Shared Map config = [
+            'dataSource.url':"jdbc:h2:mem:fanOutDB;LOCK_TIMEOUT=10000",
+            'dataSource.dbCreate': 'create-drop',
+            'dataSource.dialect': H2Dialect.name,
+            'hibernate.async.virtualThreads': false,
+            'hibernate.async.poolSize': 1,
+            'dataSources.east':[url:"jdbc:h2:mem:fanOutEast;LOCK_TIMEOUT=10000"],
+            'dataSources.west':[url:"jdbc:h2:mem:fanOutWest;LOCK_TIMEOUT=10000"]
+    ]
+
+    @Shared @AutoCleanup HibernateDatastore datastore = new HibernateDatastore(DatastoreUtils.createPropertyResolver(config), Ledger)
+
+    void setupSpec() {
+        insert('default', 1, 4, 7)
+        insert('east', 2, 5, 8)
+        insert('west', 3, 6, 9)
+    }
+
+    void "test the results of the given connection sources are concatenated in order"() {
+        when:
+        List<Ledger> results = datastore.fanOut(connections: ['west', 'east'], this.&findLedgers)
+
+        then:
+        results*.amount == [3, 6, 9, 2, 5, 8]
+        results*.region == ['west'] * 3 + ['east'] * 3
+    }
+
+    void "test all connection sources are queried by default"() {
+        expect:
+        datastore.fanOut(this.&findLedgers)*.amount.sort() == (1..9).toList()
+        datastore.fanOut { String name -> currentSession(name).createQuery("select count(*) from Ledger").uniqueResult() }.sum() == 9
+    }
+
+    void "test the results are merged in the order of the comparator"() {
+        when:
+        List<Ledger> results = datastore.fanOut([comparator: { Ledger a, Ledger b -> a.amount <=> b.amount } as Comparator], this.&findLedgers)
+
+        then:
+        results*.amount == (1..9).toList()
+
+        when:
+        results = datastore.fanOut([comparator: { Ledger a, Ledger b -> a.amount <=> b.amount } as Comparator, max: 4], this.&findLedgers)
+
+        then:
+        results*.amount == [1, 2, 3, 4]
+    }
+
+    void "test the number of connection sources queried at once is bounded"() {
+        given:
+        AtomicInteger running = new AtomicInteger()
+        AtomicInteger peak = new AtomicInteger()
+
+        when:
+        List<Ledger> results = datastore.fanOut(maxConcurrency: 1) { String name ->
+            peak.accumulateAndGet(running.incrementAndGet()) { int a, int b -> Math.max(a, b) }
+            try {
+                Thread.sleep(50)
+                return findLedgers(name)
+            }
+            finally {
+                running.decrementAndGet()
+            }
+        }
+
+        then:
+        results.size() == 9
+        peak.get() == 1
+    }
+
+    void "test the results are streamed"() {
+        when:
+        Stream<Ledger> stream = datastore.fanOutStream([max: 5], this.&findLedgers)
+        List<Ledger> results = stream.collect(Collectors.toList())
+        stream.close()
+
+        then:
+        results.size() == 5
+    }
+
+    void "test a failure is propagated"() {
+        when:
+        datastore.fanOut { String name ->
+            if (name == 'east') {
+                throw new IllegalStateException("east is down")
+            }
+            findLedgers(name)
+        }
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "east is down"
+    }
+
+    void "test a fan-out can be called from an asynchronous task while the asynchronous pool is exhausted"() {
+        when:
+        List<Ledger> results = datastore.async { datastore.fanOut(this.&findLedgers) }.get(10, TimeUnit.SECONDS)
+
+        then:
+        results*.amount.sort() == (1..9).toList()
+    }
+
+    void "test an unknown connection source is rejected"() {
+        when:
+        datastore.fanOut(connections: ['north'], this.&findLedgers)
+
+        then:
+        thrown(ConfigurationException)
+    }
+
+    private List<Ledger> findLedgers(String name) {
+        currentSession(name).createQuery("from Ledger order by amount").list()
+    }
+
+    private Session currentSession(String name) {
+        datastore.getDatastoreForConnection(name).sessionFactory.currentSession
+    }
+
+    private void insert(String name, Integer... amounts) {
+        datastore.getDatastoreForConnection(name).withNewSession { Session session ->
+            Transaction transaction = session.beginTransaction()
+            for (Integer amount in amounts) {
+                session.save(new Ledger(region: name, amount: amount))
+            }
+            transaction.commit()
+        }
+    }
+}
+
+@Entity
+class Ledger {
+    String region
+    Integer amount
+
+    static mapping = {
+        datasource 'ALL'
+    }
+}
@@ -15,22 +15,36 @@
  */
 package org.grails.plugin.hibernate.support;
 
+import java.util.concurrent.Callable;
+
 import org.hibernate.FlushMode;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.orm.hibernate5.SessionFactoryUtils;
 import org.springframework.orm.hibernate5.SessionHolder;
 import org.springframework.orm.hibernate5.support.OpenSessionInViewInterceptor;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.ui.ModelMap;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
 import org.grails.orm.hibernate.AbstractHibernateDatastore;
+import org.grails.orm.hibernate.LazySessionHolder;
 
 /**
  * Extends the default spring OSIV and doesn't flush the session if it has been set
  * to MANUAL on the session itself.
  *
+ * <p>With {@code hibernate.osiv.lazy} a {@link LazySessionHolder} is bound instead of an open session, so that
+ * a request that never accesses the database does not open a session.</p>
+ *
  * @author Graeme Rocher
  * @since 0.5
  */
@@ -38,6 +52,8 @@ public class GrailsOpenSessionInViewInterceptor extends OpenSessionInViewInterce
 
     protected FlushMode hibernateFlushMode = FlushMode.MANUAL;
 
+    protected boolean lazy;
+
     @Override
     protected Session openSession() throws DataAccessResourceFailureException {
         Session session = super.openSession();
@@ -49,9 +65,44 @@ public class GrailsOpenSessionInViewInterceptor extends OpenSessionInViewInterce
         session.setHibernateFlushMode(hibernateFlushMode);
     }
 
+    @Override
+    public void preHandle(WebRequest request) throws DataAccessException {
+        if (!lazy) {
+            super.preHandle(request);
+            return;
+        }
+        SessionFactory sessionFactory = getSessionFactory();
+        String key = getParticipateAttributeName();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        if (asyncManager.hasConcurrentResult()) {
+            CallableProcessingInterceptor interceptor = asyncManager.getCallableInterceptor(key);
+            if (interceptor instanceof LazySessionBindingInterceptor) {
+                ((LazySessionBindingInterceptor) interceptor).bindSession();
+                return;
+            }
+        }
+        if (TransactionSynchronizationManager.hasResource(sessionFactory)) {
+            // participates in the existing session
+            super.preHandle(request);
+            return;
+        }
+
+        LazySessionHolder sessionHolder = new LazySessionHolder(this::openSession);
+        TransactionSynchronizationManager.bindResource(sessionFactory, sessionHolder);
+        LazySessionBindingInterceptor interceptor = new LazySessionBindingInterceptor(sessionFactory, sessionHolder);
+        asyncManager.registerCallableInterceptor(key, interceptor);
+        asyncManager.registerDeferredResultInterceptor(key, interceptor);
+    }
+
     @Override
     public void postHandle(WebRequest request, ModelMap model) throws DataAccessException {
         SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(getSessionFactory());
+        if (sessionHolder instanceof LazySessionHolder && !((LazySessionHolder) sessionHolder).isSessionOpened()) {
+            // nothing to flush, a session opened while the view is rendered is not flushed either
+            super.postHandle(request, model);
+            ((LazySessionHolder) sessionHolder).setFlushMode(FlushMode.MANUAL);
+            return;
+        }
         Session session = sessionHolder != null ? sessionHolder.getSession() : null;
         try {
             super.postHandle(request, model);
@@ -71,6 +122,36 @@ public class GrailsOpenSessionInViewInterceptor extends OpenSessionInViewInterce
         }
     }
 
+    @Override
+    public void afterCompletion(WebRequest request, Exception ex) throws DataAccessException {
+        if (!lazy) {
+            super.afterCompletion(request, ex);
+            return;
+        }
+        if (!decrementParticipateCount(request)) {
+            SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.unbindResource(getSessionFactory());
+            if (!(sessionHolder instanceof LazySessionHolder) || ((LazySessionHolder) sessionHolder).isSessionOpened()) {
+                logger.debug("Closing Hibernate Session in OpenSessionInViewInterceptor");
+                SessionFactoryUtils.closeSession(sessionHolder.getSession());
+            }
+        }
+    }
+
+    private boolean decrementParticipateCount(WebRequest request) {
+        String participateAttributeName = getParticipateAttributeName();
+        Integer count = (Integer) request.getAttribute(participateAttributeName, WebRequest.SCOPE_REQUEST);
+        if (count == null) {
+            return false;
+        }
+        if (count > 1) {
+            request.setAttribute(participateAttributeName, count - 1, WebRequest.SCOPE_REQUEST);
+        }
+        else {
+            request.removeAttribute(participateAttributeName, WebRequest.SCOPE_REQUEST);
+        }
+        return true;
+    }
+
     public void setHibernateDatastore(AbstractHibernateDatastore hibernateDatastore) {
         String defaultFlushModeName = hibernateDatastore.getDefaultFlushModeName();
         if (hibernateDatastore.isOsivReadOnly()) {
@@ -79,7 +160,85 @@ public class GrailsOpenSessionInViewInterceptor extends OpenSessionInViewInterce
         else {
             this.hibernateFlushMode = FlushMode.valueOf(defaultFlushModeName);
         }
+        this.lazy = hibernateDatastore.isOsivLazy();
         setSessionFactory(hibernateDatastore.getSessionFactory());
     }
 
+    /**
+     * Binds the lazy session holder of a request to the threads that process its asynchronous result, and closes
+     * the session if it was opened and the processing timed out or failed
+     */
+    private static final class LazySessionBindingInterceptor implements CallableProcessingInterceptor, DeferredResultProcessingInterceptor {
+
+        private final SessionFactory sessionFactory;
+
+        private final LazySessionHolder sessionHolder;
+
+        private volatile boolean timeoutInProgress;
+
+        private volatile boolean errorInProgress;
+
+        private LazySessionBindingInterceptor(SessionFactory sessionFactory, LazySessionHolder sessionHolder) {
+            this.sessionFactory = sessionFactory;
+            this.sessionHolder = sessionHolder;
+        }
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            bindSession();
+        }
+
+        private void bindSession() {
+            this.timeoutInProgress = false;
+            this.errorInProgress = false;
+            TransactionSynchronizationManager.bindResource(this.sessionFactory, this.sessionHolder);
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            TransactionSynchronizationManager.unbindResource(this.sessionFactory);
+        }
+
+        @Override
+        public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+            this.timeoutInProgress = true;
+            return RESULT_NONE;
+        }
+
+        @Override
+        public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+            this.errorInProgress = true;
+            return RESULT_NONE;
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            closeSession();
+        }
+
+        @Override
+        public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+            this.timeoutInProgress = true;
+            return true;
+        }
+
+        @Override
+        public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+            this.errorInProgress = true;
+            return true;
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+            closeSession();
+        }
+
+        private void closeSession() {
+            if ((this.timeoutInProgress || this.errorInProgress) && this.sessionHolder.isSessionOpened()) {
+                SessionFactoryUtils.closeSession(this.sessionHolder.getSession());
+            }
+        }
+
+    }
+
 }
@@ -2,8 +2,6 @@ package org.grails.plugin.hibernate.support;
 
 import java.sql.Connection;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 import org.hibernate.FlushMode;
@@ -18,9 +16,9 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import grails.persistence.support.PersistenceContextInterceptor;
 import grails.validation.DeferredBindingActions;
 
-import org.grails.core.lifecycle.ShutdownOperations;
 import org.grails.datastore.mapping.core.connections.ConnectionSource;
 import org.grails.orm.hibernate.AbstractHibernateDatastore;
+import org.grails.orm.hibernate.LazySessionHolder;
 import org.grails.orm.hibernate.support.HibernateRuntimeUtils;
 
 /**
@@ -33,20 +31,11 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
 
     private AbstractHibernateDatastore hibernateDatastore;
 
-
-    private static ThreadLocal<Map<String, Boolean>> participate = ThreadLocal.withInitial(HashMap::new);
-
-    private static ThreadLocal<Map<String, Integer>> nestingCount = ThreadLocal.withInitial(HashMap::new);
+    // the state of each thread is removed once its outermost scope is destroyed, so that no thread keeps it afterwards
+    private final ThreadLocal<NestingState> nestingState = new ThreadLocal<>();
 
     private String dataSourceName;
 
-    static {
-        ShutdownOperations.addOperation(() -> {
-            participate.remove();
-            nestingCount.remove();
-        });
-    }
-
     private Deque<Connection> disconnected = new ConcurrentLinkedDeque<>();
 
     private final boolean transactionRequired;
@@ -71,12 +60,18 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
         if (!disconnected.isEmpty()) {
             disconnected.pop();
         }
-        if (getSessionFactory() == null || decNestingCount() > 0 || getParticipate()) {
+        boolean participate = getParticipate();
+        if (decNestingCount() > 0 || participate || getSessionFactory() == null) {
             return;
         }
 
         // single session mode
         SessionHolder holder = (SessionHolder) TransactionSynchronizationManager.unbindResource(getSessionFactory());
+        if (holder instanceof LazySessionHolder && !((LazySessionHolder) holder).isSessionOpened()) {
+            LOG.debug("Unbinding lazy Hibernate session that was never opened in HibernatePersistenceContextInterceptor");
+            disconnected.clear();
+            return;
+        }
         LOG.debug("Closing single Hibernate session in HibernatePersistenceContextInterceptor");
         try {
             disconnected.clear();
@@ -88,7 +83,7 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
     }
 
     public void disconnect() {
-        if (getSessionFactory() == null) return;
+        if (getSessionFactory() == null || getUnopenedSessionHolder() != null) return;
         try {
             disconnected.add(
                     getSession(false).disconnect()
@@ -101,7 +96,7 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
     }
 
     public void reconnect() {
-        if (getSessionFactory() == null) return;
+        if (getSessionFactory() == null || getUnopenedSessionHolder() != null) return;
         Session session = getSession();
         if (!session.isConnected() && !disconnected.isEmpty()) {
             try {
@@ -116,7 +111,7 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
     }
 
     public void flush() {
-        if (getSessionFactory() == null) return;
+        if (getSessionFactory() == null || getUnopenedSessionHolder() != null) return;
         if (!getParticipate()) {
             if (!transactionRequired) {
                 getSession().flush();
@@ -128,22 +123,35 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
     }
 
     public void clear() {
-        if (getSessionFactory() == null) return;
+        if (getSessionFactory() == null || getUnopenedSessionHolder() != null) return;
         getSession().clear();
     }
 
     public void setReadOnly() {
-        if (getSessionFactory() == null) return;
-        getSession().setHibernateFlushMode(FlushMode.MANUAL);
+        setFlushMode(FlushMode.MANUAL);
     }
 
     public void setReadWrite() {
+        setFlushMode(FlushMode.AUTO);
+    }
+
+    private void setFlushMode(FlushMode flushMode) {
         if (getSessionFactory() == null) return;
-        getSession().setHibernateFlushMode(FlushMode.AUTO);
+        LazySessionHolder holder = getUnopenedSessionHolder();
+        if (holder != null) {
+            holder.setFlushMode(flushMode);
+        }
+        else {
+            getSession().setHibernateFlushMode(flushMode);
+        }
     }
 
     public boolean isOpen() {
         if (getSessionFactory() == null) return false;
+        if (getUnopenedSessionHolder() != null) {
+            // the session is opened on demand
+            return true;
+        }
         try {
             return getSession(false).isOpen();
         }
@@ -169,11 +177,32 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
         }
         else {
             setParticipate(false);
-            LOG.debug("Opening single Hibernate session in HibernatePersistenceContextInterceptor");
-            Session session = getSession();
-            HibernateRuntimeUtils.enableDynamicFilterEnablerIfPresent(sf, session);
-            TransactionSynchronizationManager.bindResource(sf, new SessionHolder(session));
+            if (hibernateDatastore.isOsivLazy()) {
+                LOG.debug("Binding lazy Hibernate session in HibernatePersistenceContextInterceptor");
+                TransactionSynchronizationManager.bindResource(sf, new LazySessionHolder(() -> openSession(sf)));
+            }
+            else {
+                LOG.debug("Opening single Hibernate session in HibernatePersistenceContextInterceptor");
+                TransactionSynchronizationManager.bindResource(sf, new SessionHolder(openSession(sf)));
+            }
+        }
+    }
+
+    private Session openSession(SessionFactory sf) {
+        Session session = hibernateDatastore.openSession();
+        HibernateRuntimeUtils.enableDynamicFilterEnablerIfPresent(sf, session);
+        return session;
+    }
+
+    /**
+     * @return The bound lazy session holder if its session was not opened yet, otherwise null
+     */
+    private LazySessionHolder getUnopenedSessionHolder() {
+        Object value = TransactionSynchronizationManager.getResource(getSessionFactory());
+        if (value instanceof LazySessionHolder && !((LazySessionHolder) value).isSessionOpened()) {
+            return (LazySessionHolder) value;
         }
+        return null;
     }
 
     private Session getSession() {
@@ -216,33 +245,47 @@ public class HibernatePersistenceContextInterceptor implements PersistenceContex
     }
 
     private int incNestingCount() {
-        Map<String, Integer> map = nestingCount.get();
-        Integer current = map.get(dataSourceName);
-        int value = (current != null) ? current + 1 : 1;
-        map.put(dataSourceName, value);
-        return value;
+        NestingState state = nestingState.get();
+        if (state == null) {
+            state = new NestingState();
+            nestingState.set(state);
+        }
+        return ++state.count;
     }
 
     private int decNestingCount() {
-        Map<String, Integer> map = nestingCount.get();
-        Integer current = map.get(dataSourceName);
-        int value = (current != null) ? current - 1 : 0;
-        if (value < 0) {
-            value = 0;
+        NestingState state = nestingState.get();
+        if (state == null) {
+            return 0;
         }
-        map.put(dataSourceName, value);
-        return value;
+        if (--state.count > 0) {
+            return state.count;
+        }
+        nestingState.remove();
+        return 0;
     }
 
     private void setParticipate(boolean flag) {
-        Map<String, Boolean> map = participate.get();
-        map.put(dataSourceName, flag);
+        NestingState state = nestingState.get();
+        if (state != null) {
+            state.participate = flag;
+        }
     }
 
     private boolean getParticipate() {
-        Map<String, Boolean> map = participate.get();
-        Boolean ret = map.get(dataSourceName);
-        return (ret != null) ? ret : false;
+        NestingState state = nestingState.get();
+        return state != null && state.participate;
+    }
+
+    /**
+     * The nesting of {@link #init()} and {@link #destroy()} calls of a thread
+     */
+    private static final class NestingState {
+
+        private int count;
+
+        private boolean participate;
+
     }
 
 }